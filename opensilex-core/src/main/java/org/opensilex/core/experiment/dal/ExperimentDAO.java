@@ -7,7 +7,6 @@
 package org.opensilex.core.experiment.dal;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.arq.querybuilder.ExprFactory;
 import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.apache.jena.arq.querybuilder.WhereBuilder;
@@ -20,6 +19,7 @@ import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.syntax.ElementFilter;
 import org.apache.jena.sparql.syntax.ElementGroup;
 import org.apache.jena.sparql.syntax.ElementOptional;
+import org.apache.jena.vocabulary.RDFS;
 import org.opensilex.core.ontology.Oeso;
 import org.opensilex.sparql.deserializer.SPARQLDeserializers;
 import org.opensilex.sparql.exceptions.SPARQLException;
@@ -240,9 +240,7 @@ public class ExperimentDAO {
     }
 
     private void appendRegexLabelFilter(SelectBuilder select, String label) {
-        if (!StringUtils.isEmpty(label)) {
-            select.addFilter(SPARQLQueryHelper.regexFilter(ExperimentModel.LABEL_FIELD, label));
-        }
+        SPARQLQueryHelper.addTextFilter(sparql, select, ExperimentModel.URI_FIELD, RDFS.label, ExperimentModel.LABEL_FIELD, label);
     }
 
     private void appendUriRegexFilter(SelectBuilder select, URI uri) {
@@ -9,12 +9,12 @@ package org.opensilex.core.germplasm.dal;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.arq.querybuilder.AskBuilder;
 import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.apache.jena.graph.NodeFactory;
@@ -143,7 +143,12 @@ public class GermplasmDAO {
                 },
                 orderByList,
                 page,
-                pageSize
+                pageSize,
+                Arrays.asList(
+                        GermplasmModel.SPECIES_URI_SPARQL_VAR,
+                        GermplasmModel.VARIETY_URI_SPARQL_VAR,
+                        GermplasmModel.ACCESSION_URI_SPARQL_VAR
+                )
         );
     }
     
@@ -161,9 +166,7 @@ public class GermplasmDAO {
     }
 
     private void appendRegexLabelFilter(SelectBuilder select, String label) {
-        if (!StringUtils.isEmpty(label)) {
-            select.addFilter(SPARQLQueryHelper.regexFilter(GermplasmModel.LABEL_VAR, label));
-        }
+        SPARQLQueryHelper.addTextFilter(sparql, select, GermplasmModel.URI_FIELD, RDFS.label, GermplasmModel.LABEL_VAR, label);
     }
 
     private void appendSpeciesFilter(SelectBuilder select, URI species) throws Exception {
@@ -23,9 +23,15 @@ import java.util.*;
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.apache.jena.arq.querybuilder.AskBuilder;
+import org.apache.jena.graph.Node;
 import org.opensilex.core.experiment.dal.ExperimentModel;
+import org.opensilex.core.ontology.Oeso;
 import org.opensilex.integration.test.security.AbstractSecurityIntegrationTest;
+import org.opensilex.sparql.deserializer.SPARQLDeserializers;
 import org.opensilex.sparql.model.SPARQLResourceModel;
+import org.opensilex.sparql.service.SPARQLService;
 
 /**
  * @author Vincent MIGOT
@@ -125,6 +131,31 @@ public class ExperimentAPITest extends AbstractSecurityIntegrationTest {
         assertEquals(Status.NOT_FOUND.getStatusCode(), getResult.getStatus());
     }
 
+    @Test
+    public void testDeleteListWithInverseRelations() throws Exception {
+
+        // create an experiment with sensors and factors, stored as inverse relations
+        ExperimentCreationDTO xpDto = getCreationDTO();
+        xpDto.setSensors(Arrays.asList(new URI("http://test.opensilex.org/sensors/s001"), new URI("http://test.opensilex.org/sensors/s002")));
+        xpDto.setFactors(Arrays.asList(new URI("http://test.opensilex.org/factors/f001")));
+
+        SPARQLService sparql = getSparqlService();
+        ExperimentModel xp = xpDto.newModel();
+        sparql.create(xp);
+        Node xpNode = SPARQLDeserializers.nodeURI(xp.getUri());
+
+        assertTrue(sparql.executeAskQuery(new AskBuilder().addWhere("?sensor", Oeso.participatesIn, xpNode)));
+        assertTrue(sparql.executeAskQuery(new AskBuilder().addWhere("?factor", Oeso.influencedBy, xpNode)));
+
+        // delete experiment as a list and check that no triple references it anymore
+        sparql.delete(ExperimentModel.class, Collections.singletonList(xp.getUri()));
+
+        assertFalse(sparql.uriExists(xp.getUri()));
+        assertFalse(sparql.executeAskQuery(new AskBuilder().addWhere("?sensor", Oeso.participatesIn, xpNode)));
+        assertFalse(sparql.executeAskQuery(new AskBuilder().addWhere("?factor", Oeso.influencedBy, xpNode)));
+        assertFalse(sparql.executeAskQuery(new AskBuilder().addWhere("?s", "?p", xpNode)));
+    }
+
     @Test
     public void testGetByUri() throws Exception {
 
@@ -15,12 +15,15 @@ import javax.ws.rs.core.Response.Status;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.junit.Test;
 import org.opensilex.core.infrastructure.dal.InfrastructureModel;
 import org.opensilex.integration.test.security.AbstractSecurityIntegrationTest;
 import org.opensilex.sparql.model.SPARQLResourceModel;
+import org.opensilex.sparql.model.SPARQLTreeListModel;
 import org.opensilex.sparql.response.ResourceTreeDTO;
 import org.opensilex.sparql.response.ResourceTreeResponse;
+import org.opensilex.sparql.service.SPARQLQueryHelper;
 
 /**
  * @author Vincent MIGOT
@@ -90,6 +93,54 @@ public class InfrastructureAPITest extends AbstractSecurityIntegrationTest {
         assertEquals(root1Child1, root1Children.get(0).getUri());
     }
 
+    @Test
+    public void testSearchAncestors() throws Exception {
+        InfrastructureCreationDTO rootDTO = getCreationDTO(null);
+        Response creationResponse = getJsonPostResponse(target(createPath), rootDTO);
+        URI root = extractUriFromResponse(creationResponse);
+
+        InfrastructureCreationDTO childDTO = getCreationDTO(root);
+        creationResponse = getJsonPostResponse(target(createPath), childDTO);
+        URI child = extractUriFromResponse(creationResponse);
+
+        InfrastructureCreationDTO leafDTO = getCreationDTO(child);
+        leafDTO.setName("Ancestors leaf");
+        creationResponse = getJsonPostResponse(target(createPath), leafDTO);
+        URI leaf = extractUriFromResponse(creationResponse);
+
+        // Only the leaf matches, its ancestors are resolved to build the tree
+        SPARQLTreeListModel<InfrastructureModel> tree = getSparqlService().searchResourceTree(
+                InfrastructureModel.class,
+                "en",
+                (SelectBuilder select) -> {
+                    select.addFilter(SPARQLQueryHelper.regexFilter(InfrastructureModel.NAME_FIELD, leafDTO.getName()));
+                }
+        );
+
+        List<InfrastructureModel> roots = new ArrayList<>();
+        tree.listRoots(roots::add);
+        assertEquals(1, roots.size());
+        assertEquals(root, roots.get(0).getUri());
+
+        List<InfrastructureModel> children = new ArrayList<>();
+        tree.listChildren(roots.get(0), children::add);
+        assertEquals(1, children.size());
+        assertEquals(child, children.get(0).getUri());
+
+        List<InfrastructureModel> leaves = new ArrayList<>();
+        tree.listChildren(children.get(0), leaves::add);
+        assertEquals(1, leaves.size());
+        assertEquals(leaf, leaves.get(0).getUri());
+        assertTrue(tree.isSelected(leaves.get(0)));
+        assertFalse(tree.isSelected(children.get(0)));
+
+        // Ancestors are resolved with their content
+        InfrastructureModel leafParent = leaves.get(0).getParent();
+        assertEquals(child, leafParent.getUri());
+        assertEquals(rootDTO.getName(), leafParent.getParent().getName());
+        assertEquals(childDTO.getName(), leafParent.getName());
+    }
+
     @Override
     protected List<Class<? extends SPARQLResourceModel>> getModelsToClean() {
         return Collections.singletonList(InfrastructureModel.class);
@@ -5,11 +5,15 @@
  */
 package org.opensilex.front;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import org.opensilex.front.config.FrontRoutingConfig;
 import org.opensilex.front.config.Route;
 import org.opensilex.front.config.MenuItem;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.catalina.Context;
 import org.apache.catalina.valves.rewrite.RewriteValve;
 import org.opensilex.config.ConfigManager;
@@ -17,8 +21,11 @@ import org.opensilex.front.api.FrontConfigDTO;
 import org.opensilex.front.api.MenuItemDTO;
 import org.opensilex.front.api.RouteDTO;
 import org.opensilex.OpenSilexModule;
+import org.opensilex.front.theme.ThemeBuilder;
+import org.opensilex.front.theme.ThemeConfig;
 import org.opensilex.server.extensions.APIExtension;
 import org.opensilex.server.extensions.ServerExtension;
+import org.opensilex.server.exceptions.NotFoundException;
 import org.opensilex.server.scanner.IgnoreJarScanner;
 import org.slf4j.LoggerFactory;
 
@@ -118,4 +125,172 @@ public class FrontModule extends OpenSilexModule implements ServerExtension, API
 
         return this.config;
     }
+
+    /**
+     * Compiled theme CSS by module and theme identifier, built once with its version except in dev mode
+     */
+    private final Map<String, CompiledThemeCss> themeCssCache = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled theme CSS with the version of the theme it has been compiled from
+     */
+    public static class CompiledThemeCss {
+
+        private final String version;
+
+        private final String css;
+
+        private CompiledThemeCss(String version, String css) {
+            this.version = version;
+            this.css = css;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getCss() {
+            return css;
+        }
+    }
+
+    @Override
+    public void startup() throws Exception {
+        // Precompile configured theme to avoid compiling it on first page load
+        FrontConfig frontConfig = getConfig(FrontConfig.class);
+        String[] themeId = frontConfig.theme().split("#");
+        if (themeId.length == 2) {
+            try {
+                getThemeCss(getModuleByProjectId(themeId[0]), themeId[1]);
+            } catch (Exception ex) {
+                LOGGER.warn("Error while precompiling theme: " + frontConfig.theme(), ex);
+            }
+        }
+    }
+
+    /**
+     * Return theme version identifier, changed when module, theme configuration, theme stylesheets or parent theme are modified.
+     *
+     * @param module theme module
+     * @param themeId theme identifier
+     * @param config theme configuration
+     * @return theme version identifier
+     * @throws Exception
+     */
+    private String getThemeCssVersion(OpenSilexModule module, String themeId, ThemeConfig config) throws Exception {
+        long lastModified = module.getLastModified(getModuleFrontThemePath(themeId)).getTime();
+        if (config.stylesheets() != null) {
+            for (String stylesheet : config.stylesheets()) {
+                lastModified = Math.max(lastModified, module.getLastModified(getModuleFrontThemeDirectory(themeId) + stylesheet).getTime());
+            }
+        }
+
+        String version = module.getClass().getName() + "_" + themeId + "_" + lastModified;
+
+        if (config.extend() != null && !config.extend().isEmpty()) {
+            String[] extendedTheme = config.extend().split("#");
+            if (extendedTheme.length == 2) {
+                OpenSilexModule parentThemeModule = getModuleByProjectId(extendedTheme[0]);
+                ThemeConfig parentConfig = getThemeConfigOrNull(parentThemeModule, extendedTheme[1]);
+                if (parentConfig != null) {
+                    version += "|" + getThemeCssVersion(parentThemeModule, extendedTheme[1], parentConfig);
+                }
+            }
+        }
+
+        return version;
+    }
+
+    /**
+     * Return compiled theme CSS with its version.
+     *
+     * Theme configuration is read, its version computed and its CSS compiled together once,
+     * like front configuration they are kept until restart except in dev mode where they are built on each call.
+     *
+     * @param module theme module
+     * @param themeId theme identifier
+     * @return compiled CSS or null if theme doesn't exist
+     * @throws Exception
+     */
+    public CompiledThemeCss getThemeCss(OpenSilexModule module, String themeId) throws Exception {
+        String cacheKey = module.getClass().getName() + "_" + themeId;
+        boolean isDev = getOpenSilex().isDev();
+
+        CompiledThemeCss compiledCss = isDev ? null : themeCssCache.get(cacheKey);
+        if (compiledCss == null) {
+            ThemeConfig config = getThemeConfigOrNull(module, themeId);
+            if (config == null) {
+                return null;
+            }
+
+            long start = System.currentTimeMillis();
+            compiledCss = new CompiledThemeCss(getThemeCssVersion(module, themeId, config), getThemeBuilder(module, themeId, config).buildCss());
+            if (!isDev) {
+                themeCssCache.put(cacheKey, compiledCss);
+                LOGGER.debug("Theme compiled: " + cacheKey + " in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        }
+
+        return compiledCss;
+    }
+
+    public ThemeBuilder getThemeBuilder(OpenSilexModule module, String themeId, ThemeConfig config) throws Exception {
+        ThemeBuilder parentThemeBuilder = null;
+        if (config.extend() != null && !config.extend().isEmpty()) {
+            String[] extendedTheme = config.extend().split("#");
+            if (extendedTheme.length != 2) {
+                LOGGER.error("Invalid extension theme ID: " + config.extend() + " for theme: " + themeId);
+            } else {
+                OpenSilexModule parentThemeModule = getModuleByProjectId(extendedTheme[0]);
+
+                ThemeConfig parentConfig = getThemeConfigOrNull(parentThemeModule, extendedTheme[1]);
+
+                parentThemeBuilder = getThemeBuilder(parentThemeModule, extendedTheme[1], parentConfig);
+            }
+        }
+
+        ThemeBuilder themeBuilder = new ThemeBuilder(module, themeId, config, parentThemeBuilder);
+
+        return themeBuilder;
+    }
+
+    public ThemeConfig getThemeConfigOrNull(OpenSilexModule module, String themeId) throws IOException, URISyntaxException {
+
+        String filePath = getModuleFrontThemePath(themeId);
+
+        if (module.fileExists(filePath)) {
+
+            ConfigManager cfg = new ConfigManager();
+            cfg.addSource(module.getFileInputStream(filePath));
+            return cfg.loadConfig("", ThemeConfig.class);
+
+        }
+
+        return null;
+    }
+
+    public static String getModuleFrontThemeDirectory(String themeId) {
+        return FRONT_EXTENSIONS_DIRECTORY + "theme/" + themeId + "/";
+    }
+
+    public static String getModuleFrontThemePath(String themeId) {
+        return getModuleFrontThemeDirectory(themeId) + themeId + ".yml";
+    }
+
+    /**
+     * Return the first module with the given project identifier.
+     *
+     * @param moduleId module project identifier
+     * @return module
+     * @throws NotFoundException if no module has this identifier
+     */
+    public OpenSilexModule getModuleByProjectId(String moduleId) {
+        List<OpenSilexModule> modules = getOpenSilex().getModulesByProjectId(moduleId);
+
+        if (modules.size() > 0) {
+            return modules.get(0);
+        }
+
+        throw new NotFoundException("Module not found: " + moduleId);
+    }
 }
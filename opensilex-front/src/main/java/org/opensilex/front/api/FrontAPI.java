@@ -12,10 +12,7 @@ import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import java.io.File;
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.nio.file.Paths;
-import java.util.List;
 import javax.inject.Inject;
 import javax.validation.constraints.Pattern;
 import javax.ws.rs.GET;
@@ -31,11 +28,8 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import org.apache.http.HttpStatus;
-import org.opensilex.OpenSilex;
 import org.opensilex.front.FrontModule;
 import org.opensilex.OpenSilexModule;
-import org.opensilex.config.ConfigManager;
-import org.opensilex.front.theme.ThemeBuilder;
 import org.opensilex.front.theme.ThemeConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,9 +45,6 @@ public class FrontAPI {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(FrontAPI.class);
 
-    @Inject
-    private OpenSilex app;
-
     @Inject
     private FrontModule frontModule;
 
@@ -183,7 +174,7 @@ public class FrontAPI {
 
         OpenSilexModule module = getModule(moduleId);
 
-        ThemeConfig config = getThemeConfigOrNull(module, themeId);
+        ThemeConfig config = frontModule.getThemeConfigOrNull(module, themeId);
 
         if (config != null) {
             ThemeConfigDTO themeConfig = ThemeConfigDTO.fromThemeConfig(config);
@@ -203,49 +194,50 @@ public class FrontAPI {
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response getThemeCss(
             @PathParam("moduleId") @ApiParam(value = "Module identifier", example = "opensilex-front") @Pattern(regexp = "([a-zA-Z0-9-]+$)") String moduleId,
-            @PathParam("themeId") @ApiParam(value = "Theme identifier", example = "phis") @Pattern(regexp = "([a-zA-Z0-9-]+$)") String themeId
+            @PathParam("themeId") @ApiParam(value = "Theme identifier", example = "phis") @Pattern(regexp = "([a-zA-Z0-9-]+$)") String themeId,
+            @Context Request request
     ) throws Exception {
 
         OpenSilexModule module = getModule(moduleId);
 
-        ThemeConfig config = getThemeConfigOrNull(module, themeId);
+        FrontModule.CompiledThemeCss compiledCss = frontModule.getThemeCss(module, themeId);
 
-        if (config != null) {
+        if (compiledCss != null) {
 
-            ThemeBuilder themeBuilder = getThemeBuilder(module, themeId, config);
-            String css = themeBuilder.buildCss();
+            EntityTag etag = new EntityTag(Hashing.sha256().hashUnencodedChars(compiledCss.getVersion()).toString());
 
-            // Load file
-            return Response
-                    .ok(css, "text/css")
-                    .header("Content-Disposition", "attachment; filename=\"" + "style.css" + "\"")
-                    .build();
-        }
+            // In dev mode stylesheets may import files unknown from theme version, always rebuild CSS
+            ResponseBuilder builder = null;
+            if (!frontModule.getOpenSilex().isDev()) {
+                builder = request.evaluatePreconditions(etag);
+            }
 
-        return Response
-                .ok("", "text/css")
-                .header("Content-Disposition", "attachment; filename=\"" + "style.css" + "\"")
-                .build();
-    }
+            CacheControl cc = new CacheControl();
+            cc.setPrivate(true);
+            cc.setNoTransform(true);
+            cc.setMaxAge(0);
+            cc.setMustRevalidate(true);
 
-    private ThemeBuilder getThemeBuilder(OpenSilexModule module, String themeId, ThemeConfig config) throws Exception {
-        ThemeBuilder parentThemeBuilder = null;
-        if (config.extend() != null && !config.extend().isEmpty()) {
-            String[] extendedTheme = config.extend().split("#");
-            if (extendedTheme.length != 2) {
-                LOGGER.error("Invalid extension theme ID: " + config.extend() + " for theme: " + themeId);
+            if (builder == null) {
+                return Response
+                        .ok(compiledCss.getCss(), "text/css")
+                        .cacheControl(cc)
+                        .tag(etag)
+                        .header("Content-Disposition", "attachment; filename=\"" + "style.css" + "\"")
+                        .build();
             } else {
-                OpenSilexModule parentThemeModule = getModule(extendedTheme[0]);
-
-                ThemeConfig parentConfig = getThemeConfigOrNull(parentThemeModule, extendedTheme[1]);
-
-                parentThemeBuilder = getThemeBuilder(parentThemeModule, extendedTheme[1], parentConfig);
+                return builder
+                        .status(HttpStatus.SC_NOT_MODIFIED)
+                        .cacheControl(cc)
+                        .tag(etag)
+                        .build();
             }
         }
 
-        ThemeBuilder themeBuilder = new ThemeBuilder(module, themeId, config, parentThemeBuilder);
-
-        return themeBuilder;
+        return Response
+                .ok("", "text/css")
+                .header("Content-Disposition", "attachment; filename=\"" + "style.css" + "\"")
+                .build();
     }
 
     @GET
@@ -295,10 +287,6 @@ public class FrontAPI {
         return moduleId + ".css";
     }
 
-    private static String getModuleFrontThemePath(String themeId) {
-        return FrontModule.FRONT_EXTENSIONS_DIRECTORY + "theme/" + themeId + "/" + themeId + ".yml";
-    }
-
     private static String getModuleFrontThemeResourcePath(String themeId, String filePath) {
         return FrontModule.FRONT_EXTENSIONS_DIRECTORY + "theme/" + themeId + "/" + filePath;
     }
@@ -308,28 +296,7 @@ public class FrontAPI {
     }
 
     private OpenSilexModule getModule(String moduleId) {
-        List<OpenSilexModule> modules = app.getModulesByProjectId(moduleId);
-
-        if (modules.size() > 0) {
-            return modules.get(0);
-        }
-
-        throw new NotFoundException("Module not found: " + moduleId);
-    }
-
-    private ThemeConfig getThemeConfigOrNull(OpenSilexModule module, String themeId) throws IOException, URISyntaxException {
-
-        String filePath = getModuleFrontThemePath(themeId);
-
-        if (module.fileExists(filePath)) {
-
-            ConfigManager cfg = new ConfigManager();
-            cfg.addSource(module.getFileInputStream(filePath));
-            return cfg.loadConfig("", ThemeConfig.class);
-
-        }
-
-        return null;
+        return frontModule.getModuleByProjectId(moduleId);
     }
 
 }
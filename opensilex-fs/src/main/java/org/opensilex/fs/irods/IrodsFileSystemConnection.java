@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -94,6 +95,25 @@ public class IrodsFileSystemConnection extends BaseService implements FileStorag
         return fileContent;
     }
 
+    /**
+     * Get file in a local temporary file and stream its content by chunks,
+     * the temporary file is deleted when the stream is closed.
+     */
+    @Override
+    public InputStream readFileAsStream(Path filePath) throws IOException {
+        Path tmpFile = createLocalTempFile(filePath);
+        return new FileInputStream(tmpFile.toFile()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    Files.deleteIfExists(tmpFile);
+                }
+            }
+        };
+    }
+
     private Path createLocalTempFile(Path filePath) throws IOException {
         Path tmpFile = null;
 
@@ -8,6 +8,7 @@ package org.opensilex.fs.local;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -56,6 +57,16 @@ public class LocalFileSystemConnection extends BaseService implements FileStorag
         return Files.readAllBytes(getAbsolutePath(filePath));
     }
 
+    @Override
+    public InputStream readFileAsStream(Path filePath) throws IOException {
+        return Files.newInputStream(getAbsolutePath(filePath));
+    }
+
+    @Override
+    public Path getLocalFilePath(Path filePath) throws IOException {
+        return getAbsolutePath(filePath).toAbsolutePath();
+    }
+
     @Override
     public void writeFile(Path filePath, String content) throws IOException {
         FileUtils.writeStringToFile(getAbsolutePathFile(filePath), content, StandardCharsets.UTF_8);
@@ -7,8 +7,10 @@ package org.opensilex.fs.service;
 
 import org.opensilex.service.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 
 /**
@@ -19,6 +21,29 @@ public interface FileStorageConnection extends Service {
 
     byte[] readFileAsByteArray(Path filePath) throws IOException;
 
+    /**
+     * Open a stream on file content, stream must be closed by caller.
+     * Default implementation read the whole file in memory, connections should override it to stream content.
+     *
+     * @param filePath file path
+     * @return stream on file content
+     * @throws IOException if file can't be read
+     */
+    default InputStream readFileAsStream(Path filePath) throws IOException {
+        return new ByteArrayInputStream(readFileAsByteArray(filePath));
+    }
+
+    /**
+     * Return the local filesystem path of a file if it is directly accessible, allowing zero-copy transfer.
+     *
+     * @param filePath file path
+     * @return absolute local path or null if file is not stored on local filesystem
+     * @throws IOException if path can't be resolved
+     */
+    default Path getLocalFilePath(Path filePath) throws IOException {
+        return null;
+    }
+
     String readFile(Path filePath) throws IOException;
 
     void writeFile(Path filePath, String content) throws IOException;
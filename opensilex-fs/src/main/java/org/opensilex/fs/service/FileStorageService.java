@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -177,6 +178,17 @@ public class FileStorageService extends BaseService implements Service, FileStor
         return getConnection(filePath).readFileAsByteArray(filePath);
     }
 
+    @Override
+    public InputStream readFileAsStream(Path filePath) throws IOException {
+        LOGGER.debug("READ FILE STREAM: " + filePath.toString());
+        return getConnection(filePath).readFileAsStream(filePath);
+    }
+
+    @Override
+    public Path getLocalFilePath(Path filePath) throws IOException {
+        return getConnection(filePath).getLocalFilePath(filePath);
+    }
+
     @Override
     public boolean exist(Path filePath) throws IOException {
         LOGGER.debug("TEST FILE EXISTENCE: " + filePath.toString());
@@ -209,6 +221,10 @@ public class FileStorageService extends BaseService implements Service, FileStor
         return readFileAsByteArray(getFilePathFromPrefixURI(prefix, fileURI));
     }
 
+    public InputStream readFileAsStream(String prefix, URI fileURI) throws IOException {
+        return readFileAsStream(getFilePathFromPrefixURI(prefix, fileURI));
+    }
+
     public boolean exist(String prefix, URI fileURI) throws IOException {
         return exist(getFilePathFromPrefixURI(prefix, fileURI));
     }
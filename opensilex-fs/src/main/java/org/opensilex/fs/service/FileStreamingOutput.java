@@ -0,0 +1,171 @@
+//******************************************************************************
+//                         FileStreamingOutput.java
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.fs.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <pre>
+ * Streaming output writing a file content (or a byte range of it) directly to the response.
+ *
+ * Files stored on local filesystem are transferred with FileChannel.transferTo,
+ * other file storage connections are streamed by chunks.
+ * In both cases the file is never loaded entirely in memory.
+ * </pre>
+ *
+ * @author vincent
+ */
+public class FileStreamingOutput implements StreamingOutput {
+
+    /**
+     * Range header unit for bytes
+     */
+    private final static String BYTES_UNIT = "bytes";
+
+    /**
+     * Range request header name
+     */
+    public final static String RANGE_HEADER = "Range";
+
+    private final FileStorageConnection fs;
+
+    private final Path filePath;
+
+    private final long offset;
+
+    private final long length;
+
+    /**
+     * Stream the whole file content
+     *
+     * @param fs file storage connection
+     * @param filePath file path
+     */
+    public FileStreamingOutput(FileStorageConnection fs, Path filePath) {
+        this(fs, filePath, 0, -1);
+    }
+
+    /**
+     * Stream a byte range of the file content
+     *
+     * @param fs file storage connection
+     * @param filePath file path
+     * @param offset first byte to stream
+     * @param length number of bytes to stream, -1 to stream until the end of the file
+     */
+    public FileStreamingOutput(FileStorageConnection fs, Path filePath, long offset, long length) {
+        this.fs = fs;
+        this.filePath = filePath;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Path localPath = fs.getLocalFilePath(filePath);
+        if (localPath != null) {
+            try (FileChannel channel = FileChannel.open(localPath, StandardOpenOption.READ)) {
+                WritableByteChannel outputChannel = Channels.newChannel(output);
+                long end = length < 0 ? channel.size() : Math.min(channel.size(), offset + length);
+                long position = offset;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, outputChannel);
+                }
+            }
+        } else {
+            try (InputStream input = fs.readFileAsStream(filePath)) {
+                IOUtils.copyLarge(input, output, offset, length);
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * <pre>
+     * Build a streaming response for a file, handling HTTP Range header if file size is known.
+     * Only single byte ranges are supported, other range requests are answered with the whole file.
+     * </pre>
+     *
+     * @param fs file storage connection
+     * @param filePath file path
+     * @param rangeHeader Range header value or null
+     * @param mediaType response media type
+     * @param fileName file name for Content-Disposition header
+     * @return the streaming response (200, 206 or 416)
+     * @throws IOException if file size can't be read
+     */
+    public static Response buildResponse(FileStorageConnection fs, Path filePath, String rangeHeader, String mediaType, String fileName) throws IOException {
+        Path localPath = fs.getLocalFilePath(filePath);
+        if (localPath == null) {
+            // File size is unknown without reading it, stream the whole content
+            return Response.ok(new FileStreamingOutput(fs, filePath), mediaType)
+                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                    .build();
+        }
+
+        long fileSize = Files.size(localPath);
+        long start = 0;
+        long end = fileSize - 1;
+        boolean partial = false;
+
+        if (rangeHeader != null && rangeHeader.startsWith(BYTES_UNIT + "=") && !rangeHeader.contains(",")) {
+            String[] range = rangeHeader.substring(BYTES_UNIT.length() + 1).trim().split("-", -1);
+            try {
+                if (range.length == 2 && range[0].isEmpty() && !range[1].isEmpty()) {
+                    // Suffix range: last N bytes
+                    start = Math.max(0, fileSize - Long.parseLong(range[1]));
+                    partial = true;
+                } else if (range.length == 2 && !range[0].isEmpty()) {
+                    start = Long.parseLong(range[0]);
+                    if (!range[1].isEmpty()) {
+                        end = Math.min(end, Long.parseLong(range[1]));
+                    }
+                    partial = true;
+                }
+            } catch (NumberFormatException ex) {
+                partial = false;
+                start = 0;
+                end = fileSize - 1;
+            }
+
+            if (partial && (start > end || start >= fileSize)) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", BYTES_UNIT + " */" + fileSize)
+                        .build();
+            }
+        }
+
+        long contentLength = end - start + 1;
+        Response.ResponseBuilder builder;
+        if (partial) {
+            builder = Response.status(Response.Status.PARTIAL_CONTENT)
+                    .entity(new FileStreamingOutput(fs, filePath, start, contentLength))
+                    .type(mediaType)
+                    .header("Content-Range", BYTES_UNIT + " " + start + "-" + end + "/" + fileSize);
+        } else {
+            builder = Response.ok(new FileStreamingOutput(fs, filePath), mediaType);
+        }
+
+        return builder
+                .header("Accept-Ranges", BYTES_UNIT)
+                .header(HttpHeaders.CONTENT_LENGTH, contentLength)
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .build();
+    }
+}
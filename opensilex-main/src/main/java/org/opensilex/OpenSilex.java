@@ -36,6 +36,7 @@ import org.opensilex.service.Service;
 import org.opensilex.service.ServiceManager;
 import org.opensilex.utils.ClassUtils;
 import org.opensilex.utils.LogFilter;
+import org.opensilex.utils.ReflectionsScanIndex;
 import org.reflections.Reflections;
 import org.reflections.scanners.MethodAnnotationsScanner;
 import org.reflections.scanners.SubTypesScanner;
@@ -129,6 +130,11 @@ public final class OpenSilex {
      */
     public final static String NO_CACHE_ARG_KEY = "NO-CACHE";
 
+    /**
+     * Reflections scan index directory name in base directory.
+     */
+    private final static String SCAN_INDEX_DIRECTORY = ".scan-index";
+
     /**
      * Store reference to shutdown hook to avoid duplication on reset.
      */
@@ -650,6 +656,21 @@ public final class OpenSilex {
         return config;
     }
 
+    /**
+     * Read again configuration files and reload all loaded configuration interfaces (modules configurations included).
+     *
+     * <pre>
+     * Configuration values are cached by interfaces after first read, this method must be used
+     * for configuration files changes to be visible at runtime.
+     * Services already created from configuration are not changed.
+     * </pre>
+     *
+     * @throws IOException if configuration files can't be read
+     */
+    public void reloadConfig() throws IOException {
+        configManager.rebuild(setup.getBaseDirectory(), moduleManager.getModules(), setup.getProfileId(), setup.getConfigFile(), systemConfig);
+    }
+
     /**
      * Return application service manager.
      *
@@ -974,7 +995,6 @@ public final class OpenSilex {
 
         urlsToScan.addAll(jarModulesURLs);
 
-        ConfigurationBuilder builder;
         if (!urlsToScan.isEmpty()) {
 
             // Load dependencies through URL Class Loader based on actual class loader
@@ -991,17 +1011,33 @@ public final class OpenSilex {
                 LOGGER.debug("No external module found !");
             }
 
-            builder = ConfigurationBuilder.build("", OpenSilex.getClassLoader())
-                    .setUrls(urlsToScan)
-                    .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner(), new MethodAnnotationsScanner())
-                    .setExpandSuperTypes(false);
+            if (setup.isNoCache()) {
+                ConfigurationBuilder builder = ConfigurationBuilder.build("", OpenSilex.getClassLoader())
+                        .setUrls(urlsToScan)
+                        .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner(), new MethodAnnotationsScanner())
+                        .setExpandSuperTypes(false);
+
+                reflections = new Reflections(builder);
+            } else {
+                // Unchanged module JAR are loaded from scan index instead of being scanned again
+                reflections = ReflectionsScanIndex.build(getScanIndexDirectory(), urlsToScan, OpenSilex.getClassLoader());
+            }
         } else {
-            builder = ConfigurationBuilder.build("", OpenSilex.getClassLoader())
+            ConfigurationBuilder builder = ConfigurationBuilder.build("", OpenSilex.getClassLoader())
                     .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner(), new MethodAnnotationsScanner())
                     .setExpandSuperTypes(false);
+
+            reflections = new Reflections(builder);
         }
+    }
 
-        reflections = new Reflections(builder);
+    /**
+     * Return directory of module JAR reflections scan index files, in base directory so each install keeps its own index.
+     *
+     * @return scan index directory
+     */
+    private Path getScanIndexDirectory() {
+        return setup.getBaseDirectory().resolve(SCAN_INDEX_DIRECTORY);
     }
 
 }
@@ -22,8 +22,11 @@ import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import net.logstash.logback.encoder.org.apache.commons.lang3.StringUtils;
 import org.opensilex.OpenSilex;
 import static org.opensilex.OpenSilex.PROD_PROFILE_ID;
@@ -56,7 +59,7 @@ public class ConfigManager {
     /**
      * Root configuration node.
      */
-    private ObjectNode root = mapper.createObjectNode();
+    private volatile ObjectNode root = mapper.createObjectNode();
 
     /**
      * YAML factory.
@@ -68,6 +71,11 @@ public class ConfigManager {
      */
     private final ObjectMapper yamlMapper = new ObjectMapper(yamlFactory);
 
+    /**
+     * Loaded configuration proxy handlers with their base node JSON pointer, used to reload them.
+     */
+    private final Map<ConfigProxyHandler, String> loadedHandlers = Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Constructor.
      */
@@ -140,10 +148,12 @@ public class ConfigManager {
         if (ClassUtils.isPrimitive(configClass)) {
             config = (T) ConfigProxyHandler.getPrimitive(key, root, null);
         } else {
+            ConfigProxyHandler handler = new ConfigProxyHandler(key, root.deepCopy(), yamlMapper);
+            loadedHandlers.put(handler, "");
             config = (T) Proxy.newProxyInstance(
                     OpenSilex.getClassLoader(),
                     new Class<?>[]{configClass},
-                    new ConfigProxyHandler(key, root.deepCopy(), yamlMapper)
+                    handler
             );
         }
         return config;
@@ -162,10 +172,10 @@ public class ConfigManager {
 
         JsonNode baseNode = root;
         String finalKey = path;
+        String jsonPointer = "";
 
         String[] pathParts = path.split("\\.");
         if (pathParts.length > 0) {
-            String jsonPointer = "";
 
             for (int i = 0; i < pathParts.length - 1; i++) {
                 jsonPointer += "/" + pathParts[i];
@@ -179,15 +189,32 @@ public class ConfigManager {
         if (ClassUtils.isPrimitive(configClass)) {
             config = (T) ConfigProxyHandler.getPrimitive(configClass.getCanonicalName(), baseNode.at("/" + finalKey), null);
         } else {
+            ConfigProxyHandler handler = new ConfigProxyHandler(finalKey, baseNode.deepCopy(), yamlMapper);
+            loadedHandlers.put(handler, jsonPointer);
             config = (T) Proxy.newProxyInstance(
                     OpenSilex.getClassLoader(),
                     new Class<?>[]{configClass},
-                    new ConfigProxyHandler(finalKey, baseNode.deepCopy(), yamlMapper)
+                    handler
             );
         }
         return config;
     }
 
+    /**
+     * Reload all configuration interfaces loaded by this manager from current configuration, clearing their cached values.
+     * Must be called after configuration sources change for loaded interfaces to see new values.
+     */
+    public void reloadConfigs() {
+        List<Map.Entry<ConfigProxyHandler, String>> handlers;
+        synchronized (loadedHandlers) {
+            handlers = new ArrayList<>(loadedHandlers.entrySet());
+        }
+
+        for (Map.Entry<ConfigProxyHandler, String> handler : handlers) {
+            handler.getKey().reload(root.at(handler.getValue()).deepCopy());
+        }
+    }
+
     /**
      * Print current configuration into output stream.
      *
@@ -310,6 +337,35 @@ public class ConfigManager {
 
     }
 
+    /**
+     * Build again configuration for all modules from scratch and reload all configuration interfaces loaded by this manager.
+     *
+     * <pre>
+     * Configuration is built in a new root, then replaces the current one, so keys removed from
+     * configuration files are dropped and lists are replaced instead of being merged into loaded ones.
+     * Current configuration is kept if configuration files can't be read.
+     * </pre>
+     *
+     * @param baseDirectory Base system directory
+     * @param modules List of module
+     * @param id Configuration profile identifier
+     * @param baseConfigFile Initial config file
+     * @param systemConfig System configuration
+     * @throws IOException
+     */
+    public void rebuild(
+            Path baseDirectory,
+            Iterable<OpenSilexModule> modules,
+            String id,
+            File baseConfigFile,
+            OpenSilexConfig systemConfig
+    ) throws IOException {
+        ConfigManager freshManager = new ConfigManager();
+        freshManager.build(baseDirectory, modules, id, baseConfigFile, systemConfig);
+        root = freshManager.root;
+        reloadConfigs();
+    }
+
     /**
      * Yaml configuration separator for getExpandedYAMLConfig method.
      */
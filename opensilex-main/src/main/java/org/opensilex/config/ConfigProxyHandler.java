@@ -15,11 +15,14 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.opensilex.OpenSilex;
 import org.opensilex.service.Service;
 import org.opensilex.service.ServiceConfig;
@@ -29,8 +32,14 @@ import org.opensilex.utils.ClassUtils;
 import org.slf4j.LoggerFactory;
 
 /**
+ * <pre>
  * Proxy class to transform configuration interfaces into real objects, reading directly from loaded configuration.
  *
+ * Each method value is resolved once and cached (lists and maps are returned unmodifiable),
+ * except services which are new instances on each call.
+ * Cache is cleared by {@link #reload(JsonNode)}.
+ * </pre>
+ *
  * @author Vincent Migot
  */
 public class ConfigProxyHandler implements InvocationHandler {
@@ -46,9 +55,31 @@ public class ConfigProxyHandler implements InvocationHandler {
     private final String baseKey;
 
     /**
-     * Global configuration JSON node.
+     * Global configuration JSON node with its cached values, replaced as a whole on reload.
+     */
+    private volatile ConfigSnapshot snapshot;
+
+    /**
+     * Configuration JSON node and values resolved from it by interface method.
+     *
+     * A value resolved from a replaced node can only be cached in the replaced snapshot,
+     * so it is never served after a reload.
+     */
+    private static class ConfigSnapshot {
+
+        private final JsonNode rootNode;
+
+        private final Map<Method, Object> values = new ConcurrentHashMap<>();
+
+        private ConfigSnapshot(JsonNode rootNode) {
+            this.rootNode = rootNode;
+        }
+    }
+
+    /**
+     * Cached value for null results as ConcurrentHashMap doesn't support null values.
      */
-    private final JsonNode rootNode;
+    private final static Object NULL_VALUE = new Object();
 
     /**
      * YAML object mapper.
@@ -68,15 +99,67 @@ public class ConfigProxyHandler implements InvocationHandler {
         } else {
             this.baseKey = "/" + key + "/";
         }
-        this.rootNode = rootNode;
+        this.snapshot = new ConfigSnapshot(rootNode);
         this.yamlMapper = yamlMapper;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws InvalidConfigException {
+        ConfigSnapshot currentSnapshot = snapshot;
+        Object value = currentSnapshot.values.get(method);
+        if (value != null) {
+            return value == NULL_VALUE ? null : value;
+        }
+
         String key = baseKey + method.getName();
+        Type type = method.getGenericReturnType();
+        value = nodeToObject(type, key, currentSnapshot.rootNode, method);
+
+        if (isCacheable(type)) {
+            if (value instanceof List) {
+                value = Collections.unmodifiableList((List<?>) value);
+            } else if (value instanceof Map) {
+                value = Collections.unmodifiableMap((Map<?, ?>) value);
+            }
+            currentSnapshot.values.put(method, value == null ? NULL_VALUE : value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Replace configuration node and clear cached values.
+     *
+     * Nested configuration interfaces previously returned by this proxy keep their old values.
+     *
+     * @param rootNode new global configuration JSON node
+     */
+    public void reload(JsonNode rootNode) {
+        this.snapshot = new ConfigSnapshot(rootNode);
+    }
+
+    /**
+     * Determine if a value of the given type can be cached, services are not because a new instance is expected on each call.
+     *
+     * @param type value type
+     * @return true if value can be cached
+     */
+    private static boolean isCacheable(Type type) {
+        if (type instanceof Class) {
+            Class<?> typeClass = (Class<?>) type;
+            return !Service.class.isAssignableFrom(typeClass) && !ServiceFactory.class.isAssignableFrom(typeClass);
+        } else if (type instanceof ParameterizedType) {
+            for (Type typeArgument : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (!isCacheable(typeArgument)) {
+                    return false;
+                }
+            }
+            return isCacheable(((ParameterizedType) type).getRawType());
+        } else if (type instanceof WildcardType) {
+            return true;
+        }
 
-        return nodeToObject(method.getGenericReturnType(), key, rootNode, method);
+        return false;
     }
 
     /**
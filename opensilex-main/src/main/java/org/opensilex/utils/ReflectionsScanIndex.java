@@ -0,0 +1,239 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.MethodAnnotationsScanner;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * Persisted Reflections scan index.
+ *
+ * Each module JAR is scanned separately and its scan result is saved in the index directory,
+ * in a file named by the JAR SHA-256 checksum.
+ * On next startup unchanged JARs are loaded from their index file and only new or modified ones are scanned.
+ * Directories (development mode classes) are always scanned.
+ * </pre>
+ *
+ * @author vincent
+ */
+public final class ReflectionsScanIndex {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ReflectionsScanIndex.class);
+
+    /**
+     * Index file format version, must be incremented if scanners or file format change
+     */
+    private final static String INDEX_FORMAT_VERSION = "1";
+
+    private final static String INDEX_FILE_EXTENSION = ".idx";
+
+    private ReflectionsScanIndex() {
+    }
+
+    /**
+     * Build a Reflections instance for the given URLs, using index files stored in the given directory when possible.
+     *
+     * @param indexDirectory directory of index files
+     * @param urlsToScan URLs to scan
+     * @param classLoader class loader used by Reflections to load scanned classes
+     * @return Reflections instance with all URLs scan results
+     */
+    public static Reflections build(Path indexDirectory, Set<URL> urlsToScan, ClassLoader classLoader) {
+        long start = System.currentTimeMillis();
+
+        boolean indexAvailable = true;
+        try {
+            Files.createDirectories(indexDirectory);
+        } catch (IOException ex) {
+            LOGGER.warn("Reflections scan index directory can't be created, all modules will be scanned: " + indexDirectory, ex);
+            indexAvailable = false;
+        }
+
+        Set<URL> urlsWithoutIndex = new HashSet<>();
+        Map<URL, Path> indexFilesToLoad = new HashMap<>();
+        List<Reflections> scannedReflections = new ArrayList<>();
+
+        for (URL url : urlsToScan) {
+            File jarFile = getJarFile(url);
+            if (!indexAvailable || jarFile == null) {
+                urlsWithoutIndex.add(url);
+                continue;
+            }
+
+            try {
+                Path indexFile = indexDirectory.resolve(getChecksum(jarFile) + "-" + INDEX_FORMAT_VERSION + INDEX_FILE_EXTENSION);
+                if (Files.isRegularFile(indexFile)) {
+                    indexFilesToLoad.put(url, indexFile);
+                } else {
+                    LOGGER.debug("Scan module JAR and save its index: " + jarFile.getAbsolutePath());
+                    Reflections jarReflections = new Reflections(getConfigurationBuilder(classLoader).setUrls(url));
+                    write(jarReflections, indexFile);
+                    scannedReflections.add(jarReflections);
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Reflections scan index can't be used for: " + jarFile.getAbsolutePath(), ex);
+                urlsWithoutIndex.add(url);
+            }
+        }
+
+        ConfigurationBuilder builder = getConfigurationBuilder(classLoader);
+        if (!urlsWithoutIndex.isEmpty()) {
+            builder.setUrls(urlsWithoutIndex);
+        }
+        Reflections reflections = new Reflections(builder);
+
+        for (Reflections jarReflections : scannedReflections) {
+            reflections.merge(jarReflections);
+        }
+
+        int loadedCount = 0;
+        for (Map.Entry<URL, Path> indexFileToLoad : indexFilesToLoad.entrySet()) {
+            try {
+                read(indexFileToLoad.getValue(), reflections.getStore());
+                loadedCount++;
+            } catch (IOException ex) {
+                // Entries already read are harmless duplicates of the scan result
+                LOGGER.warn("Invalid reflections scan index file, module will be scanned: " + indexFileToLoad.getValue(), ex);
+                reflections.merge(new Reflections(getConfigurationBuilder(classLoader).setUrls(indexFileToLoad.getKey())));
+            }
+        }
+
+        LOGGER.debug("Reflections initialized in " + (System.currentTimeMillis() - start) + " ms: "
+                + loadedCount + " JAR loaded from index, "
+                + scannedReflections.size() + " JAR scanned and indexed, "
+                + urlsWithoutIndex.size() + " URL scanned without index");
+
+        return reflections;
+    }
+
+    private static ConfigurationBuilder getConfigurationBuilder(ClassLoader classLoader) {
+        return new ConfigurationBuilder()
+                .addClassLoader(classLoader)
+                .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner(), new MethodAnnotationsScanner())
+                .setExpandSuperTypes(false);
+    }
+
+    private static File getJarFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+
+        File file;
+        try {
+            file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            file = new File(url.getPath());
+        }
+
+        if (file.isFile()) {
+            return file;
+        }
+
+        return null;
+    }
+
+    private static String getChecksum(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : digest.digest()) {
+            checksum.append(String.format("%02x", b));
+        }
+        return checksum.toString();
+    }
+
+    /**
+     * Write store content as: index count, then for each index its name, key count
+     * and for each key its name, value count and values.
+     */
+    static void write(Reflections reflections, Path indexFile) throws IOException {
+        Store store = reflections.getStore();
+        Path tmpFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), null);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                Set<String> indexes = store.keySet();
+                output.writeInt(indexes.size());
+                for (String index : indexes) {
+                    output.writeUTF(index);
+                    Set<String> keys = store.keys(index);
+                    output.writeInt(keys.size());
+                    for (String key : keys) {
+                        output.writeUTF(key);
+                        Set<String> values = store.get(index, key);
+                        output.writeInt(values.size());
+                        for (String value : values) {
+                            output.writeUTF(value);
+                        }
+                    }
+                }
+            }
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    static void read(Path indexFile, Store store) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            int indexCount = input.readInt();
+            for (int i = 0; i < indexCount; i++) {
+                String index = input.readUTF();
+                int keyCount = input.readInt();
+                for (int j = 0; j < keyCount; j++) {
+                    String key = input.readUTF();
+                    int valueCount = input.readInt();
+                    for (int k = 0; k < valueCount; k++) {
+                        store.put(index, key, input.readUTF());
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // Corrupted index file, it will be rebuilt on next startup
+            Files.deleteIfExists(indexFile);
+            throw ex;
+        }
+    }
+}
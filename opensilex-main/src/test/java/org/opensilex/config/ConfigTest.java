@@ -9,6 +9,11 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -22,6 +27,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.opensilex.OpenSilex;
+import org.opensilex.OpenSilexConfig;
 import org.opensilex.unit.test.AbstractUnitTest;
 
 /**
@@ -642,4 +648,117 @@ public class ConfigTest extends AbstractUnitTest {
 
         assertTrue("Default class value must be Object", classDefault.equals(Object.class));
     }
+
+    @Test
+    public void testCachedValuesAndReload() throws Exception {
+        ConfigManager provider = new ConfigManager();
+        provider.addLines(
+                "test:",
+                "  int_: 1",
+                "  listStr: ",
+                "    - az"
+        );
+
+        TestConfig cfg = provider.loadConfig("test", TestConfig.class);
+
+        assertEquals("Check loaded value", 1, cfg.int_());
+        assertTrue("List value must be cached", cfg.listStr() == cfg.listStr());
+        assertTrue("Interface value must be cached", cfg.inception() == cfg.inception());
+
+        try {
+            cfg.listStr().add("er");
+            fail("Cached list must be unmodifiable");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+
+        provider.addLines("test:", "  int_: 2");
+        assertEquals("Check cached value before reload", 1, cfg.int_());
+
+        provider.reloadConfigs();
+        assertEquals("Check value after reload", 2, cfg.int_());
+        assertArrayEquals("Check list after reload", new String[]{"az"}, cfg.listStr().toArray());
+    }
+
+    @Test
+    public void testRebuildReplacesConfiguration() throws Exception {
+        Path baseDirectory = Files.createTempDirectory("opensilex-config-test");
+        Path configFile = baseDirectory.resolve("opensilex.yml");
+        try {
+            ConfigManager provider = new ConfigManager();
+            OpenSilexConfig systemConfig = provider.buildSystemConfig(null);
+
+            Files.write(configFile, Arrays.asList(
+                    "test:",
+                    "  int_Class: 1",
+                    "  listStr: ",
+                    "    - az",
+                    "    - er"
+            ), StandardCharsets.UTF_8);
+            provider.build(baseDirectory, Collections.emptyList(), OpenSilex.PROD_PROFILE_ID, null, systemConfig);
+
+            TestConfig cfg = provider.loadConfig("test", TestConfig.class);
+            assertEquals("Check loaded value", Integer.valueOf(1), cfg.int_Class());
+            assertArrayEquals("Check loaded list", new String[]{"az", "er"}, cfg.listStr().toArray());
+
+            Files.write(configFile, Arrays.asList(
+                    "test:",
+                    "  listStr: ",
+                    "    - ty"
+            ), StandardCharsets.UTF_8);
+            provider.rebuild(baseDirectory, Collections.emptyList(), OpenSilex.PROD_PROFILE_ID, null, systemConfig);
+
+            assertNull("Removed key must be dropped after rebuild", cfg.int_Class());
+            assertArrayEquals("List must be replaced after rebuild", new String[]{"ty"}, cfg.listStr().toArray());
+        } finally {
+            Files.deleteIfExists(configFile);
+            Files.deleteIfExists(baseDirectory);
+        }
+    }
+
+    /**
+     * Micro benchmark comparing getter cost with cached values and with values resolved on each call.
+     */
+    @Test
+    public void testGetterCost() throws Exception {
+        ConfigManager provider = new ConfigManager();
+        provider.addLines(
+                "test:",
+                "  int_: 1",
+                "  mapStr: ",
+                "    za: re",
+                "    yt: iu"
+        );
+
+        TestConfig cfg = provider.loadConfig("test", TestConfig.class);
+        int iterations = 100000;
+
+        // Warm up
+        for (int i = 0; i < iterations; i++) {
+            cfg.int_();
+            cfg.mapStr();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            cfg.int_();
+            cfg.mapStr();
+        }
+        long cachedDuration = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            provider.reloadConfigs();
+            cfg.int_();
+            cfg.mapStr();
+        }
+        long resolvedDuration = System.nanoTime() - start;
+
+        LOGGER.info("Config getters cost for " + iterations + " iterations: "
+                + (cachedDuration / 1000000) + " ms cached, "
+                + (resolvedDuration / 1000000) + " ms resolved on each call (with reload)");
+
+        assertEquals("Check value after benchmark", 1, cfg.int_());
+        assertTrue("Map value must be cached after benchmark", cfg.mapStr() == cfg.mapStr());
+    }
 }
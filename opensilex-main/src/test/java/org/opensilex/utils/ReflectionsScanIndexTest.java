@@ -0,0 +1,188 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.util.ConfigurationBuilder;
+
+/**
+ * Tests for the persisted reflections scan index
+ *
+ * @author vincent
+ */
+public class ReflectionsScanIndexTest {
+
+    public static class IndexedParent {
+    }
+
+    public static class IndexedChild extends IndexedParent {
+    }
+
+    public static class OtherIndexedChild extends IndexedParent {
+    }
+
+    private Path directory;
+
+    private Path indexDirectory;
+
+    private Path jarFile;
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("opensilex_scan_index_test");
+        indexDirectory = directory.resolve("index");
+        jarFile = directory.resolve("module.jar");
+    }
+
+    @After
+    public void deleteDirectory() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void writeJar(Class<?>... classes) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarFile))) {
+            for (Class<?> c : classes) {
+                String entryName = c.getName().replace('.', '/') + ".class";
+                jar.putNextEntry(new JarEntry(entryName));
+                try (InputStream classContent = getClass().getClassLoader().getResourceAsStream(entryName)) {
+                    copy(classContent, jar);
+                }
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+    }
+
+    private Reflections build() throws Exception {
+        Set<URL> urls = Collections.singleton(jarFile.toUri().toURL());
+        return ReflectionsScanIndex.build(indexDirectory, urls, getClass().getClassLoader());
+    }
+
+    private List<Path> getIndexFiles() throws IOException {
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static Set<String> getSubTypes(Reflections reflections) {
+        return reflections.getSubTypesOf(IndexedParent.class).stream()
+                .map(Class::getName)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        writeJar(IndexedChild.class, OtherIndexedChild.class);
+        Reflections scanned = new Reflections(new ConfigurationBuilder()
+                .addClassLoader(getClass().getClassLoader())
+                .setUrls(jarFile.toUri().toURL()));
+
+        Files.createDirectories(indexDirectory);
+        Path indexFile = indexDirectory.resolve("module.idx");
+        ReflectionsScanIndex.write(scanned, indexFile);
+
+        Reflections loaded = new Reflections(new ConfigurationBuilder());
+        ReflectionsScanIndex.read(indexFile, loaded.getStore());
+
+        Store scannedStore = scanned.getStore();
+        Store loadedStore = loaded.getStore();
+        assertEquals(scannedStore.keySet(), loadedStore.keySet());
+        for (String index : scannedStore.keySet()) {
+            assertEquals(scannedStore.keys(index), loadedStore.keys(index));
+            for (String key : scannedStore.keys(index)) {
+                assertEquals(scannedStore.get(index, key), loadedStore.get(index, key));
+            }
+        }
+        assertEquals(getSubTypes(scanned), getSubTypes(loaded));
+        assertEquals(2, getSubTypes(loaded).size());
+    }
+
+    @Test
+    public void testBuildFromIndex() throws Exception {
+        writeJar(IndexedChild.class);
+
+        Reflections first = build();
+        List<Path> indexFiles = getIndexFiles();
+        assertEquals("Index file must be created on first scan", 1, indexFiles.size());
+        Path indexFile = indexFiles.get(0);
+        long indexModified = Files.getLastModifiedTime(indexFile).toMillis();
+
+        Reflections second = build();
+        assertEquals("Unchanged JAR must reuse its index file", indexFiles, getIndexFiles());
+        assertEquals(indexModified, Files.getLastModifiedTime(indexFile).toMillis());
+        assertEquals(getSubTypes(first), getSubTypes(second));
+        assertEquals(Collections.singleton(IndexedChild.class.getName()), getSubTypes(second));
+    }
+
+    @Test
+    public void testModifiedJarInvalidatesIndex() throws Exception {
+        writeJar(IndexedChild.class);
+        build();
+        Path oldIndexFile = getIndexFiles().get(0);
+
+        writeJar(IndexedChild.class, OtherIndexedChild.class);
+        Reflections reflections = build();
+
+        List<Path> indexFiles = getIndexFiles();
+        assertEquals("Modified JAR must get a new index file", 2, indexFiles.size());
+        assertTrue(indexFiles.contains(oldIndexFile));
+        assertEquals(2, getSubTypes(reflections).size());
+    }
+
+    @Test
+    public void testCorruptedIndex() throws Exception {
+        writeJar(IndexedChild.class);
+        build();
+        Path indexFile = getIndexFiles().get(0);
+        Files.write(indexFile, new byte[]{1});
+
+        try {
+            ReflectionsScanIndex.read(indexFile, new Reflections(new ConfigurationBuilder()).getStore());
+            fail("Corrupted index file must not be read");
+        } catch (IOException ex) {
+            // Expected
+        }
+        assertFalse("Corrupted index file must be deleted", Files.exists(indexFile));
+
+        Files.write(indexFile, new byte[]{1});
+        Reflections reflections = build();
+        assertEquals("Module must be scanned when its index is corrupted", Collections.singleton(IndexedChild.class.getName()), getSubTypes(reflections));
+        assertFalse(Files.exists(indexFile));
+    }
+}
@@ -9,6 +9,8 @@ package opensilex.service;
 
 import java.util.List;
 import java.util.Set;
+import opensilex.service.ontology.Oa;
+import opensilex.service.ontology.Oeso;
 import org.apache.jena.riot.Lang;
 
 import org.opensilex.OpenSilex;
@@ -20,6 +22,7 @@ import org.opensilex.sparql.SPARQLConfig;
 import org.opensilex.sparql.SPARQLModule;
 import org.opensilex.sparql.extensions.OntologyFileDefinition;
 import org.opensilex.sparql.extensions.SPARQLExtension;
+import org.opensilex.sparql.service.SPARQLTextIndex;
 
 /**
  * Phis opensilex module implementation
@@ -48,6 +51,11 @@ public class PhisWsModule extends OpenSilexModule implements APIExtension, SPARQ
                 app.loadConfigPath("file-system.storageBasePath", String.class),
                 app.loadConfigPath("server.publicURI", String.class)
         );
+
+        SPARQLTextIndex.addIndexedProperty(Oeso.RELATION_HAS_BRAND.toString());
+        SPARQLTextIndex.addIndexedProperty(Oeso.RELATION_HAS_SERIAL_NUMBER.toString());
+        SPARQLTextIndex.addIndexedProperty(Oeso.RELATION_HAS_MODEL.toString());
+        SPARQLTextIndex.addIndexedProperty(Oa.RELATION_BODY_VALUE.toString());
     }
 
     @Override
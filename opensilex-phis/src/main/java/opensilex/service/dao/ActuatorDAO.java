@@ -446,6 +446,7 @@ public class ActuatorDAO extends Rdf4jDAO<Actuator> {
         } else {
             query.appendTriplet("?" + URI, Rdfs.RELATION_LABEL.toString(), "?" + LABEL, null);
             query.appendAndFilter("REGEX ( str(?" + LABEL + "),\".*" + label + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Rdfs.RELATION_LABEL.toString(), label);
         }
         
         //Brand filter
@@ -457,6 +458,7 @@ public class ActuatorDAO extends Rdf4jDAO<Actuator> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_BRAND.toString(), "?" + BRAND, null);
             query.appendAndFilter("REGEX ( str(?" + BRAND + "),\".*" + brand + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_BRAND.toString(), brand);
         }
         
         //Serial number filter
@@ -468,6 +470,7 @@ public class ActuatorDAO extends Rdf4jDAO<Actuator> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_SERIAL_NUMBER.toString(), "?" + SERIAL_NUMBER, null);
             query.appendAndFilter("REGEX ( str(?" + SERIAL_NUMBER + "),\".*" + serialNumber + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_SERIAL_NUMBER.toString(), serialNumber);
         }
         
         //Model filter
@@ -479,6 +482,7 @@ public class ActuatorDAO extends Rdf4jDAO<Actuator> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_MODEL.toString(), "?" + MODEL, null);
             query.appendAndFilter("REGEX ( str(?" + MODEL + "),\".*" + model + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_MODEL.toString(), model);
         }
         
         //In service date filter
@@ -175,6 +175,9 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
         query.appendTriplet(annotationUri, Oa.RELATION_BODY_VALUE.toString(), "?" + BODY_VALUE, null);
         if (bodyValue != null) {
             query.appendFilter("regex(STR(?" + BODY_VALUE + "), '" + bodyValue + "', 'i')");
+            if (uri == null) {
+                appendTextSearchValues(sparql, query, annotationUri, Oa.RELATION_BODY_VALUE.toString(), bodyValue);
+            }
         }
         query.appendLimit(this.getPageSize());
         query.appendOffset(this.getPage() * this.getPageSize()); 
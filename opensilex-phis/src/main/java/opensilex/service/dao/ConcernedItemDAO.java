@@ -79,6 +79,7 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
      *    ?uri  <http://www.opensilex.org/vocabulary/oeev#concerns>  ?concernedItemUri  . 
      *    ?concernedItemUri  <http://www.w3.org/2000/01/rdf-schema#label>  ?concernedItemLabel  . 
      *  }
+     * @param sparql
      * @param query
      * @param objectUriSelectNameSparql URI SparQL variable of the concerning object
      * @param searchConcernedItemLabel
@@ -87,7 +88,7 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
      * relation has to be 
      * @param searchConcernedItemUri
      */
-    public static void prepareQueryWithConcernedItemFilters(SPARQLQueryBuilder query, String objectUriSelectNameSparql, String concernsRelationUri, String searchConcernedItemUri, String searchConcernedItemLabel) {
+    public static void prepareQueryWithConcernedItemFilters(SPARQLService sparql, SPARQLQueryBuilder query, String objectUriSelectNameSparql, String concernsRelationUri, String searchConcernedItemUri, String searchConcernedItemLabel) {
         if (objectUriSelectNameSparql != null) {
             query.appendTriplet(
                     objectUriSelectNameSparql, 
@@ -105,6 +106,12 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
 
             query.appendAndFilter("regex(" + CONCERNED_ITEM_LABEL_SELECT_NAME_SPARQL + ", " 
                     + "\"" + searchConcernedItemLabel + "\", \"i\")");
+            appendTextSearchValues(
+                    sparql, 
+                    query, 
+                    CONCERNED_ITEM_URI_SELECT_NAME_SPARQL, 
+                    Rdfs.RELATION_LABEL.toString(), 
+                    searchConcernedItemLabel);
         }
 
         if (searchConcernedItemUri != null) {
@@ -145,7 +152,7 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
             uriSelectNameSparql = "<" + objectUri + ">";
         }
         
-        prepareQueryWithConcernedItemFilters(query, uriSelectNameSparql, concernsRelationUri, searchUri, searchLabel);
+        prepareQueryWithConcernedItemFilters(sparql, query, uriSelectNameSparql, concernsRelationUri, searchUri, searchLabel);
         
         query.appendSelect(CONCERNED_ITEM_URI_SELECT_NAME_SPARQL);
         query.appendGroupBy(CONCERNED_ITEM_URI_SELECT_NAME_SPARQL);
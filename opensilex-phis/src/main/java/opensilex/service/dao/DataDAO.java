@@ -21,11 +21,15 @@ import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Sorts;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
@@ -37,7 +41,6 @@ import org.slf4j.LoggerFactory;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.dao.manager.MongoDAO;
 import opensilex.service.documentation.StatusCodeMsg;
-import opensilex.service.ontology.Oeso;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.view.brapi.Status;
@@ -89,15 +92,25 @@ public class DataDAO extends MongoDAO<Data> {
         VariableDAO variableDAO = new VariableDAO(sparql);
         ProvenanceDAO provenanceDAO = new ProvenanceDAO(sparql);
 
+        // Check distinct variables and provenances once for the whole batch
+        Set<String> variableUris = new HashSet<>();
+        Set<String> provenanceUris = new HashSet<>();
+        for (Data data : dataList) {
+            variableUris.add(data.getVariableUri());
+            provenanceUris.add(data.getProvenanceUri());
+        }
+        Set<String> existingVariables = variableDAO.getExistingVariables(variableUris);
+        Set<String> existingProvenances = provenanceDAO.getExistingProvenanceUris(provenanceUris);
+
         for (Data data : dataList) {
             // 1. Check if the variableUri exist and is a variable
-            if (!variableDAO.existAndIsVariable(data.getVariableUri())) {
+            if (!existingVariables.contains(data.getVariableUri())) {
                 dataOk = false;
                 checkStatus.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR,
                         "Unknown variable : " + data.getVariableUri()));
             } 
             // 2. Check if the provenance uri exist and is a provenance
-            if (!provenanceDAO.existProvenanceUri(data.getProvenanceUri())) {
+            if (!existingProvenances.contains(data.getProvenanceUri())) {
                 dataOk = false;
                 checkStatus.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, 
                     "Unknown provenance : " + data.getProvenanceUri()));
@@ -109,8 +122,30 @@ public class DataDAO extends MongoDAO<Data> {
         return checkResult;
     }
 
+    /**
+     * Generates the URIs of the given data list in one call.
+     * Generated URIs are collision free, the unique index on data collections is the only safety net.
+     * @param dataList
+     */
+    private void generateDataUris(List<Data> dataList) {
+        List<String> keys = new ArrayList<>(dataList.size());
+        for (Data data : dataList) {
+            keys.add(data.getVariableUri() + data.getObjectUri() + data.getProvenanceUri() + data.getDate());
+        }
+        
+        try {
+            List<String> uris = UriGenerator.generateDataUris(keys);
+            for (int i = 0; i < dataList.size(); i++) {
+                dataList.get(i).setUri(uris.get(i));
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while generating uri, should never append", e);
+        }
+    }
+
     /**
      * Generates the query to insert a new data in the MongoDB database.
+     * The data URI must have been generated before.
      * @param data
      * @return the document to insert, representing the given data
      * @throws ParseException
@@ -118,29 +153,16 @@ public class DataDAO extends MongoDAO<Data> {
     private Document prepareInsertDataDocument(Data data) {
         Document document = new Document();
 
-        String key = data.getVariableUri() + data.getObjectUri() + data.getProvenanceUri() + data.getDate();
-        try {
-            String uri = UriGenerator.generateNewInstanceUri(sparql, Oeso.CONCEPT_DATA.toString(), null, key);
+        document.append(DB_FIELD_URI, data.getUri());
+        document.append(DB_FIELD_OBJECT, data.getObjectUri());
+        document.append(DB_FIELD_VARIABLE, data.getVariableUri());
+        document.append(DB_FIELD_DATE, data.getDate());
+        document.append(DB_FIELD_PROVENANCE, data.getProvenanceUri());
+        document.append(DB_FIELD_VALUE, data.getValue());
+        document.append(DB_FIELD_METADATA, data.getMetadata());
+
+        LOGGER.debug(document.toJson());
 
-            while (uriExists(data.getVariableUri(), uri)) {
-                uri = UriGenerator.generateNewInstanceUri(sparql, Oeso.CONCEPT_DATA.toString(), null, key);
-            }
-            
-            data.setUri(uri);
-            
-            document.append(DB_FIELD_URI, data.getUri());
-            document.append(DB_FIELD_OBJECT, data.getObjectUri());
-            document.append(DB_FIELD_VARIABLE, data.getVariableUri());
-            document.append(DB_FIELD_DATE, data.getDate());
-            document.append(DB_FIELD_PROVENANCE, data.getProvenanceUri());
-            document.append(DB_FIELD_VALUE, data.getValue());
-            document.append(DB_FIELD_METADATA, data.getMetadata());
-            
-            LOGGER.debug(document.toJson());
-        } catch (Exception e) {
-            LOGGER.error("Exception while generating uri, should never append", e);
-        }
-        
         return document;
     }
 
@@ -178,6 +200,7 @@ public class DataDAO extends MongoDAO<Data> {
         HashMap<String, List<Document>> dataListToInsertByVariable = new HashMap<>();
 
         //1. Prepare all the documents to insert (we will do one insert by variable)
+        generateDataUris(dataList);
         for (Data data : dataList) {
             Document createData = prepareInsertDataDocument(data);
 
@@ -203,9 +226,12 @@ public class DataDAO extends MongoDAO<Data> {
                 DB_FIELD_PROVENANCE
         );
         IndexOptions indexOptions = new IndexOptions().unique(true);
+        // Index on date and _id used for sort and keyset pagination
+        Bson sortIndexFields = Indexes.ascending(DB_FIELD_DATE, DB_FIELD_ID);
         dataListToInsertByVariable.keySet().forEach((variableUri) -> {
-            database.getCollection(getCollectionFromVariable(variableUri))
-                    .createIndex(indexFields, indexOptions);
+            MongoCollection<Document> dataVariableCollection = database.getCollection(getCollectionFromVariable(variableUri));
+            dataVariableCollection.createIndex(indexFields, indexOptions);
+            dataVariableCollection.createIndex(sortIndexFields);
         });
 
         //3. Insert all the data
@@ -288,31 +314,23 @@ public class DataDAO extends MongoDAO<Data> {
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
         
-        // Get paginated documents
-        FindIterable<Document> dataMongo = dataVariableCollection.find(query);
-        
         //SILEX:info
         //Measures are always sort by date, either ascending or descending depending on dateSortAsc parameter
         //If dateSortAsc=true, sort by date ascending
         //If dateSortAsc=false, sort by date descending
+        //Documents with the same date are sorted by _id to allow keyset pagination
         //\SILEX:info
-        if (dateSortAsc) {
-            dataMongo = dataMongo.sort(Sorts.ascending(DB_FIELD_DATE));
-        } else {
-            dataMongo = dataMongo.sort(Sorts.descending(DB_FIELD_DATE));
-        }
-        
-        // Define pagination for the request
-        if (page != null && pageSize != null) {
-            dataMongo = dataMongo.skip(page * pageSize).limit(pageSize);
-        }
+        // Get paginated documents
+        FindIterable<Document> dataMongo = findPage(dataVariableCollection, query, page, pageSize, DB_FIELD_DATE, DB_FIELD_ID, dateSortAsc);
 
         ArrayList<Data> dataList = new ArrayList<>();
+        Document lastDocument = null;
         
         // For each document, create a data Instance and add it to the result list
         try (MongoCursor<Document> measuresCursor = dataMongo.iterator()) {
             while (measuresCursor.hasNext()) {
                 Document dataDocument = measuresCursor.next();
+                lastDocument = dataDocument;
                 
                 // Create and define the data object
                 Data data = new Data();
@@ -329,6 +347,12 @@ public class DataDAO extends MongoDAO<Data> {
             }
         }
         
+        if (lastDocument != null) {
+            updateNextPageToken(pageSize, dataList.size(), lastDocument.getDate(DB_FIELD_DATE), lastDocument.getObjectId(DB_FIELD_ID));
+        } else {
+            updateNextPageToken(pageSize, 0, null, null);
+        }
+        
         return dataList;
     }
 
@@ -532,31 +556,23 @@ public class DataDAO extends MongoDAO<Data> {
         // Get the filter query
         BasicDBObject query = prepareSearchQuery(variableUri, startDate, endDate, objectsUris, provenancesUris);      
         
-        // Get paginated documents
-        FindIterable<Document> dataMongo = dataVariableCollection.find(query);
-        
         //SILEX:info
         //Measures are always sort by date, either ascending or descending depending on dateSortAsc parameter
         //If dateSortAsc=true, sort by date ascending
         //If dateSortAsc=false, sort by date descending
+        //Documents with the same date are sorted by _id to allow keyset pagination
         //\SILEX:info
-        if (dateSortAsc) {
-            dataMongo = dataMongo.sort(Sorts.ascending(DB_FIELD_DATE));
-        } else {
-            dataMongo = dataMongo.sort(Sorts.descending(DB_FIELD_DATE));
-        }
-        
-        // Define pagination for the request
-        if (page != null && pageSize != null) {
-            dataMongo = dataMongo.skip(page * pageSize).limit(pageSize);
-        }
+        // Get paginated documents
+        FindIterable<Document> dataMongo = findPage(dataVariableCollection, query, page, pageSize, DB_FIELD_DATE, DB_FIELD_ID, dateSortAsc);
         
         ArrayList<Data> dataList = new ArrayList<>();
+        Document lastDocument = null;
         
         // For each document, create a data Instance and add it to the result list
         try (MongoCursor<Document> measuresCursor = dataMongo.iterator()) {
             while (measuresCursor.hasNext()) {
                 Document dataDocument = measuresCursor.next();
+                lastDocument = dataDocument;
                 
                 // Create and define the data object
                 Data data = new Data();
@@ -584,9 +600,95 @@ public class DataDAO extends MongoDAO<Data> {
             }
         }
         
+        if (lastDocument != null) {
+            updateNextPageToken(pageSize, dataList.size(), lastDocument.getDate(DB_FIELD_DATE), lastDocument.getObjectId(DB_FIELD_ID));
+        } else {
+            updateNextPageToken(pageSize, 0, null, null);
+        }
+        
         return dataList;
     }
 
+    /**
+     * Generates the query to search the data of a variable linked to one of the given objects.
+     * @param variableUri
+     * @param objectsUris
+     * @example 
+     * {
+     *      "variable": "http://www.opensilex.org/opensilex/id/variables/v001", 
+     *      "object": { "$in": [ "http://www.phenome-fppn.fr/platform/2019/o19000001", "http://www.phenome-fppn.fr/platform/2019/o19000002" ] }
+     * }
+     * @return the generated query
+     */
+    private BasicDBObject prepareObjectsSearchQuery(String variableUri, Collection<String> objectsUris) {
+        BasicDBObject query = new BasicDBObject();
+        query.append(DB_FIELD_VARIABLE, variableUri);
+        query.append(DB_FIELD_OBJECT, new BasicDBObject("$in", new ArrayList<>(objectsUris)));
+        
+        LOGGER.debug(getTraceabilityLogs() + " query : " + query.toString());
+        
+        return query;
+    }
+
+    /**
+     * Gets the number of data of a variable linked to one of the given objects.
+     * @param variableUri
+     * @param objectsUris
+     * @return the number of data
+     */
+    public long countByObjects(String variableUri, Collection<String> objectsUris) {
+        if (objectsUris.isEmpty()) {
+            return 0;
+        }
+        
+        MongoCollection<Document> dataCollection = database.getCollection(getCollectionFromVariable(variableUri));
+        return dataCollection.countDocuments(prepareObjectsSearchQuery(variableUri, objectsUris));
+    }
+
+    /**
+     * Reads the data of a variable linked to one of the given objects with a single query.
+     * Data are sorted by date then by _id, so the order is stable between calls 
+     * and the range to read is applied by MongoDB.
+     * Each data is given to the consumer as soon as it is read, without building a list.
+     * @param variableUri
+     * @param objectsUris
+     * @param skip number of data to skip
+     * @param limit maximum number of data to read
+     * @param consumer data consumer
+     */
+    public void forEachByObjects(String variableUri, Collection<String> objectsUris, int skip, int limit, Consumer<Data> consumer) {
+        if (objectsUris.isEmpty() || limit <= 0) {
+            return;
+        }
+        
+        MongoCollection<Document> dataCollection = database.getCollection(getCollectionFromVariable(variableUri));
+        FindIterable<Document> dataMongo = dataCollection.find(prepareObjectsSearchQuery(variableUri, objectsUris))
+                .sort(Sorts.ascending(DB_FIELD_DATE, DB_FIELD_ID))
+                .skip(skip)
+                .limit(limit);
+        
+        try (MongoCursor<Document> measuresCursor = dataMongo.iterator()) {
+            while (measuresCursor.hasNext()) {
+                Document dataDocument = measuresCursor.next();
+                
+                Data data = new Data();
+                data.setVariableUri(variableUri);
+                data.setUri(dataDocument.getString(DB_FIELD_URI));
+                data.setDate(dataDocument.getDate(DB_FIELD_DATE));
+                data.setValue(dataDocument.get(DB_FIELD_VALUE));
+                data.setObjectUri(dataDocument.getString(DB_FIELD_OBJECT));
+                if (dataDocument.getString(DB_FIELD_PROVENANCE) != null) {
+                    data.setProvenanceUri(dataDocument.getString(DB_FIELD_PROVENANCE));
+                } else {
+                    data.setProvenanceUri(dataDocument.getString(DB_FIELD_SENSOR));
+                }
+                data.setMetadata((Map<String, Object>) dataDocument.get(DB_FIELD_METADATA));
+                
+                consumer.accept(data);
+            }
+        }
+    }
+
     @Override
     public List<Data> create(List<Data> objects) throws DAOPersistenceException, Exception {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
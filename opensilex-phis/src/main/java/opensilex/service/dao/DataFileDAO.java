@@ -19,7 +19,6 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.IndexOptions;
-import com.mongodb.client.model.Sorts;
 import java.io.File;
 import java.nio.file.Paths;
 import java.text.ParseException;
@@ -177,22 +176,14 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
             dateSortAsc                
         );
         
-        // Get paginated documents
-        FindIterable<FileDescription> fileDescription = dataVariableCollection.find(query);
-        
         //SILEX:info
         // Results are always sort by date, either ascending or descending depending on dateSortAsc parameter
         //If dateSortAsc=true, sort by date ascending
         //If dateSortAsc=false, sort by date descending
+        //Files with the same date are sorted by uri to allow keyset pagination
         //\SILEX:info
-        if (dateSortAsc) {
-            fileDescription = fileDescription.sort(Sorts.ascending(DB_FIELD_DATE));
-        } else {
-            fileDescription = fileDescription.sort(Sorts.descending(DB_FIELD_DATE));
-        }
-        
-        // Define pagination for the request
-        fileDescription = fileDescription.skip(page * pageSize).limit(pageSize);
+        // Get paginated documents
+        FindIterable<FileDescription> fileDescription = findPage(dataVariableCollection, query, page, pageSize, DB_FIELD_DATE, DB_FIELD_URI, dateSortAsc);
         ArrayList<FileDescription> dataList = new ArrayList<>();
         
         // For each document, create a data Instance and add it to the result list
@@ -202,6 +193,13 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
             }
         }
         
+        if (!dataList.isEmpty()) {
+            FileDescription lastFileDescription = dataList.get(dataList.size() - 1);
+            updateNextPageToken(pageSize, dataList.size(), lastFileDescription.getDate(), lastFileDescription.getUri());
+        } else {
+            updateNextPageToken(pageSize, 0, null, null);
+        }
+        
         return dataList;
     }
 
@@ -326,6 +324,8 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
         String fileCollectionName = getCollectionFromFileType(fileDescription.getRdfType());
         MongoCollection<FileDescription> fileDescriptionCollection = database.getCollection(fileCollectionName, FileDescription.class);
         fileDescriptionCollection.createIndex(new BasicDBObject(DB_FIELD_URI, 1), indexOptions);
+        // Index on date and uri used for sort and keyset pagination
+        fileDescriptionCollection.createIndex(new BasicDBObject(DB_FIELD_DATE, 1).append(DB_FIELD_URI, 1));
         
         boolean hasError = false;
             
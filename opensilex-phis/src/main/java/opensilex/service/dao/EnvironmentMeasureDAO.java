@@ -17,7 +17,6 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
-import com.mongodb.client.model.Sorts;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -173,30 +172,24 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
         
-        // Get paginated documents
-        FindIterable<Document> measuresMongo = environmentMeasureVariableCollection.find(query);
-        
         //SILEX:info
         // Measures are always sort by date, either ascending or descending depending on dateSortAsc parameter
         // If dateSortAsc=true, sort by date ascending
         // If dateSortAsc=false, sort by date descending
+        // Measures with the same date are sorted by _id to allow keyset pagination
         //\SILEX:info
-        if (dateSortAsc) {
-            measuresMongo = measuresMongo.sort(Sorts.ascending(DB_FIELD_DATE));
-        } else {
-            measuresMongo = measuresMongo.sort(Sorts.descending(DB_FIELD_DATE));
-        }
-        
-        // Define pagination for the request
-        measuresMongo = measuresMongo.skip(page * pageSize).limit(pageSize);
+        // Get paginated documents
+        FindIterable<Document> measuresMongo = findPage(environmentMeasureVariableCollection, query, page, pageSize, DB_FIELD_DATE, DB_FIELD_ID, dateSortAsc);
 
         ArrayList<EnvironmentMeasure> measures = new ArrayList<>();
         SimpleDateFormat df = new SimpleDateFormat(DateFormats.YMDHMSZ_FORMAT);
+        Document lastDocument = null;
         
         // For each document, create a EnvironmentMeasure Instance and add it to the result list
         try (MongoCursor<Document> measuresCursor = measuresMongo.iterator()) {
             while (measuresCursor.hasNext()) {
                 Document measureDocument = measuresCursor.next();
+                lastDocument = measureDocument;
                 
                 // Create and define the EnvironmentMeasure
                 EnvironmentMeasure measure = new EnvironmentMeasure();
@@ -210,6 +203,12 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             }
         }
         
+        if (lastDocument != null) {
+            updateNextPageToken(pageSize, measures.size(), lastDocument.getDate(DB_FIELD_DATE), lastDocument.getObjectId(DB_FIELD_ID));
+        } else {
+            updateNextPageToken(pageSize, 0, null, null);
+        }
+        
         return measures;
     }
     
@@ -338,9 +337,12 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             DB_FIELD_VARIABLE
         );
         IndexOptions indexOptions = new IndexOptions().unique(true);
+        // Index on date and _id used for sort and keyset pagination
+        Bson sortIndexFields = Indexes.ascending(DB_FIELD_DATE, DB_FIELD_ID);
         environmentsToInsertByVariable.keySet().forEach((variableUri) -> {
-            database.getCollection(getEnvironmentCollectionFromVariable(variableUri))
-                    .createIndex(indexFields, indexOptions);
+            MongoCollection<Document> environmentVariableCollection = database.getCollection(getEnvironmentCollectionFromVariable(variableUri));
+            environmentVariableCollection.createIndex(indexFields, indexOptions);
+            environmentVariableCollection.createIndex(sortIndexFields);
         });
         
         //3. Insert all the environment measures
@@ -195,6 +195,7 @@ public class EventDAO extends Rdf4jDAO<Event> {
         String uriSelectNameSparql = prepareSearchQueryUri(query, uri, true);
         prepareSearchQueryType(query, uriSelectNameSparql, type, true);
         ConcernedItemDAO.prepareQueryWithConcernedItemFilters(
+                sparql,
                 query,
                 uriSelectNameSparql,
                 Oeev.concerns.getURI(),
@@ -236,6 +237,7 @@ public class EventDAO extends Rdf4jDAO<Event> {
         String uriSelectNameSparql = prepareSearchQueryUri(query, searchUri, false);
         prepareSearchQueryType(query, uriSelectNameSparql, null, false);
         ConcernedItemDAO.prepareQueryWithConcernedItemFilters(
+                sparql,
                 query,
                 uriSelectNameSparql,
                 Oeev.concerns.getURI(),
@@ -182,17 +182,26 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
     public ArrayList<ImageMetadata> allPaginate() {
         BasicDBObject searchQuery = prepareSearchQuery();
        
-        FindIterable<Document> imagesMetadataMongo = imagesCollection.find(searchQuery);
-        //sort by date
-        imagesMetadataMongo.sort(new BasicDBObject(DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_DATE, 1));
+        String shootingDateField = DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_DATE;
+        FindIterable<Document> imagesMetadataMongo;
+        if (pageToken != null) {
+            //keyset pagination, sort by date then by uri
+            imagesMetadataMongo = findPage(imagesCollection, searchQuery, page, pageSize, shootingDateField, DB_FIELDS_IMAGE_URI, true);
+        } else {
+            imagesMetadataMongo = imagesCollection.find(searchQuery);
+            //sort by date
+            imagesMetadataMongo.sort(new BasicDBObject(shootingDateField, 1).append(DB_FIELDS_IMAGE_URI, 1));
+        }
         
         ArrayList<ImageMetadata> imagesMetadata = new ArrayList<>();
+        Document lastDocument = null;
         
         try (MongoCursor<Document> imagesMetadataCursor = imagesMetadataMongo.iterator()) {
             //for each found image metadata, 
             //add the image in the ArrayList<ImageMetadata> to return
             while (imagesMetadataCursor.hasNext()) {
                 Document imageMetadataDocument = imagesMetadataCursor.next();
+                lastDocument = imageMetadataDocument;
                 
                 ImageMetadata imageMetadata = new ImageMetadata();
                 imageMetadata.setUri(imageMetadataDocument.getString(DB_FIELDS_IMAGE_URI));
@@ -214,6 +223,13 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
             }
         }
         
+        if (pageToken != null && lastDocument != null) {
+            Document shootingConfigurationDocument = (Document) lastDocument.get(DB_FIELDS_SHOOTING_CONFIGURATION);
+            updateNextPageToken(pageSize, imagesMetadata.size(), shootingConfigurationDocument.getDate(ShootingConfigurationDAO.DB_FIELDS_DATE), lastDocument.getString(DB_FIELDS_IMAGE_URI));
+        } else {
+            updateNextPageToken(pageSize, 0, null, null);
+        }
+        
         return imagesMetadata;
     }
     
@@ -14,12 +14,17 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -257,6 +262,36 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
         return numberOfProvenancesCorresponding > 0;
     }
     
+    /**
+     * Gets the subset of the given URIs which are existing provenances,
+     * with a single query on the provenance collection.
+     * @param uris
+     * @return the URIs corresponding to existing provenances
+     */
+    public Set<String> getExistingProvenanceUris(Collection<String> uris) {
+        Set<String> existingProvenances = new HashSet<>();
+        Set<String> uriSet = new HashSet<>(uris);
+        uriSet.remove(null);
+        if (uriSet.isEmpty()) {
+            return existingProvenances;
+        }
+
+        MongoCollection<Document> provenanceCollection = database.getCollection(provenanceCollectionName);
+
+        Bson query = Filters.in(DB_FIELD_URI, uriSet);
+        LOGGER.debug(query.toString());
+
+        try (MongoCursor<Document> cursor = provenanceCollection.find(query)
+                .projection(Projections.include(DB_FIELD_URI))
+                .iterator()) {
+            while (cursor.hasNext()) {
+                existingProvenances.add(cursor.next().getString(DB_FIELD_URI));
+            }
+        }
+
+        return existingProvenances;
+    }
+
     /**
      * Checks the given provenance.
      * @param provenances
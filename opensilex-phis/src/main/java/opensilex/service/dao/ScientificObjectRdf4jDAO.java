@@ -14,10 +14,15 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
@@ -38,6 +43,7 @@ import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.opensilex.sparql.deserializer.SPARQLDeserializers;
+import org.opensilex.sparql.deserializer.URIDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.Rdf4jDAO;
@@ -66,6 +72,7 @@ import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.expr.ExprList;
 import org.apache.jena.sparql.path.PathFactory;
+import org.apache.jena.sparql.util.FmtUtils;
 import org.apache.jena.vocabulary.XSD;
 import org.eclipse.rdf4j.model.Value;
 import org.opensilex.sparql.service.SPARQLService;
@@ -184,28 +191,184 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
     }
 
     /**
-     * Generates the SPARQL ask query to know if a given alias already exists in
-     * a given context
+     * Maximum number of values given in one VALUES clause
+     */
+    private final static int VALUES_CHUNK_SIZE = 1000;
+
+    /**
+     * Gets the subset of the given types which are scientific object types,
+     * with one VALUES query per chunk of types.
      *
-     * @param alias
-     * @param context
-     * @return the query
+     * @param types
+     * @example SELECT DISTINCT ?rdfType WHERE {
+     * VALUES ?rdfType { <http://www.opensilex.org/vocabulary/oeso#Plot> }
+     * ?rdfType rdfs:subClassOf* oeso:ScientificObject }
+     * @return the scientific object types
      */
-    private SPARQLQueryBuilder askExistAliasInContext(String alias, String context) {
-        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
-        query.appendDistinct(Boolean.TRUE);
+    private Set<String> getScientificObjectTypes(Collection<String> types) {
+        Set<String> scientificObjectTypes = new HashSet<>();
+        for (List<String> chunk : getValuesChunks(types)) {
+            String query = "SELECT DISTINCT ?" + RDF_TYPE + " WHERE {\n"
+                    + " VALUES ?" + RDF_TYPE + " {" + getURIValues(chunk) + " }\n"
+                    + " ?" + RDF_TYPE + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">* <" + Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString() + "> .\n"
+                    + "}";
+
+            addQueryResults(query, RDF_TYPE, scientificObjectTypes);
+        }
+        return scientificObjectTypes;
+    }
 
-        query.appendGraph(context);
-        query.appendAsk("");
-        query.appendToBody("?x <" + Rdfs.RELATION_LABEL.toString() + "> \"" + alias + "\"");
+    /**
+     * Gets the subset of the given URIs which are scientific objects,
+     * with one VALUES query per chunk of URIs.
+     *
+     * @param uris
+     * @example SELECT DISTINCT ?uri WHERE {
+     * VALUES ?uri { <http://www.phenome-fppn.fr/diaphen/2019/o19000001> }
+     * ?uri rdf:type ?rdfType . ?rdfType rdfs:subClassOf* oeso:ScientificObject }
+     * @return the scientific objects URIs
+     */
+    private Set<String> getExistingScientificObjects(Collection<String> uris) {
+        Set<String> scientificObjects = new HashSet<>();
+        for (List<String> chunk : getValuesChunks(uris)) {
+            String query = "SELECT DISTINCT ?" + URI + " WHERE {\n"
+                    + " VALUES ?" + URI + " {" + getURIValues(chunk) + " }\n"
+                    + " ?" + URI + " <" + Rdf.RELATION_TYPE.toString() + "> ?" + RDF_TYPE + " .\n"
+                    + " ?" + RDF_TYPE + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">* <" + Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString() + "> .\n"
+                    + "}";
+
+            addQueryResults(query, URI, scientificObjects);
+        }
+        return scientificObjects;
+    }
 
-        LOGGER.debug(SPARQL_QUERY + query.toString());
-        return query;
+    /**
+     * Gets the subset of the given URIs which exist in the triplestore,
+     * with the same patterns as {@link #existUri(java.lang.String)} and one VALUES query per chunk of URIs.
+     *
+     * @param uris
+     * @return the existing URIs
+     */
+    private Set<String> getExistingUris(Collection<String> uris) {
+        Set<String> existingUris = new HashSet<>();
+        for (List<String> chunk : getValuesChunks(uris)) {
+            String query = "SELECT DISTINCT ?r WHERE {\n"
+                    + " VALUES ?r {" + getURIValues(chunk) + " }\n"
+                    + "    { ?r ?p ?o }\n"
+                    + "    UNION\n"
+                    + "    { ?s ?r ?o }\n"
+                    + "    UNION\n"
+                    + "    { ?s ?p ?r }\n"
+                    + "}";
+
+            addQueryResults(query, "r", existingUris);
+        }
+        return existingUris;
+    }
+
+    /**
+     * Gets the types of the given germplasms, with one VALUES query per chunk of URIs.
+     *
+     * @param uris
+     * @example SELECT DISTINCT ?uri ?rdfType WHERE {
+     * VALUES ?uri { <http://www.phenome-fppn.fr/germplasm/g001> }
+     * ?uri rdf:type ?rdfType . ?rdfType rdfs:subClassOf* oeso:Germplasm }
+     * @return the types by germplasm URI, formatted like {@link GermplasmModel#getType()}, unknown germplasms are not in the map
+     */
+    private Map<String, Set<String>> getGermplasmTypes(Collection<String> uris) throws URISyntaxException {
+        Map<String, Set<String>> germplasmTypes = new HashMap<>();
+        for (List<String> chunk : getValuesChunks(uris)) {
+            String query = "SELECT DISTINCT ?" + URI + " ?" + RDF_TYPE + " WHERE {\n"
+                    + " VALUES ?" + URI + " {" + getURIValues(chunk) + " }\n"
+                    + " ?" + URI + " <" + Rdf.RELATION_TYPE.toString() + "> ?" + RDF_TYPE + " .\n"
+                    + " ?" + RDF_TYPE + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">* <" + Oeso.CONCEPT_GERMPLASM.toString() + "> .\n"
+                    + "}";
+
+            LOGGER.debug(SPARQL_QUERY + query);
+            TupleQuery tupleQuery = prepareRDF4JTupleQuery(query);
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    BindingSet bindingSet = result.next();
+                    germplasmTypes.computeIfAbsent(bindingSet.getValue(URI).stringValue(), (key) -> new HashSet<>())
+                            .add(URIDeserializer.formatURI(new URI(bindingSet.getValue(RDF_TYPE).stringValue())).toString());
+                }
+            }
+        }
+        return germplasmTypes;
+    }
+
+    /**
+     * Gets the aliases which already exist in the given contexts, with one VALUES query per chunk of (context, alias) pairs.
+     *
+     * @param aliasesByContext aliases to check by context URI
+     * @example SELECT DISTINCT ?experiment ?alias WHERE {
+     * VALUES (?experiment ?alias) { (<http://www.phenome-fppn.fr/diaphen/DIA2017-1> "plot 1") }
+     * GRAPH ?experiment { ?x rdfs:label ?alias } }
+     * @return the existing aliases by context URI
+     */
+    private Map<String, Set<String>> getExistingAliasesInContexts(Map<String, Set<String>> aliasesByContext) {
+        List<String> pairs = new ArrayList<>();
+        aliasesByContext.forEach((context, aliases) -> {
+            for (String alias : aliases) {
+                pairs.add("(<" + context + "> " + FmtUtils.stringForNode(NodeFactory.createLiteral(alias)) + ")");
+            }
+        });
+
+        Map<String, Set<String>> existingAliases = new HashMap<>();
+        for (int i = 0; i < pairs.size(); i += VALUES_CHUNK_SIZE) {
+            String query = "SELECT DISTINCT ?" + EXPERIMENT + " ?" + ALIAS + " WHERE {\n"
+                    + " VALUES (?" + EXPERIMENT + " ?" + ALIAS + ") { " + String.join(" ", pairs.subList(i, Math.min(i + VALUES_CHUNK_SIZE, pairs.size()))) + " }\n"
+                    + " GRAPH ?" + EXPERIMENT + " { ?x <" + Rdfs.RELATION_LABEL.toString() + "> ?" + ALIAS + " }\n"
+                    + "}";
+
+            LOGGER.debug(SPARQL_QUERY + query);
+            TupleQuery tupleQuery = prepareRDF4JTupleQuery(query);
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    BindingSet bindingSet = result.next();
+                    existingAliases.computeIfAbsent(bindingSet.getValue(EXPERIMENT).stringValue(), (key) -> new HashSet<>())
+                            .add(bindingSet.getValue(ALIAS).stringValue());
+                }
+            }
+        }
+        return existingAliases;
+    }
+
+    private List<List<String>> getValuesChunks(Collection<String> values) {
+        List<String> valueList = new ArrayList<>(new LinkedHashSet<>(values));
+        valueList.remove(null);
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < valueList.size(); i += VALUES_CHUNK_SIZE) {
+            chunks.add(valueList.subList(i, Math.min(i + VALUES_CHUNK_SIZE, valueList.size())));
+        }
+        return chunks;
+    }
+
+    private String getURIValues(List<String> uris) {
+        StringBuilder values = new StringBuilder();
+        for (String uri : uris) {
+            values.append(" <").append(uri).append(">");
+        }
+        return values.toString();
+    }
+
+    private void addQueryResults(String query, String variable, Set<String> results) {
+        LOGGER.debug(SPARQL_QUERY + query);
+        TupleQuery tupleQuery = prepareRDF4JTupleQuery(query);
+        try (TupleQueryResult result = tupleQuery.evaluate()) {
+            while (result.hasNext()) {
+                results.add(result.next().getValue(variable).stringValue());
+            }
+        }
     }
 
     /**
      * Checks if the scientific objects are valid.
      *
+     * Types, parents, aliases, germplasms and relations of all the scientific objects are collected first
+     * and each set is checked with one query per chunk of values.
+     *
      * @param scientificObjects
      * @return
      * @throws RepositoryException
@@ -216,45 +379,52 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
         //Returned status list
         List<Status> checkStatusList = new ArrayList<>();
 
-        //Caches
-        List<String> scientificObjectTypesCache = new ArrayList<>();
-        List<String> isPartOfCache = new ArrayList<>();
-        List<String> propertyUriCache = new ArrayList<>();
+        //1. Collect values to check
+        Set<String> types = new HashSet<>();
+        Set<String> isPartOfUris = new HashSet<>();
+        Set<String> germplasmUris = new HashSet<>();
+        Set<String> propertyRelations = new HashSet<>();
+        Map<String, Set<String>> aliasesByExperiment = new HashMap<>();
+        for (ScientificObject scientificObject : scientificObjects) {
+            types.add(scientificObject.getRdfType());
+            isPartOfUris.add(scientificObject.getIsPartOf());
+            for (Property property : scientificObject.getProperties()) {
+                propertyRelations.add(property.getRelation());
+                if (property.getRelation().equals(Rdfs.RELATION_LABEL.toString()) && scientificObject.getExperiment() != null && property.getValue() != null) {
+                    aliasesByExperiment.computeIfAbsent(scientificObject.getExperiment(), (key) -> new HashSet<>()).add(property.getValue());
+                } else if (property.getRelation().equals(Oeso.RELATION_HAS_GERMPLASM.toString()) && property.getRdfType() != null) {
+                    germplasmUris.add(property.getValue());
+                }
+            }
+        }
+
+        //2. Check each set of values
+        Set<String> scientificObjectTypes = getScientificObjectTypes(types);
+        Set<String> urisToCheck = new HashSet<>(isPartOfUris);
+        urisToCheck.addAll(propertyRelations);
+        Set<String> existingUris = getExistingUris(urisToCheck);
+        Set<String> scientificObjectParents = getExistingScientificObjects(isPartOfUris);
+        Map<String, Set<String>> existingAliases = getExistingAliasesInContexts(aliasesByExperiment);
+        Map<String, Set<String>> germplasmTypes = getGermplasmTypes(germplasmUris);
 
+        //3. Validate each scientific object against checked values
         boolean dataOk = true;
         for (ScientificObject scientificObject : scientificObjects) {
             //Check if the types are present in the ontology
-            UriDAO uriDao = new UriDAO(sparql);
-
-            if (!scientificObjectTypesCache.contains(scientificObject.getRdfType())) {
-                if (!uriDao.isSubClassOf(scientificObject.getRdfType(), Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString())) {
-                    dataOk = false;
-                    checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Wrong scientific object type value. See ontology"));
-                } else {
-                    scientificObjectTypesCache.add(scientificObject.getRdfType());
-                }
+            if (!scientificObjectTypes.contains(scientificObject.getRdfType())) {
+                dataOk = false;
+                checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Wrong scientific object type value. See ontology"));
             }
 
-            //Check if the uri of the isPartOf object exists
+            //Check if the uri of the isPartOf object exists and is a scientific object
             if (scientificObject.getIsPartOf() != null) {
                 String isPartOfUri = scientificObject.getIsPartOf();
-                //the part of uri is not in the cache
-                if (!isPartOfCache.contains(isPartOfUri)) {
-                    //the part of uri doesn't exist
-                    if (!existUri(isPartOfUri)) {
-                        dataOk = false;
-                        checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "unknown is part of uri"));
-                    } else {
-                        //1. Get isPartOf object type
-                        uriDao.uri = isPartOfUri;
-                        ArrayList<Uri> typesResult = uriDao.getAskTypeAnswer();
-                        if (!uriDao.isSubClassOf(typesResult.get(0).getRdfType(), Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString())) {
-                            dataOk = false;
-                            checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "is part of object type is not scientific object"));
-                        } else {
-                            isPartOfCache.add(uriDao.uri);
-                        }
-                    }
+                if (!existingUris.contains(isPartOfUri)) {
+                    dataOk = false;
+                    checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "unknown is part of uri"));
+                } else if (!scientificObjectParents.contains(isPartOfUri)) {
+                    dataOk = false;
+                    checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "is part of object type is not scientific object"));
                 }
             }
 
@@ -265,25 +435,20 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
                 if (property.getRelation().equals(Rdfs.RELATION_LABEL.toString())) {
                     missingLabel = false;
                     //Check unique alias in the experiment
-                    if (scientificObject.getExperiment() != null) {
-                        SPARQLQueryBuilder query = askExistAliasInContext(property.getValue(), scientificObject.getExperiment());
-                        BooleanQuery booleanQuery = prepareRDF4JBooleanQuery(query);
-                        boolean result = booleanQuery.evaluate();
-
-                        if (result) {
-                            dataOk = false;
-                            checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "already existing alias for the given experiment"));
-                        }
+                    if (scientificObject.getExperiment() != null
+                            && existingAliases.getOrDefault(scientificObject.getExperiment(), Collections.emptySet()).contains(property.getValue())) {
+                        dataOk = false;
+                        checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "already existing alias for the given experiment"));
                     }
                 }
-                
+
                 //Check if the given germplasm exists
                 if (property.getRelation().equals(Oeso.RELATION_HAS_GERMPLASM.toString())) {
                     if (property.getRdfType() != null) {
-                        org.opensilex.core.germplasm.dal.GermplasmDAO germplasmDAO = new org.opensilex.core.germplasm.dal.GermplasmDAO(sparql);
-                        GermplasmModel germplasm = germplasmDAO.get(new URI(property.getValue()), null);
-                        if (germplasm != null) {
-                            if (!germplasm.getType().toString().equals(property.getRdfType())) {
+                        Set<String> germplasmTypesFound = germplasmTypes.get(property.getValue());
+                        if (germplasmTypesFound != null) {
+                            // Same check as comparing the germplasm type with the given one: exact value, and only type
+                            if (!germplasmTypesFound.equals(Collections.singleton(property.getRdfType()))) {
                                 dataOk = false;
                                 checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "The given germplasm doesn't correspond to the given rdfType"));
                             }
@@ -292,20 +457,15 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
                             checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "The given germplasm doesn't exist"));
                         }
                     } else {
-                            dataOk = false;
-                            checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "The property hasGermplasm requires to give rdfType"));
-                    }                   
-                        
+                        dataOk = false;
+                        checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "The property hasGermplasm requires to give rdfType"));
+                    }
                 }
 
                 //Check if property exists in the ontology Vocabulary --> see how to check rdfs
-                if (!propertyUriCache.contains(property.getRelation())) {
-                    if (existUri(property.getRelation()) == false) {
-                        dataOk = false;
-                        checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "the property relation " + property.getRelation() + " doesn't exist in the ontology"));
-                    } else {
-                        propertyUriCache.add(property.getRelation());
-                    }
+                if (!existingUris.contains(property.getRelation())) {
+                    dataOk = false;
+                    checkStatusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "the property relation " + property.getRelation() + " doesn't exist in the ontology"));
                 }
             }
 
@@ -247,6 +247,7 @@ public class SensorDAO extends Rdf4jDAO<Sensor> {
         } else {
             query.appendTriplet("?" + URI, Rdfs.RELATION_LABEL.toString(), "?" + LABEL, null);
             query.appendAndFilter("REGEX ( str(?" + LABEL + "),\".*" + label + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Rdfs.RELATION_LABEL.toString(), label);
         }
         
         //Brand filter
@@ -258,6 +259,7 @@ public class SensorDAO extends Rdf4jDAO<Sensor> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_BRAND.toString(), "?" + BRAND, null);
             query.appendAndFilter("REGEX ( str(?" + BRAND + "),\".*" + brand + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_BRAND.toString(), brand);
         }
         
         //Serial number filter
@@ -269,6 +271,7 @@ public class SensorDAO extends Rdf4jDAO<Sensor> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_SERIAL_NUMBER.toString(), "?" + SERIAL_NUMBER, null);
             query.appendAndFilter("REGEX ( str(?" + SERIAL_NUMBER + "),\".*" + serialNumber + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_SERIAL_NUMBER.toString(), serialNumber);
         }
         
         //Model filter
@@ -280,6 +283,7 @@ public class SensorDAO extends Rdf4jDAO<Sensor> {
         } else {
             query.appendTriplet("?" + URI, Oeso.RELATION_HAS_MODEL.toString(), "?" + MODEL, null);
             query.appendAndFilter("REGEX ( str(?" + MODEL + "),\".*" + model + ".*\",\"i\")");
+            appendTextSearchValues(sparql, query, "?" + URI, Oeso.RELATION_HAS_MODEL.toString(), model);
         }
         
         //In service date filter
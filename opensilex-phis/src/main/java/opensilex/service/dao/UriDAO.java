@@ -29,6 +29,7 @@ import opensilex.service.ontology.Rdfs;
 import opensilex.service.utils.sparql.SPARQLQueryBuilder;
 import opensilex.service.model.Ask;
 import opensilex.service.model.Uri;
+import org.opensilex.sparql.exceptions.SPARQLException;
 import org.opensilex.sparql.service.SPARQLService;
 
 // SILEX:todo
@@ -558,6 +559,12 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      *         false if not
      */
     public boolean isSubClassOf(String rdfSubType, String rdfType) {
+        try {
+            return sparql.getClassHierarchy().isSubClassOf(rdfSubType, rdfType);
+        } catch (SPARQLException ex) {
+            LOGGER.warn("Class hierarchy unavailable, fallback to ASK query", ex);
+        }
+
         SPARQLQueryBuilder query = prepareIsSubclassOf(rdfSubType, rdfType);
 
         BooleanQuery booleanQuery = prepareRDF4JBooleanQuery(query);
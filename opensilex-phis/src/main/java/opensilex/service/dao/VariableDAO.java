@@ -9,8 +9,12 @@ package opensilex.service.dao;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import javax.ws.rs.NotFoundException;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -748,6 +752,52 @@ public class VariableDAO extends Rdf4jDAO<Variable> {
         }
     }
 
+    /**
+     * Maximum number of URIs given in one VALUES clause
+     */
+    private final static int VALUES_CHUNK_SIZE = 1000;
+
+    /**
+     * Gets the subset of the given URIs which exist and are variables,
+     * checking them with one VALUES query per chunk of URIs.
+     *
+     * @param uris
+     * @example SELECT DISTINCT ?uri WHERE {
+     * VALUES ?uri { <http://www.phenome-fppn.fr/id/variables/v001> }
+     * ?uri rdf:type ?rdfType . ?rdfType rdfs:subClassOf* oeso:Variable }
+     * @return the URIs corresponding to existing variables
+     */
+    public Set<String> getExistingVariables(Collection<String> uris) {
+        Set<String> existingVariables = new HashSet<>();
+        List<String> uriList = new ArrayList<>(new LinkedHashSet<>(uris));
+        uriList.remove(null);
+
+        for (int i = 0; i < uriList.size(); i += VALUES_CHUNK_SIZE) {
+            List<String> chunk = uriList.subList(i, Math.min(i + VALUES_CHUNK_SIZE, uriList.size()));
+
+            StringBuilder values = new StringBuilder();
+            for (String uri : chunk) {
+                values.append(" <").append(uri).append(">");
+            }
+
+            String query = "SELECT DISTINCT ?" + URI + " WHERE {\n"
+                    + " VALUES ?" + URI + " {" + values + " }\n"
+                    + " ?" + URI + " <" + Rdf.RELATION_TYPE.toString() + "> ?" + RDF_TYPE + " .\n"
+                    + " ?" + RDF_TYPE + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">* <" + Oeso.CONCEPT_VARIABLE.toString() + "> .\n"
+                    + "}";
+
+            LOGGER.debug(SPARQL_QUERY + query);
+            TupleQuery tupleQuery = prepareRDF4JTupleQuery(query);
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    existingVariables.add(result.next().getValue(URI).stringValue());
+                }
+            }
+        }
+
+        return existingVariables;
+    }
+
     /**
      * Get the list of brapi variables from the the DAO
      *
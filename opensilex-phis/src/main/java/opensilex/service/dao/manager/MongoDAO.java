@@ -10,10 +10,18 @@ package opensilex.service.dao.manager;
 import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.gridfs.GridFS;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import javax.ws.rs.BadRequestException;
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.bson.codecs.configuration.CodecProvider;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
@@ -62,6 +70,18 @@ public abstract class MongoDAO<T> extends DAO<T> {
 
     protected Integer page;
     protected Integer pageSize;
+
+    /**
+     * Opaque token of the page to get with keyset pagination.
+     * If defined, the page number is ignored.
+     */
+    protected String pageToken;
+
+    /**
+     * Token of the page following the last page found with keyset pagination,
+     * null if there is no next page.
+     */
+    protected String nextPageToken;
     
     //The _id json data key in the mongodb documents
     public final static String DB_FIELD_ID = "_id";
@@ -73,6 +93,18 @@ public abstract class MongoDAO<T> extends DAO<T> {
     public final static String MONGO_ELEM_MATCH = "$elemMatch";
     //the $and mongo key
     public final static String MONGO_AND = "$and";
+    //the $or mongo key
+    public final static String MONGO_OR = "$or";
+    //the $gt mongo key
+    public final static String MONGO_GT = "$gt";
+    //the $lt mongo key
+    public final static String MONGO_LT = "$lt";
+    //separator of the page token parts
+    private final static String PAGE_TOKEN_SEPARATOR = ":";
+    //page token type prefix for ObjectId
+    private final static String PAGE_TOKEN_OBJECT_ID = "o";
+    //page token type prefix for String
+    private final static String PAGE_TOKEN_STRING = "s";
     //error code send by mongo in case of duplicated data with unique indexes
     public final static int DUPLICATE_KEY_ERROR_CODE = 11000;
     
@@ -163,6 +195,138 @@ public abstract class MongoDAO<T> extends DAO<T> {
         this.pageSize = pageSize;
     }
 
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    /**
+     * Sets the page token to use keyset pagination instead of page number.
+     * @param pageToken
+     */
+    public void setPageToken(String pageToken) {
+        if (pageToken != null && pageToken.isEmpty()) {
+            this.pageToken = null;
+        } else {
+            this.pageToken = pageToken;
+        }
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    /**
+     * Finds the documents of the current page, sorted by date then by the given unique field.
+     * If a page token is defined, the page is found with a seek predicate on (date, id)
+     * instead of skipping all the documents of the previous pages.
+     * @param <D> documents class
+     * @param collection
+     * @param query search query
+     * @param page page number, ignored if a page token is defined
+     * @param pageSize page size
+     * @param dateField date field name
+     * @param idField unique field name used to order documents with the same date
+     * @param dateSortAsc
+     * @return the documents of the page
+     */
+    protected <D> FindIterable<D> findPage(MongoCollection<D> collection, BasicDBObject query, Integer page, Integer pageSize, String dateField, String idField, boolean dateSortAsc) {
+        FindIterable<D> results;
+        if (pageToken != null) {
+            results = collection.find(prepareSeekQuery(query, dateField, idField, dateSortAsc))
+                    .limit(getSeekPageSize(pageSize));
+        } else {
+            results = collection.find(query);
+            if (page != null && pageSize != null) {
+                results = results.skip(page * pageSize).limit(pageSize);
+            }
+        }
+
+        if (dateSortAsc) {
+            return results.sort(Sorts.ascending(dateField, idField));
+        } else {
+            return results.sort(Sorts.descending(dateField, idField));
+        }
+    }
+
+    /**
+     * Returns the page size used with a page token, the default one if the given one is missing or not positive
+     * (a limit of 0 is unlimited for Mongo).
+     * @param pageSize requested page size
+     * @return page size
+     */
+    private int getSeekPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) {
+            return Integer.parseInt(DefaultBrapiPaginationValues.PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Adds to the given query the seek predicate corresponding to the page token.
+     * @example
+     * { $and: [
+     *      { variable: "http://www.phenome-fppn.fr/diaphen/id/variable/v0000001" },
+     *      { $or: [
+     *          { date: { $gt: ISODate("2018-06-15T10:51:00+0200") } },
+     *          { date: ISODate("2018-06-15T10:51:00+0200"), _id: { $gt: ObjectId("5d2ee4d5bab1e2e1f8b5a4f0") } }
+     *      ] }
+     * ] }
+     * @param query
+     * @param dateField
+     * @param idField
+     * @param dateSortAsc
+     * @return the query with the seek predicate
+     * @throws BadRequestException if the page token is invalid
+     */
+    protected BasicDBObject prepareSeekQuery(BasicDBObject query, String dateField, String idField, boolean dateSortAsc) {
+        Date lastDate;
+        Object lastId;
+        try {
+            String[] tokenParts = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8).split(PAGE_TOKEN_SEPARATOR, 3);
+            if (tokenParts.length != 3) {
+                throw new IllegalArgumentException("Wrong page token parts number");
+            }
+
+            lastDate = new Date(Long.parseLong(tokenParts[0]));
+            if (PAGE_TOKEN_OBJECT_ID.equals(tokenParts[1])) {
+                lastId = new ObjectId(tokenParts[2]);
+            } else {
+                lastId = tokenParts[2];
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid page token: " + pageToken, ex);
+        }
+
+        String operator = dateSortAsc ? MONGO_GT : MONGO_LT;
+        BasicDBObject seekQuery = new BasicDBObject(MONGO_OR, Arrays.asList(
+                new BasicDBObject(dateField, new BasicDBObject(operator, lastDate)),
+                new BasicDBObject(dateField, lastDate).append(idField, new BasicDBObject(operator, lastId))
+        ));
+
+        return new BasicDBObject(MONGO_AND, Arrays.asList(query, seekQuery));
+    }
+
+    /**
+     * Defines the next page token from the last document found.
+     * No next page token is defined if the page is not full.
+     * @param pageSize page size
+     * @param resultCount number of documents found in the page
+     * @param lastDate date of the last document found
+     * @param lastId unique id of the last document found (ObjectId or String)
+     */
+    protected void updateNextPageToken(Integer pageSize, int resultCount, Date lastDate, Object lastId) {
+        if (pageToken != null) {
+            pageSize = getSeekPageSize(pageSize);
+        }
+        if (pageSize == null || pageSize <= 0 || resultCount == 0 || resultCount < pageSize || lastDate == null || lastId == null) {
+            nextPageToken = null;
+        } else {
+            String type = lastId instanceof ObjectId ? PAGE_TOKEN_OBJECT_ID : PAGE_TOKEN_STRING;
+            String token = lastDate.getTime() + PAGE_TOKEN_SEPARATOR + type + PAGE_TOKEN_SEPARATOR + lastId.toString();
+            nextPageToken = Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     /**
      * Prepares a search query.
      * @return BasicDBObject
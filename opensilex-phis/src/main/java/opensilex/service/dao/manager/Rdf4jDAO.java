@@ -26,6 +26,7 @@ import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.shared.JenaException;
 import org.apache.jena.sparql.modify.request.UpdateDeleteWhere;
+import org.apache.jena.update.UpdateFactory;
 import org.apache.jena.update.UpdateRequest;
 import org.eclipse.rdf4j.RDF4JException;
 import org.eclipse.rdf4j.model.Namespace;
@@ -36,7 +37,9 @@ import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.repository.RepositoryResult;
 import org.opensilex.sparql.rdf4j.RDF4JConnection;
+import org.opensilex.sparql.service.SPARQLClassHierarchy;
 import org.opensilex.sparql.service.SPARQLService;
+import org.opensilex.sparql.service.SPARQLTextIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +47,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * DAO class to query the triplestore
@@ -179,6 +183,26 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
         }
     }
 
+    /**
+     * Restricts the subject variable of the query to the subjects having a value
+     * of the property containing the searched text, found in the text index.
+     * Nothing is appended if the text index can't be used for this property or
+     * text, the REGEX filter on the value must be kept in both cases.
+     * @example
+     * VALUES ?uri { <http://www.opensilex.org/demo/2018/s18001> }
+     * @param sparql
+     * @param query
+     * @param subject subject variable e.g. ?uri
+     * @param propertyUri
+     * @param text searched text
+     */
+    protected static void appendTextSearchValues(SPARQLService sparql, SPARQLQueryBuilder query, String subject, String propertyUri, String text) {
+        Set<String> subjects = sparql.searchText(propertyUri, text);
+        if (subjects != null) {
+            query.appendValues(subject, subjects);
+        }
+    }
+
     /**
      * Checks if a subject exists by triplet.
      *
@@ -590,9 +614,101 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     }
 
     public Update prepareRDF4JUpdateQuery(Object query) {
-        Update update = getConnection().prepareUpdate(QueryLanguage.SPARQL, query.toString());
+        String queryString = query.toString();
+        Update update = getConnection().prepareUpdate(QueryLanguage.SPARQL, queryString);
         update.setMaxExecutionTime(TIMEOUT);
-        return update;
+        return new TextIndexedUpdate(update, sparql, queryString);
+    }
+
+    /**
+     * Update notifying the text index of the modified subjects and the class hierarchy of rdfs:subClassOf changes once executed.
+     */
+    private static class TextIndexedUpdate implements Update {
+
+        private final Update update;
+
+        private final SPARQLService sparql;
+
+        private final String query;
+
+        private TextIndexedUpdate(Update update, SPARQLService sparql, String query) {
+            this.update = update;
+            this.sparql = sparql;
+            this.query = query;
+        }
+
+        @Override
+        public void execute() throws UpdateExecutionException {
+            update.execute();
+
+            UpdateRequest request;
+            try {
+                request = UpdateFactory.create(query);
+            } catch (JenaException ex) {
+                LOGGER.debug("Can't parse update to find modified subjects", ex);
+                sparql.textIndexChanged(null);
+                sparql.classHierarchyChanged();
+                return;
+            }
+
+            Set<java.net.URI> subjects = SPARQLTextIndex.getModifiedSubjects(request);
+            if (subjects == null || !subjects.isEmpty()) {
+                sparql.textIndexChanged(subjects);
+            }
+            if (SPARQLClassHierarchy.mayChange(request)) {
+                sparql.classHierarchyChanged();
+            }
+        }
+
+        @Override
+        public void setBinding(String name, Value value) {
+            update.setBinding(name, value);
+        }
+
+        @Override
+        public void removeBinding(String name) {
+            update.removeBinding(name);
+        }
+
+        @Override
+        public void clearBindings() {
+            update.clearBindings();
+        }
+
+        @Override
+        public BindingSet getBindings() {
+            return update.getBindings();
+        }
+
+        @Override
+        public void setDataset(Dataset dataset) {
+            update.setDataset(dataset);
+        }
+
+        @Override
+        public Dataset getDataset() {
+            return update.getDataset();
+        }
+
+        @Override
+        public void setIncludeInferred(boolean includeInferred) {
+            update.setIncludeInferred(includeInferred);
+        }
+
+        @Override
+        public boolean getIncludeInferred() {
+            return update.getIncludeInferred();
+        }
+
+        @Override
+        public void setMaxExecutionTime(int maxExecTime) {
+            update.setMaxExecutionTime(maxExecTime);
+        }
+
+        @Override
+        public int getMaxExecutionTime() {
+            return update.getMaxExecutionTime();
+        }
     }
 
     public BooleanQuery prepareRDF4JBooleanQuery(Object query) {
@@ -21,6 +21,8 @@ public final class DocumentationAnnotation {
     // Default page number is 0
     public static final String PAGE = "Current page number";
     
+    public static final String PAGE_TOKEN = "Token of the page to get, as returned in the nextPageToken of the previous page (page number is ignored if defined)";
+    
     /**
      * To be updated if the variable in service.properties is updated
      * @see service.properties
@@ -23,14 +23,16 @@ import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
 import opensilex.service.result.ResultForm;
 import opensilex.service.utils.ImageResizer;
+import opensilex.service.utils.ImageResizerBusyException;
+import opensilex.service.utils.ThumbnailCache;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.AbstractResultForm;
 import opensilex.service.view.brapi.form.ResponseFormPOST;
-import org.apache.commons.lang3.ArrayUtils;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.opensilex.fs.service.FileStorageService;
+import org.opensilex.fs.service.FileStreamingOutput;
 import org.opensilex.security.authentication.ApiProtected;
 import org.opensilex.security.authentication.NotFoundURIException;
 import org.opensilex.server.response.ErrorResponse;
@@ -45,10 +47,12 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -214,7 +218,8 @@ public class DataResourceService extends ResourceService {
             @ApiParam(value = "Search by provenance uri", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_URI) @QueryParam("provenance") @URL String provenance,
             @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc,
             @ApiParam(value = DocumentationAnnotation.PAGE_SIZE) @QueryParam(GlobalWebserviceValues.PAGE_SIZE) @DefaultValue(DefaultBrapiPaginationValues.PAGE_SIZE) @Min(0) int pageSize,
-            @ApiParam(value = DocumentationAnnotation.PAGE) @QueryParam(GlobalWebserviceValues.PAGE) @DefaultValue(DefaultBrapiPaginationValues.PAGE) @Min(0) int page
+            @ApiParam(value = DocumentationAnnotation.PAGE) @QueryParam(GlobalWebserviceValues.PAGE) @DefaultValue(DefaultBrapiPaginationValues.PAGE) @Min(0) int page,
+            @ApiParam(value = DocumentationAnnotation.PAGE_TOKEN) @QueryParam(GlobalWebserviceValues.PAGE_TOKEN) String pageToken
     ) {
         // 1. Initialize dataDAO with parameters
         DataDAO dataDAO = new DataDAO(sparql);
@@ -230,6 +235,7 @@ public class DataResourceService extends ResourceService {
         dataDAO.user = userSession.getUser();
         dataDAO.setPage(page);
         dataDAO.setPageSize(pageSize);
+        dataDAO.setPageToken(pageToken);
 
         // 2. Get data count
         int totalCount = dataDAO.count();
@@ -258,6 +264,7 @@ public class DataResourceService extends ResourceService {
 
             // Return list of DTO
             getResponse = new ResultForm<>(dataDAO.getPageSize(), dataDAO.getPage(), list, true, totalCount);
+            getResponse.setNextPageToken(dataDAO.getNextPageToken());
             getResponse.setStatus(statusList);
             return Response.status(Response.Status.OK).entity(getResponse).build();
         }
@@ -423,6 +430,7 @@ public class DataResourceService extends ResourceService {
     @Produces({MediaType.APPLICATION_OCTET_STREAM})
     public Response getDataFile(
             @ApiParam(value = "Search by fileUri", required = true, example = DocumentationAnnotation.EXAMPLE_DATA_FILE_WEB_PATH) @PathParam("fileUri") @NotNull URI fileUri,
+            @ApiParam(value = "Byte range to get (e.g bytes=0-1023)") @HeaderParam(FileStreamingOutput.RANGE_HEADER) String range,
             @Context HttpServletResponse response
     ) {
         try {
@@ -434,14 +442,12 @@ public class DataResourceService extends ResourceService {
             }
 
             java.nio.file.Path filePath = Paths.get(description.getPath());
-            byte[] fileContent = fs.readFileAsByteArray(filePath);
-
-            if (ArrayUtils.isEmpty(fileContent)) {
+            if (!fs.exist(filePath)) {
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
             }
-            return Response.ok(fileContent, MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"" + filePath.getFileName().toString() + "\"") //optional
-                    .build();
+
+            // Stream file content without loading it in memory
+            return FileStreamingOutput.buildResponse(fs, filePath, range, MediaType.APPLICATION_OCTET_STREAM, filePath.getFileName().toString());
 
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
@@ -466,7 +472,8 @@ public class DataResourceService extends ResourceService {
         @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION, response = ErrorResponse.class),
         @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED, response = ErrorResponse.class),
         @ApiResponse(code = 404, message = DocumentationAnnotation.FILE_NOT_FOUND, response = ErrorResponse.class),
-        @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_FETCH_DATA, response = ErrorResponse.class)
+        @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_FETCH_DATA, response = ErrorResponse.class),
+        @ApiResponse(code = 503, message = "Too many thumbnails are being built, retry after the delay given in Retry-After header")
     })
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces({MediaType.APPLICATION_OCTET_STREAM})
@@ -483,11 +490,26 @@ public class DataResourceService extends ResourceService {
             return Response.status(Response.Status.NOT_FOUND.getStatusCode()).build();
         }
 
-        byte[] imageData = ImageResizer.getInstance().resize(
-                fs.readFileAsByteArray(Paths.get(description.getPath())),
-                scaledWidth,
-                scaledHeight
-        );
+        java.nio.file.Path filePath = Paths.get(description.getPath());
+
+        // Source modification time is part of the cache key, it's only known for files stored on local filesystem
+        long sourceLastModified = ThumbnailCache.UNKNOWN_LAST_MODIFIED;
+        java.nio.file.Path localFilePath = fs.getLocalFilePath(filePath);
+        if (localFilePath != null) {
+            sourceLastModified = Files.getLastModifiedTime(localFilePath).toMillis();
+        }
+
+        ThumbnailCache thumbnailCache = ThumbnailCache.getInstance(fs.getStorageBasePath().resolve(ThumbnailCache.THUMBNAILS_DIRECTORY));
+        byte[] imageData;
+        try {
+            // Source is only read once the resize has its place in the resize pool
+            imageData = thumbnailCache.getThumbnail(fileUri.toString(), scaledWidth, scaledHeight, sourceLastModified,
+                    () -> ImageResizer.getInstance().resize(() -> fs.readFileAsStream(filePath), scaledWidth, scaledHeight));
+        } catch (ImageResizerBusyException ex) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, ex.getRetryAfterSeconds())
+                    .build();
+        }
 
         return Response.ok(imageData, MediaType.APPLICATION_OCTET_STREAM)
                 .header("Content-Disposition", "attachment; filename=\"" + description.getFilename() + "\"") //optional
@@ -722,7 +744,8 @@ public class DataResourceService extends ResourceService {
             @ApiParam(value = "Search by object label", example = DocumentationAnnotation.EXAMPLE_SCIENTIFIC_OBJECT_ALIAS) @QueryParam("objectLabel") String objectLabel,
             @ApiParam(value = "Search by provenance uri", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_URI) @QueryParam("provenanceUri") @URL String provenanceUri,
             @ApiParam(value = "Search by provenance label", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_LABEL) @QueryParam("provenanceLabel") String provenanceLabel,
-            @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc
+            @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc,
+            @ApiParam(value = DocumentationAnnotation.PAGE_TOKEN) @QueryParam(GlobalWebserviceValues.PAGE_TOKEN) String pageToken
     ) throws Exception {
         ArrayList<DataSearchDTO> list = new ArrayList<>();
         ArrayList<Status> statusList = new ArrayList<>();
@@ -777,6 +800,7 @@ public class DataResourceService extends ResourceService {
         Integer totalCount = dataDAO.count(variableUri, startDate, endDate, objectsUris, provenancesUris);
 
         //5. Get data
+        dataDAO.setPageToken(pageToken);
         List<Data> dataList = dataDAO.find(page, pageSize, variableUri, startDate, endDate, objectsUris, provenancesUris);
 
         //6. Return result
@@ -814,6 +838,7 @@ public class DataResourceService extends ResourceService {
 
             // Return list of DTO
             getResponse = new ResultForm<>(pageSize, page, list, true, totalCount);
+            getResponse.setNextPageToken(dataDAO.getNextPageToken());
             getResponse.setStatus(statusList);
             return Response.status(Response.Status.OK).entity(getResponse).build();
         }
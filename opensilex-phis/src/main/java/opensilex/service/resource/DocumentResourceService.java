@@ -8,8 +8,6 @@
 //******************************************************************************
 package opensilex.service.resource;
 
-import com.twmacinta.util.MD5;
-
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -17,16 +15,13 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
@@ -51,7 +46,6 @@ import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.dao.DocumentMongoDAO;
@@ -62,9 +56,10 @@ import opensilex.service.ontology.Contexts;
 import opensilex.service.resource.dto.DocumentMetadataDTO;
 import opensilex.service.resource.validation.interfaces.Date;
 import opensilex.service.resource.validation.interfaces.URL;
-import opensilex.service.utils.DocumentWaitingCheck;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.ResourcesUtils;
+import opensilex.service.utils.UploadSessionRegistry;
+import opensilex.service.utils.UploadSessionRegistry.UploadSession;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.AbstractResultForm;
 import opensilex.service.view.brapi.form.ResponseFormGET;
@@ -99,11 +94,8 @@ public class DocumentResourceService extends ResourceService {
 
     final static Logger LOGGER = LoggerFactory.getLogger(DocumentResourceService.class);
 
-    // Gère les annotations en attene
-    public final static ExecutorService THREAD_POOL = Executors.newCachedThreadPool();
-    // Deux Maps qui contiennent les informations sur les annotations en attentes
-    public final static Map<String, Boolean> WAITING_ANNOT_FILE_CHECK = new HashMap<>();
-    public final static Map<String, DocumentMetadataDTO> WAITING_ANNOT_INFORMATION = new HashMap<>();
+    // Documents metadata waiting for their file
+    public final static UploadSessionRegistry<DocumentMetadataDTO> UPLOAD_SESSIONS = new UploadSessionRegistry<>("document");
 
     /**
      * Checks JSON annotations.
@@ -157,16 +149,14 @@ public class DocumentResourceService extends ResourceService {
                             .toString();
                     //Ajout URI en attente
                     uriList.add(uploadLink);
-                    WAITING_ANNOT_FILE_CHECK.put(docsUri, false); // Waiting file
-                    WAITING_ANNOT_INFORMATION.put(docsUri, docsM);
-                    // Run thread for waiting file
-                    THREAD_POOL.submit(new DocumentWaitingCheck(docsUri));
+                    // Wait for the file
+                    UPLOAD_SESSIONS.open(docsUri, docsM);
                 }
                 final Status waitingTimeStatus = new Status(
                         "Timeout",
                         StatusCodeMsg.INFO,
                         " Timeout :"
-                        + PropertiesFileManager.getConfigFileProperty("service", "waitingFileTime")
+                        + UploadSessionRegistry.getWaitingFileTime()
                         + " seconds");
                 checkAnnots.statusList.add(waitingTimeStatus);
                 postResponse = new ResponseFormPOST(checkAnnots.statusList);
@@ -181,9 +171,10 @@ public class DocumentResourceService extends ResourceService {
     }
 
     /**
-     * Address of the file to send.
+     * Address of the file to send, in one request or in several chunks with a Content-Range header
+     * (e.g. "bytes 0-1048575/5242880"). The MD5 checksum is computed while the file is received.
      *
-     * @param file File
+     * @param in File content
      * @param docUri Document URI
      * @param headers Request header
      * @param request
@@ -197,14 +188,16 @@ public class DocumentResourceService extends ResourceService {
             notes = DocumentationAnnotation.USER_ONLY_NOTES + " Not working from this documentation. Implement a client or use Postman application.")
     @ApiResponses(value = {
         @ApiResponse(code = 201, message = "Document file and document metadata saved", response = ResponseFormPOST.class),
+        @ApiResponse(code = 202, message = "Document file chunk received, waiting for next chunks", response = ResponseFormPOST.class),
         @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
         @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 416, message = "Document file chunk doesn't start at the end of the received content"),
         @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_SEND_DATA)})
     @ApiProtected
     @Consumes(MediaType.APPLICATION_OCTET_STREAM)
     @Produces(MediaType.APPLICATION_JSON)
     public Response postDocumentFile(
-            @ApiParam(value = "File to upload") File file,
+            @ApiParam(value = "File to upload") InputStream in,
             @ApiParam(value = "URI given from \"/documents\" path for upload") @QueryParam("uri") @URL String docUri,
             @Context HttpHeaders headers,
             @Context HttpServletRequest request) throws Exception {
@@ -212,66 +205,114 @@ public class DocumentResourceService extends ResourceService {
         List<Status> statusList = new ArrayList();
 
         // Existing annotation
-        if (!WAITING_ANNOT_FILE_CHECK.containsKey(docUri)) {
+        UploadSession<DocumentMetadataDTO> session = UPLOAD_SESSIONS.get(docUri);
+        if (session == null) {
             statusList.add(new Status("No waiting file", "Error", "No waiting file for the following uri : " + docUri));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
+        String contentRangeHeader = null;
+        if (headers != null) {
+            contentRangeHeader = headers.getHeaderString(UploadSessionRegistry.CONTENT_RANGE_HEADER);
+        }
+
+        // return the received content to resume the upload
+        if (UploadSessionRegistry.isContentRangeProbe(contentRangeHeader)) {
+            statusList.add(new Status("Chunk received", StatusCodeMsg.INFO, session.getReceivedBytes() + " octets received"));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.ACCEPTED)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        }
+
         if (headers != null && headers.getLength() <= 0) {
             statusList.add(new Status("File error", "Error", "File Size : " + headers.getLength() + " octets"));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
+        // Receive file content or chunk
+        long[] contentRange = null;
+        if (contentRangeHeader != null) {
+            contentRange = UploadSessionRegistry.parseContentRange(contentRangeHeader);
+            if (contentRange == null) {
+                statusList.add(new Status("File error", "Error", "Invalid Content-Range header : " + contentRangeHeader));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            }
+        }
+        try {
+            UPLOAD_SESSIONS.append(session, in, contentRange == null ? 0 : contentRange[0]);
+        } catch (IllegalArgumentException ex) {
+            statusList.add(new Status("File error", "Error", ex.getMessage()));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            statusList.add(new Status("File error", "Error", "An error occurred during file upload. Try to submit it again " + docUri));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        }
+
+        // Wait for next chunks
+        if (contentRange != null && session.getReceivedBytes() < contentRange[2]) {
+            statusList.add(new Status("Chunk received", StatusCodeMsg.INFO, session.getReceivedBytes() + " / " + contentRange[2] + " octets received"));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.ACCEPTED)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        }
+
         // Check md5 checksum 
-        String hash = getHash(file);
-        if (hash != null && !WAITING_ANNOT_INFORMATION.get(docUri).getChecksum().equals(hash)) {
+        DocumentMetadataDTO documentMetadata = session.getMetadata();
+        if (!documentMetadata.getChecksum().equals(session.getChecksum())) {
             statusList.add(new Status("MD5 error", "Error", "Checksum MD5 doesn't match. Corrupted File."));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
-        String media = WAITING_ANNOT_INFORMATION.get(docUri).getDocumentType();
+        String media = documentMetadata.getDocumentType();
         media = media.substring(media.lastIndexOf("#") + 1, media.length());
 
-        DocumentRdf4jDAO documentsDao = new DocumentRdf4jDAO(sparql);
-        if (request.getRemoteAddr() != null) {
-            documentsDao.remoteUserAdress = request.getRemoteAddr();
-        }
-        documentsDao.user = userSession.getUser();
-        final POSTResultsReturn insertAnnotationJSON
-                = documentsDao.insert(Arrays.asList(WAITING_ANNOT_INFORMATION.get(docUri)), file);
-
-        postResponse = new ResponseFormPOST(insertAnnotationJSON.statusList);
-
-        if (insertAnnotationJSON.getDataState()) { // JSON file state
-            WAITING_ANNOT_FILE_CHECK.remove(docUri);
-            WAITING_ANNOT_INFORMATION.remove(docUri);
-            if (insertAnnotationJSON.getHttpStatus() == Response.Status.CREATED) {
-                postResponse.getMetadata().setDatafiles((ArrayList) insertAnnotationJSON.createdResources);
-                final URI newUri = new URI(uri.getPath());
-
-                return Response
-                        .status(insertAnnotationJSON.getHttpStatus())
-                        .location(newUri)
-                        .entity(postResponse)
-                        .build();
-            } else {
-                return Response.status(insertAnnotationJSON.getHttpStatus()).entity(postResponse).build();
-            }
+        if (!UPLOAD_SESSIONS.acquire(session)) {
+            statusList.add(new Status("File error", "Error", "The file is already being saved : " + docUri));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.CONFLICT).entity(postResponse).build();
         }
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ResponseFormPOST()).build();
-    }
 
-    private String getHash(File in) {
-        String hash = null;
         try {
-            hash = MD5.asHex(MD5.getHash(in)); // e.g 106fa487baa1728083747de1c6df73e9
-        } catch (IOException ex) {
-            LOGGER.error(ex.getMessage(), ex);
+            DocumentRdf4jDAO documentsDao = new DocumentRdf4jDAO(sparql);
+            if (request.getRemoteAddr() != null) {
+                documentsDao.remoteUserAdress = request.getRemoteAddr();
+            }
+            documentsDao.user = userSession.getUser();
+            final POSTResultsReturn insertAnnotationJSON
+                    = documentsDao.insert(Arrays.asList(documentMetadata), session.getFile().toFile());
+
+            postResponse = new ResponseFormPOST(insertAnnotationJSON.statusList);
+
+            if (insertAnnotationJSON.getDataState()) { // JSON file state
+                UPLOAD_SESSIONS.close(docUri);
+                if (insertAnnotationJSON.getHttpStatus() == Response.Status.CREATED) {
+                    postResponse.getMetadata().setDatafiles((ArrayList) insertAnnotationJSON.createdResources);
+                    final URI newUri = new URI(uri.getPath());
+
+                    return Response
+                            .status(insertAnnotationJSON.getHttpStatus())
+                            .location(newUri)
+                            .entity(postResponse)
+                            .build();
+                } else {
+                    return Response.status(insertAnnotationJSON.getHttpStatus()).entity(postResponse).build();
+                }
+            }
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ResponseFormPOST()).build();
+        } finally {
+            UPLOAD_SESSIONS.release(session);
         }
-        return hash;
     }
 
     @GET
@@ -206,7 +206,8 @@ public class EnvironmentResourceService extends ResourceService {
             @ApiParam(value = "Search by sensor uri", example = DocumentationAnnotation.EXAMPLE_SENSOR_URI) @QueryParam("sensor") @URL String sensor,
             @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc,
             @ApiParam(value = DocumentationAnnotation.PAGE_SIZE) @QueryParam(GlobalWebserviceValues.PAGE_SIZE) @DefaultValue(DefaultBrapiPaginationValues.PAGE_SIZE) @Min(0) int pageSize,
-            @ApiParam(value = DocumentationAnnotation.PAGE) @QueryParam(GlobalWebserviceValues.PAGE) @DefaultValue(DefaultBrapiPaginationValues.PAGE) @Min(0) int page
+            @ApiParam(value = DocumentationAnnotation.PAGE) @QueryParam(GlobalWebserviceValues.PAGE) @DefaultValue(DefaultBrapiPaginationValues.PAGE) @Min(0) int page,
+            @ApiParam(value = DocumentationAnnotation.PAGE_TOKEN) @QueryParam(GlobalWebserviceValues.PAGE_TOKEN) String pageToken
     ) throws Exception {
         // 1. Initialize environmentDAO with parameters
         EnvironmentMeasureDAO environmentMeasureDAO = new EnvironmentMeasureDAO(sparql);
@@ -221,6 +222,7 @@ public class EnvironmentResourceService extends ResourceService {
         environmentMeasureDAO.user = userSession.getUser();
         environmentMeasureDAO.setPage(page);
         environmentMeasureDAO.setPageSize(pageSize);
+        environmentMeasureDAO.setPageToken(pageToken);
 
         // 2. Get environment measures count
         int totalCount = environmentMeasureDAO.count();
@@ -249,6 +251,7 @@ public class EnvironmentResourceService extends ResourceService {
 
             // Return list of DTO
             getResponse = new ResultForm<>(environmentMeasureDAO.getPageSize(), environmentMeasureDAO.getPage(), list, true, totalCount);
+            getResponse.setNextPageToken(environmentMeasureDAO.getNextPageToken());
             getResponse.setStatus(statusList);
             return Response.status(Response.Status.OK).entity(getResponse).build();
         }
@@ -7,14 +7,13 @@
 //******************************************************************************
 package opensilex.service.resource;
 
-import com.twmacinta.util.MD5;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
@@ -26,11 +25,7 @@ import java.time.Year;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -61,7 +56,10 @@ import opensilex.service.ontology.Oeso;
 import opensilex.service.resource.dto.ImageMetadataDTO;
 import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
-import opensilex.service.utils.ImageWaitingCheck;
+import opensilex.service.utils.UploadSessionBusyException;
+import opensilex.service.utils.UploadSessionClosedException;
+import opensilex.service.utils.UploadSessionRegistry;
+import opensilex.service.utils.UploadSessionRegistry.UploadSession;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.view.brapi.Status;
@@ -93,14 +91,8 @@ public class ImageResourceService extends ResourceService {
     @Context
     UriInfo uri;
 
-    // For the waiting annotations
-    public final static ExecutorService THREAD_POOL = Executors.newCachedThreadPool();
-
-    // contains the informations abour the waiting annotations
-    public final static Map<String, Boolean> WAITING_METADATA_FILE_CHECK = new HashMap<>();
-
-    // contains the informations abour the waiting annotations
-    public final static Map<String, ImageMetadata> WAITING_METADATA_INFORMATION = new HashMap<>();
+    // contains the images metadata waiting for their file
+    public final static UploadSessionRegistry<ImageMetadata> UPLOAD_SESSIONS = new UploadSessionRegistry<>("image");
 
     /**
      * Checks images metadata.
@@ -169,12 +161,10 @@ public class ImageResourceService extends ResourceService {
                         final String uploadLink = uploadPath.path("images").path("upload").queryParam("uri", imageUri).toString();
                         imagesUploadLinks.add(uploadLink);
 
-                        WAITING_METADATA_FILE_CHECK.put(imageUri, false); // file waiting
                         ImageMetadata imageMetadataToSave = imageMetadata.createObjectFromDTO();
                         imageMetadataToSave.setUri(imageUri);
-                        WAITING_METADATA_INFORMATION.put(imageUri, imageMetadataToSave);
-                        // Launch the thread for the expected file
-                        THREAD_POOL.submit(new ImageWaitingCheck(imageUri));
+                        // Wait for the expected file
+                        UPLOAD_SESSIONS.open(imageUri, imageMetadataToSave);
                     } catch (Exception ex) { // In the images case, no exception should be raised
                         java.util.logging.Logger.getLogger(ImageResourceService.class.getName()).log(Level.SEVERE, null, ex);
                     }
@@ -182,7 +172,7 @@ public class ImageResourceService extends ResourceService {
                 final Status waitingTimeStatus = new Status(
                         StatusCodeMsg.TIMEOUT,
                         StatusCodeMsg.INFO,
-                        " Timeout :" + PropertiesFileManager.getConfigFileProperty("service", "waitingFileTime") + " seconds");
+                        " Timeout :" + UploadSessionRegistry.getWaitingFileTime() + " seconds");
                 checkImageMetadata.statusList.add(waitingTimeStatus);
                 postResponse = new ResponseFormPOST(checkImageMetadata.statusList);
                 postResponse.getMetadata().setDatafiles(imagesUploadLinks);
@@ -195,22 +185,6 @@ public class ImageResourceService extends ResourceService {
         }
     }
 
-    /**
-     * Calculates the hash of a file.
-     *
-     * @param file the file we want the hash
-     * @return the hash file
-     */
-    private String getHash(File file) {
-        String hash = null;
-        try {
-            hash = MD5.asHex(MD5.getHash(file)); // e.g: 106fa487baa1728083747de1c6df73e9
-        } catch (IOException ex) {
-            LOGGER.error(ex.getMessage(), ex);
-        }
-        return hash;
-    }
-
     /**
      * Calculates the server image directory for an image.
      *
@@ -247,7 +221,10 @@ public class ImageResourceService extends ResourceService {
     private FileStorageService fs;
 
     /**
-     * @param in File
+     * Receives the image file, in one request or in several chunks with a Content-Range header
+     * (e.g. "bytes 0-1048575/5242880"). The MD5 checksum is computed while the file is received.
+     *
+     * @param in File content
      * @param imageUri Metadata uri
      * @param headers
      * @param request
@@ -262,14 +239,17 @@ public class ImageResourceService extends ResourceService {
             + " Not working from this documentation. Implement a client or use Postman application.")
     @ApiResponses(value = {
         @ApiResponse(code = 201, message = "Image file and image metadata saved", response = ResponseFormPOST.class),
+        @ApiResponse(code = 202, message = "Image file chunk received, waiting for next chunks", response = ResponseFormPOST.class),
         @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
         @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 409, message = "Image file chunk is already being received or file is being saved"),
+        @ApiResponse(code = 416, message = "Image file chunk doesn't start at the end of the received content"),
         @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_SEND_DATA)})
       @ApiProtected
     @Consumes(MediaType.APPLICATION_OCTET_STREAM)
     @Produces(MediaType.APPLICATION_JSON)
     public Response postImageFile(
-            @ApiParam(value = "File to upload") File in,
+            @ApiParam(value = "File to upload") InputStream in,
             @ApiParam(value = "Uri given from \"images\" path for upload") @QueryParam("uri") @URL @Required String imageUri,
             @Context HttpHeaders headers,
             @Context HttpServletRequest request) throws URISyntaxException, ParseException {
@@ -277,48 +257,117 @@ public class ImageResourceService extends ResourceService {
         List<Status> statusList = new ArrayList<>();
 
         // The file metadata exists
-        if (!WAITING_METADATA_FILE_CHECK.containsKey(imageUri)) {
+        UploadSession<ImageMetadata> session = UPLOAD_SESSIONS.get(imageUri);
+        if (session == null) {
             statusList.add(new Status("No waiting image", StatusCodeMsg.ERR, "No waiting file for the following uri : " + imageUri));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
+        String contentRangeHeader = null;
+        if (headers != null) {
+            contentRangeHeader = headers.getHeaderString(UploadSessionRegistry.CONTENT_RANGE_HEADER);
+        }
+
+        // return the received content to resume the upload
+        if (UploadSessionRegistry.isContentRangeProbe(contentRangeHeader)) {
+            statusList.add(new Status("Chunk received", StatusCodeMsg.INFO, session.getReceivedBytes() + " octets received"));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.ACCEPTED)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        }
+
         if (headers != null && headers.getLength() <= 0) {
             statusList.add(new Status(StatusCodeMsg.FILE_ERROR, StatusCodeMsg.ERR, "File Size : " + headers.getLength() + " octets"));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
+        // receive the file content or chunk
+        long[] contentRange = null;
+        if (contentRangeHeader != null) {
+            contentRange = UploadSessionRegistry.parseContentRange(contentRangeHeader);
+            if (contentRange == null) {
+                statusList.add(new Status(StatusCodeMsg.FILE_ERROR, StatusCodeMsg.ERR, "Invalid Content-Range header : " + contentRangeHeader));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            }
+        }
+        try {
+            UPLOAD_SESSIONS.append(session, in, contentRange == null ? 0 : contentRange[0]);
+        } catch (UploadSessionClosedException ex) {
+            statusList.add(new Status("No waiting image", StatusCodeMsg.ERR, ex.getMessage()));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        } catch (UploadSessionBusyException ex) {
+            statusList.add(new Status("Image upload error", StatusCodeMsg.ERR, ex.getMessage()));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.CONFLICT).entity(postResponse).build();
+        } catch (IllegalArgumentException ex) {
+            statusList.add(new Status(StatusCodeMsg.FILE_ERROR, StatusCodeMsg.ERR, ex.getMessage()));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            statusList.add(new Status(
+                    "Image upload error",
+                    StatusCodeMsg.ERR,
+                    "An error occurred during file upload. Try to submit it again " + imageUri));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        }
+
+        // wait for the next chunks
+        if (contentRange != null && session.getReceivedBytes() < contentRange[2]) {
+            statusList.add(new Status("Chunk received", StatusCodeMsg.INFO, session.getReceivedBytes() + " / " + contentRange[2] + " octets received"));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.ACCEPTED)
+                    .header("Range", UploadSessionRegistry.getReceivedRange(session))
+                    .entity(postResponse).build();
+        }
+
         // check the checksum
-        String hash = getHash(in);
-        if (hash != null && !WAITING_METADATA_INFORMATION.get(imageUri).getFileInformations().getChecksum().equals(hash)) {
+        ImageMetadata imageMetadata = session.getMetadata();
+        if (!imageMetadata.getFileInformations().getChecksum().equals(session.getChecksum())) {
             statusList.add(new Status(StatusCodeMsg.MD5_ERROR, StatusCodeMsg.ERR, "Checksum MD5 doesn't match. Corrupted File."));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
 
-        final String serverFileName = getImageName(imageUri) + "." + WAITING_METADATA_INFORMATION.get(imageUri).getFileInformations().getExtension();
+        final String serverFileName = getImageName(imageUri) + "." + imageMetadata.getFileInformations().getExtension();
         final String serverImagesDirectory = getServerImagesDirectory();
         final String webAccessImagesDirectory = getWebAccessImagesDirectory();
 
+        if (!UPLOAD_SESSIONS.acquire(session)) {
+            if (session.isClosed()) {
+                statusList.add(new Status("No waiting image", StatusCodeMsg.ERR, "No waiting file for the following uri : " + imageUri));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            }
+            statusList.add(new Status("Image upload error", StatusCodeMsg.ERR, "The file is already being saved : " + imageUri));
+            postResponse = new ResponseFormPOST(statusList);
+            return Response.status(Response.Status.CONFLICT).entity(postResponse).build();
+        }
+
         try {
-            WAITING_METADATA_FILE_CHECK.put(imageUri, Boolean.TRUE);
             fs.createDirectories(Paths.get(serverImagesDirectory));
-            fs.writeFile(Paths.get(serverImagesDirectory, serverFileName), in);
+            fs.writeFile(Paths.get(serverImagesDirectory, serverFileName), session.getFile().toFile());
 
-            WAITING_METADATA_INFORMATION.get(imageUri)
+            imageMetadata
                     .getFileInformations()
                     .setServerFilePath(webAccessImagesDirectory + URLEncoder.encode(serverFileName, StandardCharsets.UTF_8.toString()));
 
             ImageMetadataMongoDAO imageMetadataMongoDao = new ImageMetadataMongoDAO(sparql);
             imageMetadataMongoDao.user = userSession.getUser();
 
-            final POSTResultsReturn insertMetadata = imageMetadataMongoDao.insert(Arrays.asList(WAITING_METADATA_INFORMATION.get(imageUri)));
+            final POSTResultsReturn insertMetadata = imageMetadataMongoDao.insert(Arrays.asList(imageMetadata));
             postResponse = new ResponseFormPOST(insertMetadata.statusList);
 
             if (insertMetadata.getDataState()) {
-                WAITING_METADATA_FILE_CHECK.remove(imageUri);
-                WAITING_METADATA_INFORMATION.remove(imageUri);
+                UPLOAD_SESSIONS.close(imageUri);
 
                 if (insertMetadata.getHttpStatus() == Response.Status.CREATED) {
                     postResponse.getMetadata().setDatafiles((ArrayList) insertMetadata.createdResources);
@@ -336,6 +385,8 @@ public class ImageResourceService extends ResourceService {
                     "An error occurred during file upload. Try to submit it again " + imageUri));
             postResponse = new ResponseFormPOST(statusList);
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        } finally {
+            UPLOAD_SESSIONS.release(session);
         }
     }
 
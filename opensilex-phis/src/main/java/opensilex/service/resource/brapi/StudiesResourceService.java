@@ -19,7 +19,10 @@ import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.validation.constraints.Min;
@@ -52,6 +55,7 @@ import opensilex.service.ontology.Oeso;
 import opensilex.service.resource.ResourceService;
 import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
+import opensilex.service.utils.PageRanges;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.AbstractResultForm;
 import opensilex.service.view.brapi.form.BrapiMultiResponseForm;
@@ -710,16 +714,37 @@ public class StudiesResourceService extends ResourceService implements BrapiCall
     private Response getStudyObservations(String studyDbId, List<String> variableURIs, int limit, int page) {
         ArrayList<Status> statusList = new ArrayList<>();
         try {
-            ArrayList<BrapiObservationDTO> observations = getObservationsList(studyDbId, variableURIs);
+            ScientificObjectRdf4jDAO objectDAO = new ScientificObjectRdf4jDAO(sparql);
+            ArrayList<ScientificObject> objectsList = objectDAO.find(null, null, null, null, studyDbId, null, false, null, null);
+            Map<String, ScientificObject> objectsByURI = new HashMap<>();
+            for (ScientificObject object : objectsList) {
+                objectsByURI.put(object.getUri(), object);
+            }
+
+            List<Variable> variablesList = getObservationVariables(variableURIs);
+
+            //1. Count the observations of each variable to define the total count and the variables of the page
+            DataDAO dataDAO = new DataDAO(sparql);
+            long[] variablesCounts = new long[variablesList.size()];
+            long totalCount = 0;
+            if (!objectsByURI.isEmpty()) {
+                for (int i = 0; i < variablesList.size(); i++) {
+                    variablesCounts[i] = dataDAO.countByObjects(variablesList.get(i).getUri(), objectsByURI.keySet());
+                    totalCount += variablesCounts[i];
+                }
+            }
 
-            if (observations.isEmpty()) {
-                BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(0, 0, observations, true);
+            if (totalCount == 0) {
+                BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(0, 0, new ArrayList<>(), true);
                 return noResultFound(getResponse, statusList);
-            } else {
-                BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(limit, page, observations, false);
-                return Response.status(Response.Status.OK).entity(getResponse).build();
             }
 
+            //2. Read only the observations of the page, variables are read in order from the page offset
+            ArrayList<BrapiObservationDTO> observations = getObservationsPage(dataDAO, variablesList, variablesCounts, objectsByURI, limit, page);
+
+            BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(limit, page, observations, true, (int) totalCount);
+            return Response.status(Response.Status.OK).entity(getResponse).build();
+
         } catch (Exception e) {
             AbstractResultForm postResponse = new ResponseFormPOST(new Status(StatusCodeMsg.REQUEST_ERROR, StatusCodeMsg.ERR, e.getMessage()));
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(postResponse).build();
@@ -728,27 +753,18 @@ public class StudiesResourceService extends ResourceService implements BrapiCall
     }
 
     /**
-     * Retrieve the observations list corresponding to the user query
+     * Retrieve the variables of the observations, sorted by URI so the observations order is stable between pages
      *
-     * @param studyDAO     the study for which we want to retrieve the linked observations
-     * @param variableURIs to filter the observations on a list of variableURIs defined by the user
-     * @param limit        pagesize
-     * @param page         the page number
-     * @return observations list
+     * @param variableURIs variables defined by the user, all variables if empty
+     * @return variables list
      */
-    private ArrayList<BrapiObservationDTO> getObservationsList(String studyDbId, List<String> variableURIs) throws Exception {
-
-        ArrayList<BrapiObservationDTO> observations = new ArrayList();
-        ScientificObjectRdf4jDAO objectDAO = new ScientificObjectRdf4jDAO(sparql);
-
-        ArrayList<ScientificObject> objectsList = objectDAO.find(null, null, null, null, studyDbId, null, false, null, null);
-
-        ArrayList<Variable> variablesList = new ArrayList();
+    private List<Variable> getObservationVariables(List<String> variableURIs) throws Exception {
+        List<Variable> variablesList = new ArrayList<>();
 
         if (variableURIs.isEmpty()) {
             VariableDAO variableDaoSesame = new VariableDAO(sparql);
             //if variableURIs is empty, we look for all variables observations
-            variablesList = variableDaoSesame.getAll(false, false);
+            variablesList.addAll(variableDaoSesame.getAll(false, false));
 
         } else {
             //in case a variable uri is duplicated, we keep distinct uris
@@ -765,51 +781,61 @@ public class StudiesResourceService extends ResourceService implements BrapiCall
             }
         }
 
-        for (Variable variable : variablesList) {
-            DataDAO dataDAOMongo = new DataDAO(sparql);
-            dataDAOMongo.variableUri = variable.getUri();
-            ArrayList<BrapiObservationDTO> observationsPerVariable = new ArrayList();
-            for (ScientificObject object : objectsList) {
-                dataDAOMongo.objectUri = object.getUri();
-                ArrayList<Data> dataList = dataDAOMongo.allPaginate();
-                ArrayList<BrapiObservationDTO> observationsPerVariableAndObject = getObservationsFromData(dataList, variable, object);
-                observationsPerVariable.addAll(observationsPerVariableAndObject);
-            }
-            observations.addAll(observationsPerVariable);
-        }
-
-        return observations;
+        variablesList.sort(Comparator.comparing(Variable::getUri));
+        return variablesList;
     }
 
     /**
-     * Fill the observations attributes with Data, Variable and ScientificObject attributes
+     * Retrieve the observations of a page. Observations are sorted by variable, then by date.
+     * Variables before the page offset are skipped with their count (see {@link PageRanges}), then observations are read 
+     * with one query per variable of the page, filtered on all the study objects.
      *
-     * @param dataList list of data corresponding to the variable and the scientificObject
-     * @param variable variable linked to the dataList
-     * @param object   scientific object linked to the dataList
+     * @param dataDAO         data DAO
+     * @param variablesList   sorted variables
+     * @param variablesCounts number of observations of each variable
+     * @param objectsByURI    study objects by URI
+     * @param limit           pagesize
+     * @param page            the page number
      * @return observations list
      */
-    private ArrayList<BrapiObservationDTO> getObservationsFromData(ArrayList<Data> dataList, Variable variable, ScientificObject object) {
+    private ArrayList<BrapiObservationDTO> getObservationsPage(DataDAO dataDAO, List<Variable> variablesList, long[] variablesCounts, Map<String, ScientificObject> objectsByURI, int limit, int page) {
         SimpleDateFormat df = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString());
-        ArrayList<BrapiObservationDTO> observations = new ArrayList();
-
-        for (Data data : dataList) {
-            BrapiObservationDTO observation = new BrapiObservationDTO();
-            observation.setObservationUnitDbId(object.getUri());
-            observation.setObservationUnitName(object.getLabel());
-            observation.setObservationLevel(object.getRdfType());
-            observation.setStudyDbId(object.getExperiment());
-            observation.setObservationVariableDbId(variable.getUri());
-            observation.setObservationVariableName(variable.getLabel());
-            observation.setObservationDbId(data.getUri());
-            observation.setObservationTimeStamp(df.format(data.getDate()));
-            observation.setValue(data.getValue().toString());
-            observations.add(observation);
+        ArrayList<BrapiObservationDTO> observations = new ArrayList<>();
+
+        for (PageRanges.Range range : PageRanges.get(variablesCounts, limit, page)) {
+            Variable variable = variablesList.get(range.getSource());
+            dataDAO.forEachByObjects(variable.getUri(), objectsByURI.keySet(), range.getSkip(), range.getLimit(), (data) -> {
+                observations.add(getObservationFromData(df, data, variable, objectsByURI.get(data.getObjectUri())));
+            });
         }
 
         return observations;
     }
 
+    /**
+     * Fill the observation attributes with Data, Variable and ScientificObject attributes
+     *
+     * @param df       observation date format
+     * @param data     data of the observation
+     * @param variable variable linked to the data
+     * @param object   scientific object linked to the data
+     * @return observation
+     */
+    private BrapiObservationDTO getObservationFromData(SimpleDateFormat df, Data data, Variable variable, ScientificObject object) {
+        BrapiObservationDTO observation = new BrapiObservationDTO();
+        observation.setObservationUnitDbId(object.getUri());
+        observation.setObservationUnitName(object.getLabel());
+        observation.setObservationLevel(object.getRdfType());
+        observation.setStudyDbId(object.getExperiment());
+        observation.setObservationVariableDbId(variable.getUri());
+        observation.setObservationVariableName(variable.getLabel());
+        observation.setObservationDbId(data.getUri());
+        observation.setObservationTimeStamp(df.format(data.getDate()));
+        observation.setValue(data.getValue().toString());
+
+        return observation;
+    }
+
     /**
      * Retrieve the observationUnits information from scientificObjects list and experiment
      *
@@ -63,6 +63,16 @@ public class ResultForm<T> {
         return result;
     }
     
+    /**
+     * Sets the token of the next page in the pagination metadata, if any.
+     * @param nextPageToken 
+     */
+    public void setNextPageToken(String nextPageToken) {
+        if (metadata.getPagination() != null) {
+            metadata.getPagination().setNextPageToken(nextPageToken);
+        }
+    }
+    
     public void setStatus(List<Status> status){
         metadata.setStatus(status);
     }
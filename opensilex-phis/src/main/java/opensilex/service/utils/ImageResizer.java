@@ -2,28 +2,91 @@ package opensilex.service.utils;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tika.Tika;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * @author rcolin A utility class for resizing picture
+ * <pre>
+ * A utility class for resizing picture.
+ *
+ * Pictures are decoded in process with source subsampling sized to the target, so full resolution
+ * pictures are never loaded in memory. Resizes run on a bounded worker pool with a bounded queue,
+ * when the queue is full a {@link ImageResizerBusyException} is thrown to be answered with a 503 status.
+ * Queue wait and resize times are available through the metrics getters and logged periodically while resizes are done.
+ * </pre>
+ *
+ * @author rcolin
  */
 public class ImageResizer {
 
+    private final static Logger LOGGER = LoggerFactory.getLogger(ImageResizer.class);
+
     private static ImageResizer _INSTANCE;
+
+    /**
+     * Maximum number of resizes waiting for a worker
+     */
+    private final static int MAX_QUEUED_RESIZES = 16;
+
+    /**
+     * Delay in seconds given to clients in Retry-After header when resize queue is full
+     */
+    public final static int RETRY_AFTER_SECONDS = 5;
+
+    /**
+     * Period in minutes between two logs of resize metrics
+     */
+    private final static int METRICS_LOG_PERIOD_MINUTES = 5;
+
+    private final ThreadPoolExecutor resizeExecutor;
+
+    /**
+     * Places of the worker pool (workers and queue), reserved before a resize is submitted
+     */
+    private final Semaphore resizeSlots;
+
+    private final ScheduledThreadPoolExecutor metricsScheduler;
+
+    private long lastLoggedResizeCount = 0;
+    private long lastLoggedRejectedCount = 0;
+
+    private final AtomicLong resizeCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong maxQueueWaitMs = new AtomicLong();
+    private final AtomicLong totalResizeMs = new AtomicLong();
+    private final AtomicLong maxResizeMs = new AtomicLong();
     private final Path RESIZED_PICTURE_TMP_DIR;
 
     // use Tika for JPEG picture recognition
@@ -41,23 +104,50 @@ public class ImageResizer {
 
         tika = new Tika();
 
-        // determine if we can use the command convert, else use the java API based method
-        RESIZE_METHOD resizeMethod;
-        Process testConvertProcess = null;
-        try {
-            testConvertProcess = new ProcessBuilder(CONVERT_COMMAND, "-version").start();
-            checkErrorFromProcess(testConvertProcess);
-            resizeMethod = RESIZE_METHOD.CONVERT_COMMAND;
-        } catch (Exception e) {
-            if (testConvertProcess != null && testConvertProcess.isAlive()) {
-                testConvertProcess.destroy();
-            }
-            resizeMethod = RESIZE_METHOD.JAVA_API;
+        // in process resize with subsampling is used by default, convert command must be explicitly requested
+        defaultResizeMethod = RESIZE_METHOD.JAVA_API;
+
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        resizeSlots = new Semaphore(workers + MAX_QUEUED_RESIZES);
+        AtomicInteger threadCount = new AtomicInteger();
+        resizeExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_RESIZES),
+                (Runnable r) -> {
+                    Thread t = new Thread(r, "opensilex-image-resizer-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        metricsScheduler = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+            Thread t = new Thread(r, "opensilex-image-resizer-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        metricsScheduler.scheduleAtFixedRate(this::logMetrics, METRICS_LOG_PERIOD_MINUTES, METRICS_LOG_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Log resize metrics if resizes have been done or rejected since last log.
+     */
+    private void logMetrics() {
+        long count = getResizeCount();
+        long rejected = getRejectedCount();
+        if (count == lastLoggedResizeCount && rejected == lastLoggedRejectedCount) {
+            return;
         }
-        defaultResizeMethod = resizeMethod;
+
+        LOGGER.info(String.format("Picture resizes: %d done (%d since last log), %d rejected, %d queued"
+                + " - queue wait avg %.1f ms max %d ms - resize avg %.1f ms max %d ms",
+                count, count - lastLoggedResizeCount, rejected, getQueueSize(),
+                getAverageQueueWaitMs(), getMaxQueueWaitMs(), getAverageResizeMs(), getMaxResizeMs()));
+
+        lastLoggedResizeCount = count;
+        lastLoggedRejectedCount = rejected;
     }
 
-    public static ImageResizer getInstance() throws IOException {
+    public synchronized static ImageResizer getInstance() throws IOException {
         if (_INSTANCE == null) {
             _INSTANCE = new ImageResizer();
         }
@@ -80,15 +170,171 @@ public class ImageResizer {
 
     public byte[] resize(RESIZE_METHOD method, byte[] img, int scaledWidth, int scaledHeight) throws IOException {
         if (method.equals(RESIZE_METHOD.CONVERT_COMMAND)) {
-            return getResizedImageWithConvertCmd(img, scaledWidth, scaledHeight);
+            return submit(() -> getResizedImageWithConvertCmd(img, scaledWidth, scaledHeight));
         }
-        return getResizedImageWithJavaAPI(img, scaledWidth, scaledHeight);
+        return submit(() -> getResizedImageWithJavaAPI(img, scaledWidth, scaledHeight));
     }
 
     public byte[] resize(byte[] img, int scaledWidth, int scaledHeight) throws IOException {
         return this.resize(defaultResizeMethod, img, scaledWidth, scaledHeight);
     }
 
+    /**
+     * Resize a picture read from a stream, the source picture is decoded with subsampling
+     * so its full resolution content is never loaded in memory.
+     *
+     * @param img stream on the source picture, not closed by this method
+     * @return the content of the created resized image
+     * @throws ImageResizerBusyException if too many resizes are already waiting
+     */
+    public byte[] resize(InputStream img, int scaledWidth, int scaledHeight) throws IOException {
+        return submit(() -> getResizedImageWithSubsampling(img, scaledWidth, scaledHeight));
+    }
+
+    /**
+     * Source of a picture to resize, opened once the resize has its place in the worker pool.
+     */
+    @FunctionalInterface
+    public interface PictureSource {
+
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Resize a picture opened from the given source, like {@link #resize(InputStream, int, int)}.
+     * The source is only opened once a place is reserved in the worker pool, so a rejected resize doesn't read it.
+     *
+     * @param source source picture, its stream is closed by this method
+     * @return the content of the created resized image
+     * @throws ImageResizerBusyException if too many resizes are already waiting
+     */
+    public byte[] resize(PictureSource source, int scaledWidth, int scaledHeight) throws IOException {
+        reserveSlot();
+        try (InputStream img = source.open()) {
+            return execute(() -> getResizedImageWithSubsampling(img, scaledWidth, scaledHeight));
+        } finally {
+            resizeSlots.release();
+        }
+    }
+
+    /**
+     * Reserve a place for a resize in the worker pool, running or queued.
+     *
+     * @throws ImageResizerBusyException if all places are taken
+     */
+    private void reserveSlot() throws ImageResizerBusyException {
+        if (!resizeSlots.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new ImageResizerBusyException(RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Run a resize on the worker pool and wait for its result.
+     */
+    private byte[] submit(Callable<byte[]> resize) throws IOException {
+        reserveSlot();
+        try {
+            return execute(resize);
+        } finally {
+            resizeSlots.release();
+        }
+    }
+
+    /**
+     * Run a resize which place is reserved on the worker pool and wait for its result.
+     */
+    private byte[] execute(Callable<byte[]> resize) throws IOException {
+        long submitTime = System.currentTimeMillis();
+        Future<byte[]> future;
+        try {
+            future = resizeExecutor.submit(() -> {
+                long startTime = System.currentTimeMillis();
+                record(startTime - submitTime, totalQueueWaitMs, maxQueueWaitMs);
+
+                byte[] result = resize.call();
+
+                long resizeTime = System.currentTimeMillis() - startTime;
+                record(resizeTime, totalResizeMs, maxResizeMs);
+                resizeCount.incrementAndGet();
+                LOGGER.debug("Picture resized in " + resizeTime + " ms after " + (startTime - submitTime) + " ms in queue");
+                return result;
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedCount.incrementAndGet();
+            throw new ImageResizerBusyException(RETRY_AFTER_SECONDS);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private static void record(long duration, AtomicLong total, AtomicLong max) {
+        total.addAndGet(duration);
+        max.accumulateAndGet(duration, Math::max);
+    }
+
+    /**
+     * @return number of resizes done
+     */
+    public long getResizeCount() {
+        return resizeCount.get();
+    }
+
+    /**
+     * @return number of resizes rejected because queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return number of resizes waiting for a worker
+     */
+    public int getQueueSize() {
+        return resizeExecutor.getQueue().size();
+    }
+
+    /**
+     * @return average time spent in queue before resize in milliseconds
+     */
+    public double getAverageQueueWaitMs() {
+        long count = resizeCount.get();
+        return count == 0 ? 0 : (double) totalQueueWaitMs.get() / count;
+    }
+
+    /**
+     * @return maximum time spent in queue before resize in milliseconds
+     */
+    public long getMaxQueueWaitMs() {
+        return maxQueueWaitMs.get();
+    }
+
+    /**
+     * @return average resize time in milliseconds
+     */
+    public double getAverageResizeMs() {
+        long count = resizeCount.get();
+        return count == 0 ? 0 : (double) totalResizeMs.get() / count;
+    }
+
+    /**
+     * @return maximum resize time in milliseconds
+     */
+    public long getMaxResizeMs() {
+        return maxResizeMs.get();
+    }
+
     private void checkErrorFromProcess(Process process) throws IOException {
 
         InputStream errorStream = process.getErrorStream();
@@ -117,21 +363,31 @@ public class ImageResizer {
     private static final String CONVERT_JPEG_SIZE_OPTION = "jpeg:size=";
 
     private byte[] getResizedImageWithConvertCmd(byte[] img, int scaledWidth, int scaledHeight) throws IOException {
-        Process convertProcess = null;
         Path srcImagePath = null;
-        Path scaledImagePath = null;
         try {
             srcImagePath = Files.createTempFile(Paths.get(RESIZED_PICTURE_TMP_DIR.toString()), null, null);
+            Files.write(srcImagePath, img);
+
+            return getResizedImageWithConvertCmd(srcImagePath, scaledWidth, scaledHeight);
+        } finally {
+            if(srcImagePath != null){
+                Files.deleteIfExists(srcImagePath);
+            }
+        }
+    }
 
+    private byte[] getResizedImageWithConvertCmd(Path srcImagePath, int scaledWidth, int scaledHeight) throws IOException {
+        Process convertProcess = null;
+        Path scaledImagePath = null;
+        try {
             // create tmp file
             scaledImagePath = Files.createTempFile(Paths.get(RESIZED_PICTURE_TMP_DIR.toString()), null, null);
-            Files.write(scaledImagePath, img);
 
             List<String> command = new ArrayList<>();
             command.add(CONVERT_COMMAND);
 
             // use convert optimization for JPEG file, could be very efficient for large jpeg file
-            String fileExt = tika.detect(img);
+            String fileExt = tika.detect(srcImagePath.toFile());
 
             if (fileExt.equals(JPEG_MIME_TYPE) || fileExt.equals(JPG_MIME_TYPE)) {
                 int jpegWidth = scaledWidth * 2;
@@ -155,9 +411,6 @@ public class ImageResizer {
             if (convertProcess != null && convertProcess.isAlive()) {
                 convertProcess.destroy();
             }
-            if(srcImagePath != null){
-                Files.deleteIfExists(srcImagePath);
-            }
             if(scaledImagePath != null){
                 Files.deleteIfExists(scaledImagePath);
             }
@@ -169,38 +422,68 @@ public class ImageResizer {
      * @return the content of the created resized image
      */
     private byte[] getResizedImageWithJavaAPI(byte[] img, int scaledWidth, int scaledHeight) throws IOException {
+        try (ByteArrayInputStream bais = new ByteArrayInputStream(img)) {
+            // read file and get subsampled image
+            return getResizedImageWithSubsampling(bais, scaledWidth, scaledHeight);
+        }
+    }
 
-        ByteArrayInputStream bais = null;
-        ByteArrayOutputStream baos = null;
+    /**
+     * Decode the source picture with a subsampling factor keeping at least twice the target size
+     * (as the convert jpeg:size hint), then scale it to the target size.
+     *
+     * @param img stream on the source picture
+     * @return the content of the created resized image
+     */
+    private byte[] getResizedImageWithSubsampling(InputStream img, int scaledWidth, int scaledHeight) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(img)) {
+            if (imageInput == null) {
+                throw new IOException("Unreadable source picture");
+            }
 
-        try {
-            // read file and get image
-            bais = new ByteArrayInputStream(img);
-            BufferedImage sourceImage = ImageIO.read(bais);
-            bais.close();
-
-            // compute scaled image
-            BufferedImage scaledImg = new BufferedImage(scaledWidth, scaledHeight, sourceImage.getType());
-            Graphics2D graphics2D = scaledImg.createGraphics();
-            graphics2D.drawImage(sourceImage, 0, 0, scaledImg.getWidth(), scaledImg.getHeight(), null);
-            graphics2D.dispose();
-
-            // write scaled image as byte array
-            baos = new ByteArrayOutputStream();
-            ImageIO.write(scaledImg, IMAGE_IO_JPEG_TYPE, baos);
-            baos.flush();
-            byte[] resizedImageData = baos.toByteArray();
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                throw new IOException("Unreadable source picture");
+            }
 
-            baos.close();
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
 
-            return resizedImageData;
+                int subsampling = Math.max(1, Math.min(sourceWidth / (scaledWidth * 2), sourceHeight / (scaledHeight * 2)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
 
-        } catch (IOException e) {
-            bais.close();
-            if (baos != null) {
-                baos.close();
+                return getResizedImageWithJavaAPI(reader.read(0, param), scaledWidth, scaledHeight);
+            } finally {
+                reader.dispose();
             }
-            throw e;
+        }
+    }
+
+    /**
+     * @param sourceImage the source picture to transform
+     * @return the content of the created resized image
+     */
+    private byte[] getResizedImageWithJavaAPI(BufferedImage sourceImage, int scaledWidth, int scaledHeight) throws IOException {
+        if (sourceImage == null) {
+            throw new IOException("Unreadable source picture");
+        }
+
+        // compute scaled image, RGB as JPEG doesn't support alpha and decoded pictures may have a custom type
+        BufferedImage scaledImg = new BufferedImage(scaledWidth, scaledHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics2D = scaledImg.createGraphics();
+        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics2D.drawImage(sourceImage, 0, 0, scaledImg.getWidth(), scaledImg.getHeight(), null);
+        graphics2D.dispose();
+
+        // write scaled image as byte array
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(scaledImg, IMAGE_IO_JPEG_TYPE, baos);
+            baos.flush();
+            return baos.toByteArray();
         }
     }
 
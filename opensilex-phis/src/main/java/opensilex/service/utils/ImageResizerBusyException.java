@@ -0,0 +1,31 @@
+//******************************************************************************
+//                       ImageResizerBusyException.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when the picture resize queue is full, the request should be retried later.
+ *
+ * @author vincent
+ */
+public class ImageResizerBusyException extends IOException {
+
+    private final int retryAfterSeconds;
+
+    public ImageResizerBusyException(int retryAfterSeconds) {
+        super("Too many pictures are being resized, retry after " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return delay in seconds after which the request can be retried
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
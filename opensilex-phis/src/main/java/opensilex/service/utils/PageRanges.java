@@ -0,0 +1,95 @@
+//******************************************************************************
+//                         PageRanges.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>
+ * Pagination over several sources read one after the other, e.g. one data collection per variable.
+ *
+ * Sources before the page offset are skipped with their count, then each source overlapping
+ * the page gives the number of elements to skip and to read in it.
+ * </pre>
+ *
+ * @author vincent
+ */
+public final class PageRanges {
+
+    private PageRanges() {
+    }
+
+    /**
+     * Range of elements to read in a source
+     */
+    public static class Range {
+
+        private final int source;
+
+        private final int skip;
+
+        private final int limit;
+
+        Range(int source, int skip, int limit) {
+            this.source = source;
+            this.skip = skip;
+            this.limit = limit;
+        }
+
+        /**
+         * @return source index in the counts array
+         */
+        public int getSource() {
+            return source;
+        }
+
+        /**
+         * @return number of elements to skip in the source
+         */
+        public int getSkip() {
+            return skip;
+        }
+
+        /**
+         * @return maximum number of elements to read in the source
+         */
+        public int getLimit() {
+            return limit;
+        }
+    }
+
+    /**
+     * Gets the ranges to read in each source for a page.
+     * @param counts number of elements of each source, in reading order
+     * @param limit pagesize
+     * @param page the page number, starting at 0
+     * @return ranges of the sources overlapping the page, in reading order
+     */
+    public static List<Range> get(long[] counts, int limit, int page) {
+        List<Range> ranges = new ArrayList<>();
+        if (limit <= 0 || page < 0) {
+            return ranges;
+        }
+
+        long offset = (long) page * limit;
+        int remaining = limit;
+        for (int i = 0; i < counts.length && remaining > 0; i++) {
+            if (offset >= counts[i]) {
+                offset -= counts[i];
+                continue;
+            }
+
+            int rangeLimit = (int) Math.min(remaining, counts[i] - offset);
+            ranges.add(new Range(i, (int) offset, rangeLimit));
+            remaining -= rangeLimit;
+            offset = 0;
+        }
+
+        return ranges;
+    }
+}
@@ -0,0 +1,265 @@
+//******************************************************************************
+//                               ThumbnailCache.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * Two tiers cache for picture thumbnails.
+ *
+ * Thumbnails are identified by source file URI, size and source last modification time.
+ * The first tier is an in-memory LRU map bounded by its total size in bytes,
+ * the second tier is a directory on disk bounded by its total size, oldest used files are evicted first.
+ * Concurrent requests for the same thumbnail wait for the first one, so a thumbnail is built only once.
+ * When the source last modification time is unknown (file not stored on local filesystem),
+ * a changed source can't be detected, so its thumbnails are only kept in memory and rebuilt after a restart.
+ * </pre>
+ *
+ * @author vincent
+ */
+public class ThumbnailCache {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ThumbnailCache.class);
+
+    private static ThumbnailCache _INSTANCE;
+
+    /**
+     * Thumbnails directory name relative to the file storage base path
+     */
+    public final static String THUMBNAILS_DIRECTORY = "thumbnails";
+
+    /**
+     * Maximum size in bytes of the thumbnails kept in memory
+     */
+    private final static long MEMORY_MAX_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Maximum size in bytes of the thumbnails kept on disk
+     */
+    private final static long DISK_MAX_SIZE = 1024L * 1024 * 1024;
+
+    private final static String THUMBNAIL_FILE_EXTENSION = ".jpg";
+
+    /**
+     * Source last modification time to give when it's unknown
+     */
+    public final static long UNKNOWN_LAST_MODIFIED = -1;
+
+    private final Path cacheDirectory;
+
+    /**
+     * In-memory tier, in access order for LRU eviction
+     */
+    private final LinkedHashMap<String, byte[]> memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memorySize = 0;
+
+    private final AtomicLong diskSize = new AtomicLong();
+
+    /**
+     * Thumbnails being built by key
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pendingThumbnails = new ConcurrentHashMap<>();
+
+    private ThumbnailCache(Path cacheDirectory) throws IOException {
+        this.cacheDirectory = cacheDirectory;
+        Files.createDirectories(cacheDirectory);
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                diskSize.addAndGet(Files.size(file));
+            }
+        }
+    }
+
+    /**
+     * Return the thumbnail cache stored in the given directory
+     *
+     * @param cacheDirectory directory of the disk tier
+     * @return thumbnail cache instance
+     * @throws IOException if the cache directory can't be created
+     * @throws IllegalStateException if the cache has already been created in another directory
+     */
+    public synchronized static ThumbnailCache getInstance(Path cacheDirectory) throws IOException {
+        Path directory = cacheDirectory.toAbsolutePath().normalize();
+        if (_INSTANCE == null) {
+            _INSTANCE = new ThumbnailCache(directory);
+        } else if (!_INSTANCE.cacheDirectory.equals(directory)) {
+            throw new IllegalStateException("Thumbnail cache is already stored in " + _INSTANCE.cacheDirectory + ", it can't be stored in " + directory);
+        }
+        return _INSTANCE;
+    }
+
+    /**
+     * Return a thumbnail from cache or build it with the given builder and store it in cache.
+     *
+     * @param fileUri source file URI
+     * @param width thumbnail width
+     * @param height thumbnail height
+     * @param sourceLastModified source file last modification time in milliseconds, {@link #UNKNOWN_LAST_MODIFIED} to skip the disk tier
+     * @param thumbnailBuilder function building the thumbnail content if it's not in cache
+     * @return the thumbnail content
+     * @throws IOException if the thumbnail can't be built
+     */
+    public byte[] getThumbnail(String fileUri, int width, int height, long sourceLastModified, Callable<byte[]> thumbnailBuilder) throws IOException {
+        String key = DigestUtils.sha256Hex(fileUri + "|" + width + "x" + height + "|" + sourceLastModified);
+
+        byte[] thumbnail = getFromMemory(key);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> pendingThumbnail = pendingThumbnails.putIfAbsent(key, future);
+        if (pendingThumbnail != null) {
+            return waitFor(pendingThumbnail);
+        }
+
+        try {
+            // Without modification time, a thumbnail on disk could be kept forever after its source has changed
+            boolean useDisk = sourceLastModified != UNKNOWN_LAST_MODIFIED;
+            if (useDisk) {
+                thumbnail = readFromDisk(key);
+            }
+            if (thumbnail == null) {
+                thumbnail = thumbnailBuilder.call();
+                if (useDisk) {
+                    writeToDisk(key, thumbnail);
+                }
+            }
+            putInMemory(key, thumbnail);
+            future.complete(thumbnail);
+            return thumbnail;
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+            if (ex instanceof IOException) {
+                throw (IOException) ex;
+            }
+            throw new IOException(ex);
+        } finally {
+            pendingThumbnails.remove(key, future);
+        }
+    }
+
+    private byte[] waitFor(CompletableFuture<byte[]> pendingThumbnail) throws IOException {
+        try {
+            return pendingThumbnail.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private synchronized byte[] getFromMemory(String key) {
+        return memoryCache.get(key);
+    }
+
+    private synchronized void putInMemory(String key, byte[] thumbnail) {
+        if (thumbnail.length > MEMORY_MAX_SIZE) {
+            return;
+        }
+
+        byte[] previous = memoryCache.put(key, thumbnail);
+        if (previous != null) {
+            memorySize -= previous.length;
+        }
+        memorySize += thumbnail.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = memoryCache.entrySet().iterator();
+        while (memorySize > MEMORY_MAX_SIZE && iterator.hasNext()) {
+            memorySize -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+
+    private Path getThumbnailPath(String key) {
+        return cacheDirectory.resolve(key + THUMBNAIL_FILE_EXTENSION);
+    }
+
+    private byte[] readFromDisk(String key) throws IOException {
+        Path thumbnailPath = getThumbnailPath(key);
+        try {
+            byte[] thumbnail = Files.readAllBytes(thumbnailPath);
+            // Update modification time to keep recently used thumbnails on eviction
+            Files.setLastModifiedTime(thumbnailPath, FileTime.fromMillis(System.currentTimeMillis()));
+            return thumbnail;
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] thumbnail) {
+        try {
+            Path tmpFile = Files.createTempFile(cacheDirectory, key, null);
+            Files.write(tmpFile, thumbnail);
+            Files.move(tmpFile, getThumbnailPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (diskSize.addAndGet(thumbnail.length) > DISK_MAX_SIZE) {
+                evictFromDisk();
+            }
+        } catch (IOException ex) {
+            // Thumbnail is still returned, only the disk tier is skipped
+            LOGGER.warn("Error while writing thumbnail in cache: " + key, ex);
+        }
+    }
+
+    /**
+     * Delete least recently used thumbnails until disk tier size is under its maximum
+     */
+    private synchronized void evictFromDisk() throws IOException {
+        if (diskSize.get() <= DISK_MAX_SIZE) {
+            return;
+        }
+
+        List<Path> thumbnails;
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            thumbnails = new ArrayList<>(files.collect(Collectors.toList()));
+        }
+        thumbnails.sort(Comparator.comparing((Path file) -> file.toFile().lastModified()));
+
+        for (Path thumbnail : thumbnails) {
+            if (diskSize.get() <= DISK_MAX_SIZE) {
+                break;
+            }
+            try {
+                long size = Files.size(thumbnail);
+                Files.delete(thumbnail);
+                diskSize.addAndGet(-size);
+            } catch (NoSuchFileException ex) {
+                // Already deleted
+            }
+        }
+    }
+}
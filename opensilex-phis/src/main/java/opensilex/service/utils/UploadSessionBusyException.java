@@ -0,0 +1,21 @@
+//******************************************************************************
+//                       UploadSessionBusyException.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a chunk is sent to an upload session already receiving or saving content.
+ *
+ * @author vincent
+ */
+public class UploadSessionBusyException extends IOException {
+
+    public UploadSessionBusyException(String uri) {
+        super("A chunk is already being received or the file is being saved for: " + uri);
+    }
+}
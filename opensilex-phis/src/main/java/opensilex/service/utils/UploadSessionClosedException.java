@@ -0,0 +1,21 @@
+//******************************************************************************
+//                      UploadSessionClosedException.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a chunk is sent to an upload session which has expired or has been closed meanwhile.
+ *
+ * @author vincent
+ */
+public class UploadSessionClosedException extends IOException {
+
+    public UploadSessionClosedException(String uri) {
+        super("No waiting file for the following uri : " + uri);
+    }
+}
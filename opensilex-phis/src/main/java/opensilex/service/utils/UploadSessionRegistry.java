@@ -0,0 +1,404 @@
+//******************************************************************************
+//                         UploadSessionRegistry.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import opensilex.service.PropertiesFileManager;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * Registry of the files waiting to be uploaded after their metadata has been sent.
+ *
+ * When a file is sent to the web service, it is sent in two stages:
+ * 1. the file metadata is sent, an upload session is opened
+ * 2. the file is sent, in one request or in several chunks, then the session is closed
+ * Sessions expire after the "waitingFileTime" service property (in seconds) without receiving data,
+ * expirations are run by a single scheduler thread shared by all registries.
+ * The file MD5 checksum is computed while its content is received.
+ * </pre>
+ *
+ * @param <T> metadata type
+ * @author vincent
+ */
+public class UploadSessionRegistry<T> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(UploadSessionRegistry.class);
+
+    private final static String PROPS_FILE_NAME = "service";
+
+    /**
+     * Waiting file time default
+     */
+    private final static int DEFAULT_WAITING_FILE_TIME = 30;
+
+    private final static ScheduledThreadPoolExecutor EXPIRATION_SCHEDULER;
+
+    static {
+        EXPIRATION_SCHEDULER = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+            Thread t = new Thread(r, "opensilex-upload-session-expiration");
+            t.setDaemon(true);
+            return t;
+        });
+        EXPIRATION_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String name;
+
+    private final Map<String, UploadSession<T>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param name registry name used in logs and temporary files
+     */
+    public UploadSessionRegistry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return waiting file time in seconds from service properties or default value
+     */
+    public static int getWaitingFileTime() {
+        try {
+            return Integer.valueOf(PropertiesFileManager.getConfigFileProperty(PROPS_FILE_NAME, "waitingFileTime"));
+        } catch (NumberFormatException e) {
+            LOGGER.info("Can't parse waitingFileTime properties in " + PROPS_FILE_NAME + " properties file. Default value is " + DEFAULT_WAITING_FILE_TIME + " seconds.", e);
+            return DEFAULT_WAITING_FILE_TIME;
+        }
+    }
+
+    /**
+     * Open an upload session waiting for the file corresponding to the given metadata.
+     *
+     * @param uri file URI
+     * @param metadata file metadata
+     */
+    public void open(String uri, T metadata) {
+        UploadSession<T> session = new UploadSession<>(uri, metadata);
+        UploadSession<T> previous = sessions.put(uri, session);
+        if (previous != null) {
+            previous.discard();
+        }
+        scheduleExpiration(session);
+    }
+
+    /**
+     * @param uri file URI
+     * @return the upload session or null if there is no waiting file for this URI
+     */
+    public UploadSession<T> get(String uri) {
+        return sessions.get(uri);
+    }
+
+    /**
+     * Close the upload session and delete its temporary file.
+     *
+     * @param uri file URI
+     */
+    public void close(String uri) {
+        UploadSession<T> session = sessions.remove(uri);
+        if (session != null) {
+            session.discard();
+        }
+    }
+
+    /**
+     * @return number of opened upload sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    private void scheduleExpiration(UploadSession<T> session) {
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            if (session.expiration != null) {
+                session.expiration.cancel(false);
+            }
+            session.expiration = EXPIRATION_SCHEDULER.schedule(() -> expire(session), getWaitingFileTime(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Close the session if it's not busy, otherwise wait for the next expiration.
+     *
+     * @param session upload session
+     */
+    void expire(UploadSession<T> session) {
+        synchronized (session) {
+            if (session.busy) {
+                // Session content is being received or saved, wait for the next expiration
+                scheduleExpiration(session);
+                return;
+            }
+
+            // Checked and removed under the session lock, so the session can't be acquired meanwhile
+            if (sessions.remove(session.uri, session)) {
+                LOGGER.debug("Upload session expired for " + name + ": " + session.uri);
+                session.discard();
+            }
+        }
+    }
+
+    /**
+     * Mark the session as busy, it won't expire and no chunk can be appended until it's released.
+     *
+     * @param session upload session
+     * @return true if the session has been acquired, false if it's already busy or closed
+     */
+    public boolean acquire(UploadSession<T> session) {
+        synchronized (session) {
+            if (session.busy || session.closed) {
+                return false;
+            }
+            session.busy = true;
+            return true;
+        }
+    }
+
+    /**
+     * Release a session acquired with {@link #acquire(UploadSession)}, its expiration delay restarts.
+     *
+     * @param session upload session
+     */
+    public void release(UploadSession<T> session) {
+        synchronized (session) {
+            session.busy = false;
+            if (session.closed) {
+                // Session has been closed while busy, its temporary file was kept for its owner
+                session.deleteFile();
+                return;
+            }
+        }
+        scheduleExpiration(session);
+    }
+
+    /**
+     * Append a chunk of file content to the session, computing its checksum on the fly.
+     * A chunk at offset 0 restarts the upload.
+     *
+     * @param session upload session
+     * @param content chunk content
+     * @param offset chunk position in the file, must be 0 or equal to the number of bytes already received
+     * @return number of bytes received for the file, chunk included
+     * @throws UploadSessionBusyException if a chunk is already being received or the file is being saved
+     * @throws UploadSessionClosedException if the session has expired or has been closed
+     * @throws IOException if the chunk can't be written
+     * @throws IllegalArgumentException if the offset doesn't match the received bytes
+     */
+    public long append(UploadSession<T> session, InputStream content, long offset) throws IOException {
+        if (!acquire(session)) {
+            if (session.isClosed()) {
+                throw new UploadSessionClosedException(session.uri);
+            }
+            throw new UploadSessionBusyException(session.uri);
+        }
+
+        try {
+            if (offset == 0 && session.receivedBytes > 0) {
+                session.reset();
+            } else if (offset != session.receivedBytes) {
+                throw new IllegalArgumentException("Invalid chunk offset " + offset + ", " + session.receivedBytes + " bytes already received");
+            }
+
+            if (session.file == null) {
+                session.file = Files.createTempFile("opensilex-upload-" + name, null);
+            }
+
+            byte[] buffer = new byte[64 * 1024];
+            try (OutputStream output = Files.newOutputStream(session.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    session.digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                    session.receivedBytes += read;
+                }
+            }
+            return session.receivedBytes;
+        } finally {
+            // Receiving data keeps the session alive
+            release(session);
+        }
+    }
+
+    /**
+     * Content-Range request header name, used to send a file in several chunks
+     */
+    public final static String CONTENT_RANGE_HEADER = "Content-Range";
+
+    /**
+     * Parse a chunk Content-Range header.
+     *
+     * @param contentRange header value
+     * @example bytes 0-1048575/5242880
+     * @return first byte position, last byte position and total file size, or null if header is missing or invalid
+     */
+    public static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+
+        try {
+            String[] rangeAndTotal = contentRange.substring("bytes ".length()).trim().split("/", 2);
+            String[] range = rangeAndTotal[0].split("-", 2);
+            long start = Long.parseLong(range[0].trim());
+            long end = Long.parseLong(range[1].trim());
+            long total = Long.parseLong(rangeAndTotal[1].trim());
+            if (start > end || end >= total) {
+                return null;
+            }
+            return new long[]{start, end, total};
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if a Content-Range header asks for the received content of an upload without sending any chunk.
+     *
+     * @param contentRange header value
+     * @example bytes &#42;/5242880
+     * @return true if header is an unsatisfied range
+     */
+    public static boolean isContentRangeProbe(String contentRange) {
+        return contentRange != null && contentRange.matches("bytes \\*/\\d+");
+    }
+
+    /**
+     * Return the Range response header value of the content received by a session.
+     *
+     * @param session upload session
+     * @example bytes=0-1048575
+     * @return header value, or null if nothing has been received, so the header is not sent
+     */
+    public static String getReceivedRange(UploadSession<?> session) {
+        long receivedBytes = session.getReceivedBytes();
+        if (receivedBytes == 0) {
+            return null;
+        }
+        return "bytes=0-" + (receivedBytes - 1);
+    }
+
+    /**
+     * Upload session of a file.
+     *
+     * @param <T> metadata type
+     */
+    public static class UploadSession<T> {
+
+        private final String uri;
+
+        private final T metadata;
+
+        private final MessageDigest digest;
+
+        private Path file;
+
+        private volatile long receivedBytes = 0;
+
+        private boolean busy = false;
+
+        private boolean closed = false;
+
+        private ScheduledFuture<?> expiration;
+
+        private UploadSession(String uri, T metadata) {
+            this.uri = uri;
+            this.metadata = metadata;
+            try {
+                this.digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public T getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return received content temporary file, null if nothing has been received
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        public long getReceivedBytes() {
+            return receivedBytes;
+        }
+
+        /**
+         * @return true if the session has expired or has been closed
+         */
+        public synchronized boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * @return MD5 checksum of the content received so far
+         * @example 106fa487baa1728083747de1c6df73e9
+         */
+        public synchronized String getChecksum() {
+            try {
+                return Hex.encodeHexString(((MessageDigest) digest.clone()).digest());
+            } catch (CloneNotSupportedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private synchronized void reset() throws IOException {
+            digest.reset();
+            receivedBytes = 0;
+            if (file != null) {
+                Files.deleteIfExists(file);
+                file = null;
+            }
+        }
+
+        /**
+         * Close the session, its temporary file is deleted now or on release if the session is busy.
+         */
+        private synchronized void discard() {
+            closed = true;
+            if (expiration != null) {
+                expiration.cancel(false);
+            }
+            if (!busy) {
+                deleteFile();
+            }
+        }
+
+        private synchronized void deleteFile() {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    LOGGER.warn("Can't delete upload temporary file: " + file, ex);
+                }
+            }
+        }
+    }
+}
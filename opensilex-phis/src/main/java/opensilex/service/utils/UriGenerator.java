@@ -13,9 +13,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import org.apache.commons.codec.binary.Base32;
 import org.apache.jena.sparql.AlreadyExists;
@@ -60,6 +58,7 @@ import org.opensilex.sparql.service.SPARQLService;
  *              - Second user: Jean Dupont-Marie http://www.phenome-fppn.fr/diaphen/id/agent/jean_dupont-marie01
  * \SILEX:todo
  * @update [Vincent Migot] 17 July 2019: Add syncronization on public methods to prevent URI duplication
+ * @update [Vincent Migot] 2019: Allocate numbered URIs from persistent sequences instead of querying the last number
  */
 public class UriGenerator {    
     private static final String URI_CODE_ACTUATOR = "a";
@@ -129,24 +128,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last vector ID by year
-     */
-    private Map<String, Integer> vectorLastIDByYear = new HashMap<>();
-    
-    /**
-     * Return the next vector ID by incrementing vectorLastIDByYear variable and initializing it before if needed
+     * Return the next vector ID of the year from the vector URI sequence,
+     * seeded with the last vector ID of the year in the triplestore
      * @return next vector ID
      */
     private int getNextVectorID(String year) {
-        if (!vectorLastIDByYear.containsKey(year)) {
-            VectorDAO vectorDAO = new VectorDAO(sparql);
-            vectorLastIDByYear.put(year, vectorDAO.getLastIdFromYear(year));
-        }
-        
-        int vectorLastID = vectorLastIDByYear.get(year);
-        vectorLastID++;
-        vectorLastIDByYear.put(year, vectorLastID);
-        return vectorLastID;
+        return UriSequenceAllocator.next(getVectorUriPatternByYear(year), () -> new VectorDAO(sparql).getLastIdFromYear(year));
     }
 
     /**
@@ -187,24 +174,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last sensor ID by year
-     */
-    private Map<String, Integer> sensorLastIDByYear = new HashMap<>();
-    
-    /**
-     * Return the next sensor ID by incrementing sensorLastIDByYear variable and initializing it before if needed
+     * Return the next sensor ID of the year from the sensor URI sequence,
+     * seeded with the last sensor ID of the year in the triplestore
      * @return next sensor ID
      */
     private int getNextSensorID(String year) {
-        if (!sensorLastIDByYear.containsKey(year)) {
-            SensorDAO sensorDAO = new SensorDAO(sparql);
-            sensorLastIDByYear.put(year, sensorDAO.getLastIdFromYear(year));
-        }
-        
-        int sensorLastID = sensorLastIDByYear.get(year);
-        sensorLastID++;
-        sensorLastIDByYear.put(year, sensorLastID);
-        return sensorLastID;
+        return UriSequenceAllocator.next(getSensorUriPatternByYear(year), () -> new SensorDAO(sparql).getLastIdFromYear(year));
     }
     
     /**
@@ -245,24 +220,12 @@ public class UriGenerator {
     }
 
     /**
-     * Internal variable to store the last actuator ID by year
-     */
-    private Map<String, Integer> actuatorLastIDByYear = new HashMap<>();
-    
-    /**
-     * Return the next actuator ID by incrementing actuatorLastIDByYear variable and initializing it before if needed
+     * Return the next actuator ID of the year from the actuator URI sequence,
+     * seeded with the last actuator ID of the year in the triplestore
      * @return next actuator ID
      */
     private int getNextActuatorID(String year) {
-        if (!actuatorLastIDByYear.containsKey(year)) {
-            ActuatorDAO actuatorDAO = new ActuatorDAO(sparql);
-            actuatorLastIDByYear.put(year, actuatorDAO.getLastIdFromYear(year));
-        }
-        
-        int actuatorLastID = actuatorLastIDByYear.get(year);
-        actuatorLastID++;
-        actuatorLastIDByYear.put(year, actuatorLastID);
-        return actuatorLastID;
+        return UriSequenceAllocator.next(getActuatorUriPatternByYear(year), () -> new ActuatorDAO(sparql).getLastIdFromYear(year));
     }
     
     /**
@@ -285,7 +248,17 @@ public class UriGenerator {
      * @return the new agronomical object URI
      */
     private String generateScientificObjectUri(String year) {
-        String agronomicalObjectId = Integer.toString(getNextScientificObjectID(year));
+        return getScientificObjectUri(year, getNextScientificObjectID(year));
+    }
+
+    /**
+     * Return the scientific object URI of the given number.
+     * @param year
+     * @param scientificObjectNumber
+     * @return scientific object URI
+     */
+    private static String getScientificObjectUri(String year, int scientificObjectNumber) {
+        String agronomicalObjectId = Integer.toString(scientificObjectNumber);
 
         while (agronomicalObjectId.length() < 6) {
             agronomicalObjectId = "0" + agronomicalObjectId;
@@ -295,24 +268,12 @@ public class UriGenerator {
     }
 
     /**
-     * Internal variable to store the last scientifc object ID by year
-     */
-    private Map<String, Integer> scientificObjectLastIDByYear = new HashMap<>();
-    
-    /**
-     * Return the next scientifc object ID by incrementing scientificObjectLastIDByYear variable and initializing it before if needed
+     * Return the next scientific object ID of the year from the scientific object URI sequence,
+     * seeded with the last scientific object ID of the year in the triplestore
      * @return next scientific object ID
      */
     private int getNextScientificObjectID(String year) {
-        if (!scientificObjectLastIDByYear.containsKey(year)) {
-            ScientificObjectRdf4jDAO scientificObjectDAO = new ScientificObjectRdf4jDAO(sparql);
-            scientificObjectLastIDByYear.put(year, scientificObjectDAO.getLastScientificObjectIdFromYear(year));
-        }
-        
-        int scientificObjectLastID = scientificObjectLastIDByYear.get(year);
-        scientificObjectLastID++;
-        scientificObjectLastIDByYear.put(year, scientificObjectLastID);
-        return scientificObjectLastID;
+        return UriSequenceAllocator.next(getScientificObjectUriPatternByYear(year), () -> new ScientificObjectRdf4jDAO(sparql).getLastScientificObjectIdFromYear(year));
     }
     
     /**
@@ -343,23 +304,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last variable ID
-     */
-    private Integer variableLastID;
-    
-    /**
-     * Return the next variable ID by incrementing variableLastID variable and initializing it before if needed
+     * Return the next variable ID from the variables URI sequence,
+     * seeded with the last variable ID in the triplestore
      * @return next variable ID
      */
     private int getNextVariableID() {
-        if (variableLastID == null) {
-            VariableDAO variableDAO = new VariableDAO(sparql);
-            variableLastID = variableDAO.getLastId();
-        }
-        
-        variableLastID++;
-        
-        return variableLastID;
+        return UriSequenceAllocator.next(PLATFORM_URI_ID_VARIABLES, () -> new VariableDAO(sparql).getLastId());
     }
 
     /**
@@ -381,23 +331,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last trait ID
-     */
-    private Integer traitLastID;
-
-    /**
-     * Return the next trait ID by incrementing traitLastID variable and initializing it before if needed
+     * Return the next trait ID from the traits URI sequence,
+     * seeded with the last trait ID in the triplestore
      * @return next trait ID
      */
     private int getNextTraitID() {
-        if (traitLastID == null) {
-            TraitDAO traitDAO = new TraitDAO(sparql);
-            traitLastID = traitDAO.getLastId();
-        }
-        
-        traitLastID++;
-        
-        return traitLastID;
+        return UriSequenceAllocator.next(PLATFORM_URI_ID_TRAITS, () -> new TraitDAO(sparql).getLastId());
     }
 
     /**
@@ -419,23 +358,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last method ID
-     */
-    private Integer methodLastID;
-
-    /**
-     * Return the next method ID by incrementing methodLastID variable and initializing it before if needed
+     * Return the next method ID from the methods URI sequence,
+     * seeded with the last method ID in the triplestore
      * @return next method ID
      */
     private int getNextMethodID() {
-        if (methodLastID == null) {
-            MethodDAO methodDAO = new MethodDAO(sparql);
-            methodLastID = methodDAO.getLastId();
-        }
-        
-        methodLastID++;
-        
-        return methodLastID;
+        return UriSequenceAllocator.next(PLATFORM_URI_ID_METHOD, () -> new MethodDAO(sparql).getLastId());
     }
 
     /**
@@ -457,23 +385,12 @@ public class UriGenerator {
     }
 
     /**
-     * Internal variable to store the last unit ID
-     */
-    private Integer unitLastID;
-    
-    /**
-     * Return the next unit ID by incrementing unitLastID variable and initializing it before if needed
+     * Return the next unit ID from the units URI sequence,
+     * seeded with the last unit ID in the triplestore
      * @return next unit ID
      */
     private int getNextUnitID() {
-        if (unitLastID == null) {
-            UnitDAO unitDAO = new UnitDAO(sparql);
-            unitLastID = unitDAO.getLastId();
-        }
-        
-        unitLastID++;
-        
-        return unitLastID;
+        return UriSequenceAllocator.next(PLATFORM_URI_ID_UNITS, () -> new UnitDAO(sparql).getLastId());
     }
     
     /**
@@ -484,13 +401,13 @@ public class UriGenerator {
      * @return The new radiometric target URI
      */
     private String generateRadiometricTargetUri() {
-        //1. Get the highest radiometric target id (i.e. the last inserted
-        //radiometric target)
-        RadiometricTargetDAO radiometricTargetDAO = new RadiometricTargetDAO(sparql);
-        int lastID = radiometricTargetDAO.getLastId();
+        //1. Get the next radiometric target id from the radiometric targets
+        //URI sequence, seeded with the highest radiometric target id
+        int newRadiometricTargetID = UriSequenceAllocator.next(
+                PLATFORM_URI_ID_RADIOMETRIC_TARGET + URI_CODE_RADIOMETRIC_TARGET, 
+                () -> new RadiometricTargetDAO(sparql).getLastId());
         
         //2. Generate radiometric target URI
-        int newRadiometricTargetID = lastID + 1;
         String radiometricTargetID = Integer.toString(newRadiometricTargetID);
         
         while (radiometricTargetID.length() < 3) {
@@ -701,23 +618,12 @@ public class UriGenerator {
     }
     
     /**
-     * Internal variable to store the last factor ID
-     */
-    private Integer factorLastID;
-    
-    /**
-     * Return the next factor ID by incrementing variableLastID variable and initializing it before if needed
+     * Return the next factor ID from the factors URI sequence,
+     * seeded with the last factor ID in the triplestore
      * @return next factor ID
      */
     private int getNextFactorID() {
-        if (factorLastID == null) {
-            FactorDAO factorDAO = new FactorDAO(sparql);
-            factorLastID = factorDAO.getLastId();
-        }
-        
-        factorLastID++;
-        
-        return factorLastID;
+        return UriSequenceAllocator.next(PLATFORM_URI_ID_FACTORS, () -> new FactorDAO(sparql).getLastId());
     }
     
     
@@ -736,22 +642,49 @@ public class UriGenerator {
         return encodedString + randomId;
     }
     
+    /**
+     * Generates data URIs for a batch of data keys.
+     * Each URI is built from the key hash and a random UUID, so generated URIs
+     * can't collide and don't need to be checked against existing data.
+     * This method doesn't query the triplestore and can be called concurrently.
+     * @example http://www.opensilex.org/id/data/1e9eb2fbacc7222d3868ae96149a8a16b32b2a1870c67d753376381ebcbb5937e78da502ee3f42d3828eaa8cab237f93
+     * @param keys the keys of the data
+     * @return the list of generated uris, in the same order as the keys
+     * @throws NoSuchAlgorithmException 
+     */
+    public static List<String> generateDataUris(List<String> keys) throws NoSuchAlgorithmException {
+        List<String> uris = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            uris.add(PLATFORM_URI_ID + "data/" + getUniqueHash(key));
+        }
+        return uris;
+    }
+    
     /**
      * Generates scientific objects uris for a year. The number depends on the given numberOfUrisToGenerate.
+     * Numbers are allocated at once from the scientific objects URI sequence of the year.
      * @param year
      * @param numberOfUrisToGenerate
      * @return the list of uri generated
      */
-    public synchronized static List<String> generateScientificObjectUris(SPARQLService sparql, String year, Integer numberOfUrisToGenerate) {
+    public static List<String> generateScientificObjectUris(SPARQLService sparql, String year, Integer numberOfUrisToGenerate) {
         if (year == null) {
             year = Integer.toString(Calendar.getInstance().get(Calendar.YEAR));
         }
-        UriGenerator instance = new UriGenerator(sparql);
 
         List<String> scientificObjectUris = new ArrayList<>();
+        if (numberOfUrisToGenerate <= 0) {
+            return scientificObjectUris;
+        }
+
+        String sequenceYear = year;
+        int firstNumber = UriSequenceAllocator.next(
+                getScientificObjectUriPatternByYear(year), 
+                numberOfUrisToGenerate, 
+                () -> new ScientificObjectRdf4jDAO(sparql).getLastScientificObjectIdFromYear(sequenceYear));
                
         for (int i = 0; i < numberOfUrisToGenerate; i++) {
-            scientificObjectUris.add(instance.generateScientificObjectUri(year));            
+            scientificObjectUris.add(getScientificObjectUri(year, firstNumber + i));
         }
         
         return scientificObjectUris;
@@ -759,7 +692,9 @@ public class UriGenerator {
 
     /**
      * Generates the URI of a new instance of instanceType.
-     * This method is syncronized to prevent URI duplication in case of multiple thread request for new URIs
+     * URIs numbered by a sequence (vectors, sensors, scientific objects...) are allocated
+     * without lock by {@link UriSequenceAllocator}, other URIs are generated by a syncronized 
+     * method to prevent URI duplication in case of multiple thread request for new URIs
      * @param instanceType the RDF type of the instance (a concept URI)
      * @param year year of the creation of the element. If it is null, it will
      * be the current year
@@ -769,7 +704,7 @@ public class UriGenerator {
      * @return the generated URI
      * @throws java.lang.Exception
      */
-    public synchronized static String generateNewInstanceUri(SPARQLService sparql, String instanceType, String year, String additionalInformation) 
+    public static String generateNewInstanceUri(SPARQLService sparql, String instanceType, String year, String additionalInformation) 
             throws Exception {
         
         UriGenerator instance = new UriGenerator(sparql);
@@ -794,7 +729,25 @@ public class UriGenerator {
             return instance.generateUnitUri();
         } else if (uriDao.isSubClassOf(instanceType, Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString())) {
             return instance.generateScientificObjectUri(year);
-        } else if (Oeso.CONCEPT_GENUS.toString().equals(instanceType)) {
+        } else if (instanceType.equals(Oeso.CONCEPT_RADIOMETRIC_TARGET.toString())) {
+            return instance.generateRadiometricTargetUri();
+        } else if (instanceType.equals(Oeso.CONCEPT_ACTUATOR.toString())) {
+            return instance.generateActuatorUri(year);
+        } else if (instanceType.equals(Oeso.CONCEPT_FACTOR.toString())) {
+            return instance.generateFactorUri();
+        }
+        
+        return generateNewNamedInstanceUri(instance, uriDao, instanceType, year, additionalInformation);
+    }
+
+    /**
+     * Generates the URI of a new instance of instanceType which is not numbered by a sequence.
+     * This method is syncronized to prevent URI duplication in case of multiple thread request for new URIs
+     * @see #generateNewInstanceUri(SPARQLService, String, String, String)
+     */
+    private synchronized static String generateNewNamedInstanceUri(UriGenerator instance, UriDAO uriDao, String instanceType, String year, String additionalInformation) 
+            throws Exception {
+        if (Oeso.CONCEPT_GENUS.toString().equals(instanceType)) {
             return instance.generateGenusUri(additionalInformation);
         } else if (Oeso.CONCEPT_SPECIES.toString().equals(instanceType)) {
             return instance.generateSpeciesUri(additionalInformation);
@@ -812,8 +765,6 @@ public class UriGenerator {
             return instance.generateAgentUri(additionalInformation);
         } else if (instanceType.equals(Oeso.CONCEPT_ANNOTATION.toString())) {
             return instance.generateAnnotationUri();
-        } else if (instanceType.equals(Oeso.CONCEPT_RADIOMETRIC_TARGET.toString())) {
-            return instance.generateRadiometricTargetUri();
         } else if (instanceType.equals(Oeso.CONCEPT_PROVENANCE.toString())) {
             return instance.generateProvenanceUri();
         } else if (instanceType.equals(Oeso.CONCEPT_DATA.toString())) {
@@ -824,10 +775,6 @@ public class UriGenerator {
             return instance.generateInstantUri();
         } else if (instanceType.equals(Oeso.CONCEPT_DATA_FILE.toString())) {
             return instance.generateDataFileUri(year, additionalInformation);
-        } else if (instanceType.equals(Oeso.CONCEPT_ACTUATOR.toString())) {
-            return instance.generateActuatorUri(year);
-        } else if (instanceType.equals(Oeso.CONCEPT_FACTOR.toString())) {
-            return instance.generateFactorUri();
         }
         return null;
     }
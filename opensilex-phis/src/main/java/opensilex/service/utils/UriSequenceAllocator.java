@@ -0,0 +1,287 @@
+//******************************************************************************
+//                         UriSequenceAllocator.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import opensilex.service.PropertiesFileManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * Allocator of the incremented numbers used in generated URIs (sensors, vectors, scientific objects...).
+ *
+ * Each sequence is identified by the URI prefix of the numbers it allocates (e.g. http://www.phenome-fppn.fr/diaphen/2017/s17),
+ * so there is one sequence by type and by year for yearly numbered URIs.
+ * A sequence is seeded once by JVM with the highest of its last reserved number and of its last number in the triplestore,
+ * then numbers are allocated in memory with atomic operations.
+ * Numbers are reserved by blocks of {@link #BLOCK_SIZE} and the end of the reserved block is saved in the
+ * {@link #SEQUENCES_FILE_NAME} file of the storage directory before any number of the block is used,
+ * so a restarted sequence never allocates numbers of a block reserved before, even if they are not yet in the triplestore
+ * (unused numbers of the last block are skipped).
+ * Use {@link #reseed(String, IntSupplier)} after resources were created by another way (e.g. triplestore restore).
+ * </pre>
+ *
+ * @author vincent
+ */
+public class UriSequenceAllocator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(UriSequenceAllocator.class);
+
+    /**
+     * Number of numbers reserved at once
+     */
+    public final static int BLOCK_SIZE = 20;
+
+    /**
+     * Reserved numbers file name in storage directory
+     */
+    public final static String SEQUENCES_FILE_NAME = "uri-sequences.properties";
+
+    private static UriSequenceAllocator defaultAllocator;
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    /**
+     * Reserved numbers file, null if reserved numbers are not saved
+     */
+    private final Path sequencesFile;
+
+    /**
+     * Reserved numbers by sequence, loaded from sequences file on first use
+     */
+    private Properties reservedNumbers;
+
+    /**
+     * @param sequencesFile reserved numbers file, null to keep reserved numbers in memory only
+     */
+    UriSequenceAllocator(Path sequencesFile) {
+        this.sequencesFile = sequencesFile;
+    }
+
+    private synchronized static UriSequenceAllocator getDefault() {
+        if (defaultAllocator == null) {
+            defaultAllocator = new UriSequenceAllocator(getSequencesFile());
+        }
+        return defaultAllocator;
+    }
+
+    /**
+     * Allocate the next number of a sequence.
+     *
+     * @param sequence URI prefix of the sequence numbers
+     * @param lastNumberInStore return the last number used in the triplestore for this sequence, only called to seed the sequence
+     * @return the allocated number
+     */
+    public static int next(String sequence, IntSupplier lastNumberInStore) {
+        return next(sequence, 1, lastNumberInStore);
+    }
+
+    /**
+     * Allocate consecutive numbers of a sequence.
+     *
+     * @param sequence URI prefix of the sequence numbers
+     * @param count number of numbers to allocate
+     * @param lastNumberInStore return the last number used in the triplestore for this sequence, only called to seed the sequence
+     * @return the first allocated number, following ones are the next count - 1 numbers
+     */
+    public static int next(String sequence, int count, IntSupplier lastNumberInStore) {
+        return getDefault().allocate(sequence, count, lastNumberInStore);
+    }
+
+    /**
+     * Move a sequence after its last number in the triplestore if it's behind it.
+     *
+     * @param sequence URI prefix of the sequence numbers
+     * @param lastNumberInStore return the last number used in the triplestore for this sequence
+     */
+    public static void reseed(String sequence, IntSupplier lastNumberInStore) {
+        getDefault().seed(sequence, lastNumberInStore);
+    }
+
+    int allocate(String sequence, int count, IntSupplier lastNumberInStore) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Invalid number count to allocate: " + count);
+        }
+
+        // Sequence is seeded out of the map to not block other sequences while querying the triplestore
+        Sequence s = sequences.computeIfAbsent(sequence, Sequence::new);
+        s.seedOnce(lastNumberInStore);
+        return s.allocate(count);
+    }
+
+    void seed(String sequence, IntSupplier lastNumberInStore) {
+        Sequence s = sequences.computeIfAbsent(sequence, Sequence::new);
+        if (!s.seedOnce(lastNumberInStore)) {
+            s.seed(lastNumberInStore.getAsInt());
+        }
+    }
+
+    private static Path getSequencesFile() {
+        String storageDirectory = PropertiesFileManager.getConfigFileProperty("service", "uploadFileServerDirectory");
+        if (storageDirectory == null) {
+            return null;
+        }
+        return Paths.get(storageDirectory, SEQUENCES_FILE_NAME);
+    }
+
+    private synchronized Properties getReservedNumbers() {
+        if (reservedNumbers == null) {
+            reservedNumbers = new Properties();
+            if (sequencesFile != null && Files.isRegularFile(sequencesFile)) {
+                try (InputStream input = Files.newInputStream(sequencesFile)) {
+                    reservedNumbers.load(input);
+                } catch (IOException ex) {
+                    LOGGER.warn("Can't read URI sequences file, sequences will be seeded from triplestore: " + sequencesFile, ex);
+                    reservedNumbers.clear();
+                }
+            }
+        }
+        return reservedNumbers;
+    }
+
+    /**
+     * @return last reserved number of a sequence, 0 if there is none
+     */
+    private int getReservedNumber(String sequence) {
+        String reserved;
+        synchronized (this) {
+            reserved = getReservedNumbers().getProperty(sequence);
+        }
+        if (reserved != null) {
+            try {
+                return Integer.parseInt(reserved);
+            } catch (NumberFormatException ex) {
+                LOGGER.warn("Invalid reserved number for URI sequence " + sequence + ", it will be seeded from triplestore: " + reserved);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Save the end of the reserved block of a sequence.
+     * If it can't be saved the block is still used.
+     */
+    private synchronized void saveReservedNumber(String sequence, int reservedNumber) {
+        Properties numbers = getReservedNumbers();
+        numbers.setProperty(sequence, Integer.toString(reservedNumber));
+
+        if (sequencesFile == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(sequencesFile.getParent());
+            Path tmpFile = Files.createTempFile(sequencesFile.getParent(), SEQUENCES_FILE_NAME, null);
+            try {
+                try (OutputStream output = Files.newOutputStream(tmpFile)) {
+                    numbers.store(output, "Last reserved number of generated URI sequences");
+                }
+                Files.move(tmpFile, sequencesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException ex) {
+            // Saved numbers may now be behind allocated ones, all sequences will be seeded from triplestore on next start
+            LOGGER.warn("Can't save URI sequences file, it will be removed: " + sequencesFile, ex);
+            numbers.clear();
+            try {
+                Files.deleteIfExists(sequencesFile);
+            } catch (IOException e) {
+                LOGGER.error("Can't remove outdated URI sequences file: " + sequencesFile, e);
+            }
+        }
+    }
+
+    /**
+     * Sequence numbers state.
+     */
+    private class Sequence {
+
+        private final String name;
+
+        /**
+         * Last allocated number
+         */
+        private final AtomicInteger lastNumber = new AtomicInteger();
+
+        /**
+         * Last reserved number, numbers up to this one can be allocated without saving sequences file
+         */
+        private volatile int reservedNumber;
+
+        private volatile boolean seeded = false;
+
+        private Sequence(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Seed the sequence on first use with its last reserved number or its last number in the triplestore, the highest one.
+         *
+         * @return true if the sequence has been seeded by this call
+         */
+        private boolean seedOnce(IntSupplier lastNumberInStore) {
+            if (seeded) {
+                return false;
+            }
+
+            synchronized (this) {
+                if (seeded) {
+                    return false;
+                }
+
+                int reserved = getReservedNumber(name);
+                int lastInStore = lastNumberInStore.getAsInt();
+                LOGGER.debug("URI sequence " + name + " seeded with reserved number " + reserved + " and triplestore number " + lastInStore);
+                seed(Math.max(reserved, lastInStore));
+                seeded = true;
+                return true;
+            }
+        }
+
+        /**
+         * Move the sequence after the given number if it's behind it.
+         */
+        private void seed(int number) {
+            lastNumber.accumulateAndGet(number, Math::max);
+        }
+
+        private int allocate(int count) {
+            while (true) {
+                int current = lastNumber.get();
+                int last = current + count;
+                if (last <= reservedNumber) {
+                    if (lastNumber.compareAndSet(current, last)) {
+                        return current + 1;
+                    }
+                } else {
+                    reserve(last);
+                }
+            }
+        }
+
+        private synchronized void reserve(int number) {
+            if (number > reservedNumber) {
+                int newReservedNumber = number + BLOCK_SIZE - 1;
+                saveReservedNumber(name, newReservedNumber);
+                reservedNumber = newReservedNumber;
+            }
+        }
+    }
+}
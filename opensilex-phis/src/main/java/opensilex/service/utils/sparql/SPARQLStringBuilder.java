@@ -7,6 +7,7 @@
 //******************************************************************************
 package opensilex.service.utils.sparql;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import opensilex.service.resource.validation.validator.URLValidator;
@@ -226,6 +227,26 @@ public abstract class SPARQLStringBuilder {
         }
     }
 
+    /**
+     * Appends a VALUES clause restricting a variable to a list of URIs.
+     * An empty list gives no result.
+     * @example
+     * VALUES ?uri { <http://www.opensilex.org/demo/2018/s18001> <http://www.opensilex.org/demo/2018/s18002> }
+     * @param variable variable name with its "?" e.g. ?uri
+     * @param uris
+     */
+    public void appendValues(String variable, Collection<String> uris) {
+        if (body != null && body.length() > 0) {
+            body += "\n";
+        }
+        StringBuilder values = new StringBuilder(" VALUES " + variable + " {");
+        for (String uri : uris) {
+            values.append(" <").append(uri).append(">");
+        }
+        values.append(" } ");
+        body += values.toString();
+    }
+
     public void appendSimpleUnion(String subject, String predicate, List<String> unions) {
 
         Iterator<String> iteratorStringUnion = unions.iterator();
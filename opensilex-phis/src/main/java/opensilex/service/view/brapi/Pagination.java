@@ -7,6 +7,9 @@
 //******************************************************************************
 package opensilex.service.view.brapi;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
 /**
  * Pagination model.
  * @author Samuël Cherimont
@@ -17,6 +20,8 @@ public class Pagination {
     private Integer currentPage;
     private Integer totalCount;
     private Integer totalPages;
+    @JsonInclude(Include.NON_NULL)
+    private String nextPageToken;
 
     public Pagination() {
     }
@@ -67,4 +72,16 @@ public class Pagination {
     public Integer getTotalPages() {
         return totalPages;
     }
+
+    /**
+     * Token to get the next page with keyset pagination, null if there is no next page.
+     * @return the next page token
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
 }
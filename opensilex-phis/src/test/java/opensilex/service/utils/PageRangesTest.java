@@ -0,0 +1,76 @@
+//******************************************************************************
+//                         PageRangesTest.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.util.List;
+import opensilex.service.utils.PageRanges.Range;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for the pagination over several sources
+ */
+public class PageRangesTest {
+
+    private static void assertRange(Range range, int source, int skip, int limit) {
+        assertEquals(source, range.getSource());
+        assertEquals(skip, range.getSkip());
+        assertEquals(limit, range.getLimit());
+    }
+
+    @Test
+    public void testPageInOneSource() {
+        List<Range> ranges = PageRanges.get(new long[]{10, 5}, 4, 1);
+        assertEquals(1, ranges.size());
+        assertRange(ranges.get(0), 0, 4, 4);
+    }
+
+    @Test
+    public void testPageAcrossSources() {
+        // Observations counts of 3 variables: page 1 starts at the 6th observation of the first variable
+        List<Range> ranges = PageRanges.get(new long[]{7, 2, 5}, 5, 1);
+        assertEquals(3, ranges.size());
+        assertRange(ranges.get(0), 0, 5, 2);
+        assertRange(ranges.get(1), 1, 0, 2);
+        assertRange(ranges.get(2), 2, 0, 1);
+    }
+
+    @Test
+    public void testSkipSources() {
+        // Empty sources and sources before the page offset are not read
+        List<Range> ranges = PageRanges.get(new long[]{3, 0, 4, 0, 6}, 3, 2);
+        assertEquals(2, ranges.size());
+        assertRange(ranges.get(0), 2, 3, 1);
+        assertRange(ranges.get(1), 4, 0, 2);
+    }
+
+    @Test
+    public void testAllPages() {
+        long[] counts = {4, 0, 3, 6};
+        int limit = 3;
+        int read = 0;
+        for (int page = 0; page < 5; page++) {
+            int pageSize = 0;
+            for (Range range : PageRanges.get(counts, limit, page)) {
+                assertTrue(range.getLimit() > 0);
+                assertTrue(range.getSkip() + range.getLimit() <= counts[range.getSource()]);
+                pageSize += range.getLimit();
+            }
+            assertTrue(pageSize <= limit);
+            read += pageSize;
+        }
+        assertEquals("Each element is read once over all pages", 13, read);
+    }
+
+    @Test
+    public void testPageAfterEnd() {
+        assertTrue(PageRanges.get(new long[]{2, 3}, 5, 1).isEmpty());
+        assertTrue(PageRanges.get(new long[]{2, 3}, 0, 0).isEmpty());
+        assertTrue(PageRanges.get(new long[0], 5, 0).isEmpty());
+    }
+}
@@ -0,0 +1,163 @@
+//******************************************************************************
+//                         UploadSessionRegistryTest.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import opensilex.service.utils.UploadSessionRegistry.UploadSession;
+import org.apache.commons.codec.binary.Hex;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the upload sessions registry
+ */
+public class UploadSessionRegistryTest {
+
+    private final static String URI = "http://www.phenome-fppn.fr/test/2019/i19000001";
+
+    private UploadSessionRegistry<String> registry;
+
+    @Before
+    public void createRegistry() {
+        registry = new UploadSessionRegistry<>("test");
+    }
+
+    @After
+    public void closeSessions() {
+        registry.close(URI);
+    }
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String md5(String text) throws Exception {
+        return Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testParseContentRange() {
+        long[] range = UploadSessionRegistry.parseContentRange("bytes 0-1048575/5242880");
+        assertEquals(0L, range[0]);
+        assertEquals(1048575L, range[1]);
+        assertEquals(5242880L, range[2]);
+
+        assertNull(UploadSessionRegistry.parseContentRange(null));
+        assertNull(UploadSessionRegistry.parseContentRange("0-10/20"));
+        assertNull(UploadSessionRegistry.parseContentRange("bytes 0-10"));
+        assertNull(UploadSessionRegistry.parseContentRange("bytes a-10/20"));
+        assertNull("Start after end", UploadSessionRegistry.parseContentRange("bytes 11-10/20"));
+        assertNull("End after total size", UploadSessionRegistry.parseContentRange("bytes 0-20/20"));
+
+        assertTrue(UploadSessionRegistry.isContentRangeProbe("bytes */5242880"));
+        assertFalse(UploadSessionRegistry.isContentRangeProbe("bytes 0-10/20"));
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        registry.open(URI, "metadata");
+        UploadSession<String> session = registry.get(URI);
+
+        assertEquals(5L, registry.append(session, content("hello"), 0));
+        assertEquals(11L, registry.append(session, content(" world"), 5));
+        assertEquals(md5("hello world"), session.getChecksum());
+        assertEquals("hello world", new String(Files.readAllBytes(session.getFile()), StandardCharsets.UTF_8));
+        assertEquals("bytes=0-10", UploadSessionRegistry.getReceivedRange(session));
+
+        try {
+            registry.append(session, content("!"), 3);
+            fail("Chunk must start at the end of the received content");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+
+        // Chunk at offset 0 restarts the upload
+        assertEquals(3L, registry.append(session, content("new"), 0));
+        assertEquals(md5("new"), session.getChecksum());
+    }
+
+    @Test
+    public void testAppendToBusySession() throws Exception {
+        registry.open(URI, "metadata");
+        UploadSession<String> session = registry.get(URI);
+
+        assertTrue(registry.acquire(session));
+        try {
+            registry.append(session, content("hello"), 0);
+            fail("Busy session must be rejected");
+        } catch (UploadSessionBusyException ex) {
+            // Expected
+        } finally {
+            registry.release(session);
+        }
+
+        assertEquals(5L, registry.append(session, content("hello"), 0));
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        registry.open(URI, "metadata");
+        UploadSession<String> session = registry.get(URI);
+        registry.append(session, content("hello"), 0);
+        Path file = session.getFile();
+
+        registry.expire(session);
+        assertNull(registry.get(URI));
+        assertTrue(session.isClosed());
+        assertFalse(Files.exists(file));
+
+        // Session expired between get and append
+        try {
+            registry.append(session, content("hello"), 5);
+            fail("Expired session must be rejected");
+        } catch (UploadSessionClosedException ex) {
+            // Expected
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testExpireBusySession() throws Exception {
+        registry.open(URI, "metadata");
+        UploadSession<String> session = registry.get(URI);
+        registry.append(session, content("hello"), 0);
+
+        assertTrue(registry.acquire(session));
+        registry.expire(session);
+        assertTrue("Busy session must not expire", registry.get(URI) == session);
+        registry.release(session);
+
+        registry.expire(session);
+        assertNull(registry.get(URI));
+    }
+
+    @Test
+    public void testCloseBusySession() throws Exception {
+        registry.open(URI, "metadata");
+        UploadSession<String> session = registry.get(URI);
+        registry.append(session, content("hello"), 0);
+        Path file = session.getFile();
+
+        assertTrue(registry.acquire(session));
+        registry.close(URI);
+        assertTrue("File is kept while session is busy", Files.exists(file));
+
+        registry.release(session);
+        assertFalse("File is deleted on release", Files.exists(file));
+        assertFalse(registry.acquire(session));
+    }
+}
@@ -0,0 +1,148 @@
+//******************************************************************************
+//                         UriSequenceAllocatorTest.java
+// SILEX-PHIS
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the generated URI numbers allocator
+ */
+public class UriSequenceAllocatorTest {
+
+    private final static String SEQUENCE = "http://www.phenome-fppn.fr/test/2019/s19";
+
+    private Path directory;
+
+    private Path sequencesFile;
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("opensilex_uri_sequences_test");
+        sequencesFile = directory.resolve(UriSequenceAllocator.SEQUENCES_FILE_NAME);
+    }
+
+    @After
+    public void deleteDirectory() throws Exception {
+        Files.deleteIfExists(sequencesFile);
+        Files.deleteIfExists(directory);
+    }
+
+    private int getSavedReservedNumber() throws Exception {
+        Properties numbers = new Properties();
+        try (InputStream input = Files.newInputStream(sequencesFile)) {
+            numbers.load(input);
+        }
+        return Integer.parseInt(numbers.getProperty(SEQUENCE));
+    }
+
+    @Test
+    public void testAllocate() {
+        UriSequenceAllocator allocator = new UriSequenceAllocator(sequencesFile);
+        AtomicInteger storeQueries = new AtomicInteger();
+
+        assertEquals(6, allocator.allocate(SEQUENCE, 1, () -> {
+            storeQueries.incrementAndGet();
+            return 5;
+        }));
+        assertEquals(7, allocator.allocate(SEQUENCE, 3, () -> {
+            storeQueries.incrementAndGet();
+            return 5;
+        }));
+        assertEquals(10, allocator.allocate(SEQUENCE, 1, () -> {
+            storeQueries.incrementAndGet();
+            return 5;
+        }));
+
+        // Triplestore is only queried to seed the sequence
+        assertEquals(1, storeQueries.get());
+    }
+
+    @Test
+    public void testConcurrentAllocate() throws Exception {
+        UriSequenceAllocator allocator = new UriSequenceAllocator(sequencesFile);
+        int threads = 8;
+        int allocationsByThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit((Callable<List<Integer>>) () -> {
+                    List<Integer> numbers = new ArrayList<>();
+                    for (int j = 0; j < allocationsByThread; j++) {
+                        numbers.add(allocator.allocate(SEQUENCE, 1, () -> 0));
+                    }
+                    return numbers;
+                }));
+            }
+
+            Set<Integer> allocated = new HashSet<>();
+            for (Future<List<Integer>> future : futures) {
+                allocated.addAll(future.get());
+            }
+            assertEquals(threads * allocationsByThread, allocated.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReserve() throws Exception {
+        UriSequenceAllocator allocator = new UriSequenceAllocator(sequencesFile);
+        int last = 0;
+        for (int i = 0; i < UriSequenceAllocator.BLOCK_SIZE + 1; i++) {
+            last = allocator.allocate(SEQUENCE, 1, () -> 0);
+        }
+
+        // Reserved block is saved before its numbers are used
+        assertTrue(getSavedReservedNumber() >= last);
+
+        // Restarted sequence continues after reserved block even if allocated numbers are not in triplestore
+        UriSequenceAllocator restarted = new UriSequenceAllocator(sequencesFile);
+        assertEquals(getSavedReservedNumber() + 1, restarted.allocate(SEQUENCE, 1, () -> 0));
+    }
+
+    @Test
+    public void testSeedWithHighestNumber() {
+        UriSequenceAllocator allocator = new UriSequenceAllocator(sequencesFile);
+        allocator.allocate(SEQUENCE, 1, () -> 0);
+
+        // Triplestore is ahead of reserved numbers (restore, other instance, older build)
+        UriSequenceAllocator restarted = new UriSequenceAllocator(sequencesFile);
+        assertEquals(101, restarted.allocate(SEQUENCE, 1, () -> 100));
+    }
+
+    @Test
+    public void testReseed() {
+        UriSequenceAllocator allocator = new UriSequenceAllocator(sequencesFile);
+        assertEquals(1, allocator.allocate(SEQUENCE, 1, () -> 0));
+
+        allocator.seed(SEQUENCE, () -> 50);
+        assertEquals(51, allocator.allocate(SEQUENCE, 1, () -> 0));
+
+        // Sequence never moves back
+        allocator.seed(SEQUENCE, () -> 10);
+        assertEquals(52, allocator.allocate(SEQUENCE, 1, () -> 0));
+    }
+}
@@ -16,6 +16,8 @@ import com.auth0.jwt.impl.PublicClaims;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
@@ -23,11 +25,17 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.ws.rs.core.SecurityContext;
 import org.opensilex.security.SecurityConfig;
 import org.opensilex.security.SecurityModule;
@@ -50,7 +58,11 @@ import org.opensilex.service.BaseService;
  * For details see: https://github.com/patrickfav/bcrypt
  *
  * Logged in users are registred in a concurrent map with their token
- * and automatically unregistred after token expiration.
+ * and automatically unregistred after token expiration by a single scheduler thread.
+ *
+ * Verified tokens are kept in a size-bounded LRU cache keyed by token hash until their
+ * expiration ("exp" claim), so RSA signature is checked only once per token.
+ * Expired tokens are evicted and cache metrics are logged periodically by the same scheduler thread.
  *
  * For existing claim ids, see: https://www.iana.org/assignments/jwt/jwt.xhtml#claims
  * </pre>
@@ -157,15 +169,66 @@ public class AuthenticationService extends BaseService implements Service {
     private ConcurrentHashMap<URI, UserModel> userRegistry = new ConcurrentHashMap<>();
 
     /**
-     * Auto-logout thread map by users
+     * Auto-logout scheduled tasks map by users
+     */
+    private ConcurrentHashMap<URI, ScheduledFuture<?>> schedulerRegistry = new ConcurrentHashMap<>();
+
+    /**
+     * Single thread scheduler executing all auto-logout tasks
      */
-    private ConcurrentHashMap<URI, Thread> schedulerRegistry = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor expirationScheduler;
 
     /**
      * RSA encryption algorithm for JWT token generation
      */
     private final Algorithm algoRSA;
 
+    /**
+     * JWT token verifier, thread-safe and reused for all token verifications
+     */
+    private final JWTVerifier verifier;
+
+    /**
+     * Maximum number of verified tokens kept in cache
+     */
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10000;
+
+    /**
+     * Period in minutes between two evictions of expired tokens and logs of token cache metrics
+     */
+    private static final int TOKEN_CACHE_MAINTENANCE_PERIOD_MINUTES = 5;
+
+    /**
+     * LRU cache of verified tokens by token hash, access must be synchronized on it
+     */
+    private final Map<String, DecodedJWT> verifiedTokenCache = new LinkedHashMap<String, DecodedJWT>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DecodedJWT> eldest) {
+            return size() > VERIFIED_TOKEN_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Verified token cache hit counter
+     */
+    private final AtomicLong tokenCacheHits = new AtomicLong();
+
+    /**
+     * Verified token cache miss counter
+     */
+    private final AtomicLong tokenCacheMisses = new AtomicLong();
+
+    /**
+     * Cumulated token signature verification time in nanoseconds
+     */
+    private final AtomicLong tokenVerificationNanos = new AtomicLong();
+
+    /**
+     * Token cache hit and miss counters at last metrics log
+     */
+    private long lastLoggedTokenCacheHits = 0;
+    private long lastLoggedTokenCacheMisses = 0;
+
     /**
      * Constructor initializing a new RSA key pair for JWT token generation
      *
@@ -179,6 +242,30 @@ public class AuthenticationService extends BaseService implements Service {
         RSAPublicKey publicKey = (RSAPublicKey) kp.getPublic();
         RSAPrivateKey privateKey = (RSAPrivateKey) kp.getPrivate();
         algoRSA = Algorithm.RSA512(publicKey, privateKey);
+        verifier = JWT.require(algoRSA)
+                .withIssuer(TOKEN_ISSUER)
+                .build();
+
+        expirationScheduler = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+            Thread t = new Thread(r, "opensilex-authentication-expiration");
+            t.setDaemon(true);
+            return t;
+        });
+        expirationScheduler.setRemoveOnCancelPolicy(true);
+        expirationScheduler.scheduleAtFixedRate(() -> {
+            evictExpiredTokens();
+            logTokenCacheMetrics();
+        }, TOKEN_CACHE_MAINTENANCE_PERIOD_MINUTES, TOKEN_CACHE_MAINTENANCE_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        expirationScheduler.shutdownNow();
+        schedulerRegistry.clear();
+        synchronized (verifiedTokenCache) {
+            verifiedTokenCache.clear();
+        }
+        logTokenCacheMetrics();
     }
 
     /**
@@ -263,10 +350,7 @@ public class AuthenticationService extends BaseService implements Service {
         if (user.getToken() != null) {
 
             // Check and decode current user token
-            JWTVerifier verifier = JWT.require(algoRSA)
-                    .withIssuer(TOKEN_ISSUER)
-                    .build();
-            DecodedJWT jwt = verifier.verify(user.getToken());
+            DecodedJWT jwt = decodeToken(user.getToken());
 
             // Create a new token
             JWTCreator.Builder tokenBuilder = JWT.create();
@@ -314,6 +398,130 @@ public class AuthenticationService extends BaseService implements Service {
         return false;
     }
 
+    /**
+     * Verify and decode a token.
+     * Verified tokens are cached until their expiration to avoid checking RSA signature on each call.
+     *
+     * @param tokenValue JWT token string
+     * @return Decoded token
+     * @throws JWTVerificationException In case of token validation error
+     */
+    public DecodedJWT decodeToken(String tokenValue) throws JWTVerificationException {
+        String tokenHash = getTokenHash(tokenValue);
+        DecodedJWT jwt;
+        synchronized (verifiedTokenCache) {
+            jwt = verifiedTokenCache.get(tokenHash);
+            if (jwt != null && jwt.getToken().equals(tokenValue)) {
+                if (!isExpired(jwt, new Date())) {
+                    tokenCacheHits.incrementAndGet();
+                    return jwt;
+                }
+                verifiedTokenCache.remove(tokenHash);
+            }
+        }
+
+        tokenCacheMisses.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            jwt = verifier.verify(tokenValue);
+        } finally {
+            tokenVerificationNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        // Least recently used token is evicted when cache is full
+        synchronized (verifiedTokenCache) {
+            verifiedTokenCache.put(tokenHash, jwt);
+        }
+
+        return jwt;
+    }
+
+    /**
+     * Determine if a verified token has expired according to its "exp" claim.
+     *
+     * @param jwt verified token
+     * @param now current date
+     * @return true if the token has expired
+     */
+    private static boolean isExpired(DecodedJWT jwt, Date now) {
+        return jwt.getExpiresAt() != null && !jwt.getExpiresAt().after(now);
+    }
+
+    /**
+     * Remove expired tokens from verified token cache.
+     */
+    private void evictExpiredTokens() {
+        Date now = new Date();
+        synchronized (verifiedTokenCache) {
+            verifiedTokenCache.values().removeIf(jwt -> isExpired(jwt, now));
+        }
+    }
+
+    /**
+     * Log verified token cache metrics if tokens have been decoded since last log.
+     */
+    private synchronized void logTokenCacheMetrics() {
+        long hits = tokenCacheHits.get();
+        long misses = tokenCacheMisses.get();
+        if (hits == lastLoggedTokenCacheHits && misses == lastLoggedTokenCacheMisses) {
+            return;
+        }
+
+        int size;
+        synchronized (verifiedTokenCache) {
+            size = verifiedTokenCache.size();
+        }
+        LOGGER.info(String.format("Verified token cache: %d tokens - %d hits, %d misses (hit rate %.2f)"
+                + " - average verification time %.2f ms",
+                size, hits, misses, getTokenCacheHitRate(), getAverageTokenVerificationMs()));
+
+        lastLoggedTokenCacheHits = hits;
+        lastLoggedTokenCacheMisses = misses;
+    }
+
+    /**
+     * Return SHA-256 hash of a token to use as cache key
+     *
+     * @param tokenValue JWT token string
+     * @return token hash
+     */
+    private static String getTokenHash(String tokenValue) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(tokenValue.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Should never happend, SHA-256 is mandatory for every JVM
+            return tokenValue;
+        }
+    }
+
+    /**
+     * Return verified token cache hit rate between 0 and 1
+     *
+     * @return cache hit rate
+     */
+    public double getTokenCacheHitRate() {
+        long hits = tokenCacheHits.get();
+        long total = hits + tokenCacheMisses.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hits / total;
+    }
+
+    /**
+     * Return average token signature verification time in milliseconds
+     *
+     * @return average verification time
+     */
+    public double getAverageTokenVerificationMs() {
+        long misses = tokenCacheMisses.get();
+        if (misses == 0) {
+            return 0;
+        }
+        return tokenVerificationNanos.get() / (misses * 1000000.0);
+    }
+
     /**
      * Get user URI from a token
      *
@@ -323,12 +531,17 @@ public class AuthenticationService extends BaseService implements Service {
      * @throws URISyntaxException In case of invalid user URI in token (should never happend)
      */
     public URI decodeTokenUserURI(String tokenValue) throws JWTVerificationException, URISyntaxException {
-        JWTVerifier verifier = JWT.require(algoRSA)
-                .withIssuer(TOKEN_ISSUER)
-                .build();
-
-        DecodedJWT jwt = verifier.verify(tokenValue);
+        return getUserURI(decodeToken(tokenValue));
+    }
 
+    /**
+     * Get user URI from a decoded token
+     *
+     * @param jwt Decoded token
+     * @return User uri
+     * @throws URISyntaxException In case of invalid user URI in token (should never happend)
+     */
+    public URI getUserURI(DecodedJWT jwt) throws URISyntaxException {
         return new URI(jwt.getSubject());
     }
 
@@ -339,22 +552,21 @@ public class AuthenticationService extends BaseService implements Service {
      * @return credentials id list
      */
     public String[] decodeTokenCredentialsList(String tokenValue) {
-        JWTVerifier verifier = JWT.require(algoRSA)
-                .withIssuer(TOKEN_ISSUER)
-                .build();
-
-        DecodedJWT jwt = verifier.verify(tokenValue);
+        return getCredentialsList(decodeToken(tokenValue));
+    }
 
+    /**
+     * Get credentials list from a decoded token
+     *
+     * @param jwt Decoded token
+     * @return credentials id list
+     */
+    public String[] getCredentialsList(DecodedJWT jwt) {
         return jwt.getClaim(CLAIM_CREDENTIALS_LIST).asArray(String.class);
     }
 
     public String[] decodeStringArrayClaim(String token, String key) {
-
-        return JWT.require(algoRSA)
-                .withIssuer(TOKEN_ISSUER)
-                .build()
-                .verify(token)
-                .getClaim(key).asArray(String.class);
+        return decodeToken(token).getClaim(key).asArray(String.class);
     }
 
     /**
@@ -391,12 +603,12 @@ public class AuthenticationService extends BaseService implements Service {
      * @param user User to check
      * @return true if user is authenticated, false otherwise
      */
-    public synchronized boolean hasUser(UserModel user) {
+    public boolean hasUser(UserModel user) {
         return hasUserURI(user.getUri());
     }
 
     /**
-     * Add a user with an authentication delay. Create a thread per user which just sleep until delay is expired.
+     * Add a user with an authentication delay. Schedule a task on the expiration scheduler which remove user when delay is expired.
      *
      * @param user Userto add
      * @param expireMs authentication delay in milliseconds
@@ -410,25 +622,25 @@ public class AuthenticationService extends BaseService implements Service {
             removeUserByURI(userURI);
         }
 
-        // Create thread to remove user after expire time
-        Thread t = new Thread(() -> {
+        // Add user into concurrent map registry
+        userRegistry.put(userURI, user);
+
+        // Schedule task to remove user after expire time
+        ScheduledFuture<?> expiration = expirationScheduler.schedule(() -> {
             try {
-                Thread.sleep(expireMs);
-                LOGGER.debug("User connection timeout: " + userURI);
-                removeUser(user);
-            } catch (InterruptedException ex) {
-                LOGGER.debug("Revoke user: " + userURI + " - " + ex.getMessage());
+                if (getUserByUri(userURI) == user) {
+                    LOGGER.debug("User connection timeout: " + userURI);
+                    removeUser(user);
+                }
             } catch (Exception ex) {
                 LOGGER.warn("Error while removing user: " + userURI + " - ", ex);
             }
-        });
-
-        // Start thread
-        t.start();
+        }, expireMs, TimeUnit.MILLISECONDS);
 
-        // Add user and logout thread into concurrent map registry
-        userRegistry.put(userURI, user);
-        schedulerRegistry.put(userURI, t);
+        ScheduledFuture<?> previousExpiration = schedulerRegistry.put(userURI, expiration);
+        if (previousExpiration != null) {
+            previousExpiration.cancel(false);
+        }
 
         LOGGER.debug("User registered: " + userURI);
     }
@@ -455,8 +667,11 @@ public class AuthenticationService extends BaseService implements Service {
         boolean allowMultiConnection = getOpenSilex().getModuleConfig(SecurityModule.class, SecurityConfig.class).allowMultiConnection();
         if (!allowMultiConnection && hasUserURI(userURI)) {
             LOGGER.debug("Unregister user: " + userURI);
-            schedulerRegistry.get(userURI).interrupt();
-            schedulerRegistry.remove(userURI);
+            ScheduledFuture<?> expiration = schedulerRegistry.remove(userURI);
+            if (expiration != null) {
+                LOGGER.debug("Revoke user: " + userURI);
+                expiration.cancel(false);
+            }
 
             UserModel user = userRegistry.remove(userURI);
 
@@ -477,7 +692,7 @@ public class AuthenticationService extends BaseService implements Service {
      * @param userURI User URI to check
      * @return true if user is registred false otherwise
      */
-    public synchronized boolean hasUserURI(URI userURI) {
+    public boolean hasUserURI(URI userURI) {
         return userRegistry.containsKey(userURI);
     }
 
@@ -487,7 +702,7 @@ public class AuthenticationService extends BaseService implements Service {
      * @param userURI User URI to get
      * @return registred user or null
      */
-    public synchronized UserModel getUserByUri(URI userURI) {
+    public UserModel getUserByUri(URI userURI) {
         return userRegistry.get(userURI);
     }
 
@@ -8,6 +8,7 @@ package org.opensilex.security.authentication.filters;
 
 import org.opensilex.security.authentication.AuthenticationService;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -83,6 +84,11 @@ public class AuthenticationFilter implements ContainerRequestFilter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationFilter.class);
 
+    /**
+     * Request property name used to share decoded token with following filters
+     */
+    public final static String DECODED_TOKEN_PROPERTY = "opensilex.decodedToken";
+
     @Context
     HttpHeaders headers;
 
@@ -128,7 +134,9 @@ public class AuthenticationFilter implements ContainerRequestFilter {
             try {
                 // Decode token
                 String token = tokenValue.replace(ApiProtected.TOKEN_PARAMETER_PREFIX, "");
-                URI userURI = authentication.decodeTokenUserURI(token);
+                DecodedJWT jwt = authentication.decodeToken(token);
+                URI userURI = authentication.getUserURI(jwt);
+                requestContext.setProperty(DECODED_TOKEN_PROPERTY, jwt);
 
                 // Get corresponding user
                 if (authentication.hasUserURI(userURI)) {
@@ -7,6 +7,7 @@
 package org.opensilex.security.authentication.filters;
 
 import org.opensilex.security.authentication.AuthenticationService;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -99,8 +100,13 @@ public class CredentialFilter implements ContainerRequestFilter {
                     if (credentialId != null) {
                         // Get current API service credential
 
-                        // Get user credentials from token
-                        String[] accessList = authentication.decodeTokenCredentialsList(user.getToken());
+                        // Get user credentials from the user current token, the token already decoded by
+                        // authentication filter is reused only if it is the same (an older token may contain outdated credentials)
+                        DecodedJWT jwt = (DecodedJWT) requestContext.getProperty(AuthenticationFilter.DECODED_TOKEN_PROPERTY);
+                        if (jwt == null || !jwt.getToken().equals(user.getToken())) {
+                            jwt = authentication.decodeToken(user.getToken());
+                        }
+                        String[] accessList = authentication.getCredentialsList(jwt);
 
                         // Check user credential existence
                         hasCredential = Arrays.stream(accessList).anyMatch(credentialId::equals);
@@ -2,6 +2,7 @@ package org.opensilex.security.authentication.api;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
@@ -10,12 +11,15 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
 import org.opensilex.integration.test.security.AbstractSecurityIntegrationTest;
 import org.opensilex.security.authentication.ApiProtected;
+import org.opensilex.security.authentication.AuthenticationService;
 import org.opensilex.security.group.api.GroupAPI;
 import org.opensilex.security.profile.api.ProfileAPI;
 import org.opensilex.security.user.api.UserAPI;
+import org.opensilex.security.user.dal.UserModel;
 import org.opensilex.server.response.PaginatedListResponse;
 
 public class AuthenticationAPITest extends AbstractSecurityIntegrationTest {
@@ -31,6 +35,7 @@ public class AuthenticationAPITest extends AbstractSecurityIntegrationTest {
     protected String renewTokenPath = path + "/renew-token";
     protected String logoutPath = path + "/logout";
     protected String credentialsPath = path + "/credentials";
+    protected String searchUserPath = "/user/search";
 
     @Test
     public void testRenew() throws Exception {
@@ -70,6 +75,50 @@ public class AuthenticationAPITest extends AbstractSecurityIntegrationTest {
         assertEquals(Response.Status.FORBIDDEN.getStatusCode(), putResult.getStatus());
     }
 
+    @Test
+    public void testRequestThroughputWithActiveSessions() throws Exception {
+        AuthenticationService authentication = getAuthenticationService();
+        int sessionCount = 10000;
+        int requestCount = 200;
+
+        // Register sessions, expiration tasks must share the scheduler thread instead of one thread by session
+        int threadCountBefore = Thread.activeCount();
+        List<URI> sessionURIs = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            UserModel user = new UserModel();
+            user.setUri(new URI("http://opensilex.dev/users#load-test-" + i));
+            authentication.addUser(user, authentication.getExpireInMs());
+            sessionURIs.add(user.getUri());
+        }
+        assertTrue(Thread.activeCount() - threadCountBefore < 100);
+
+        try {
+            // Session lookups done by the authentication filter on each request
+            long start = System.nanoTime();
+            for (URI sessionURI : sessionURIs) {
+                assertTrue(authentication.hasUserURI(sessionURI));
+                assertNotNull(authentication.getUserByUri(sessionURI));
+            }
+            long lookupNanos = System.nanoTime() - start;
+
+            // Authenticated requests served while all sessions are active
+            start = System.nanoTime();
+            for (int i = 0; i < requestCount; i++) {
+                Response getResult = appendToken(target(searchUserPath)).get();
+                assertEquals(Response.Status.OK.getStatusCode(), getResult.getStatus());
+                getResult.close();
+            }
+            long requestNanos = System.nanoTime() - start;
+
+            LOGGER.info(sessionCount + " active sessions: " + (sessionCount * 1000000000L / Math.max(1, lookupNanos)) + " session lookups/s - "
+                    + (requestCount * 1000000000L / Math.max(1, requestNanos)) + " authenticated requests/s");
+        } finally {
+            for (URI sessionURI : sessionURIs) {
+                authentication.removeUserByURI(sessionURI);
+            }
+        }
+    }
+
     @Test
     public void testCredentials() {
         Response getResult = getJsonGetPublicResponse(target(credentialsPath));
@@ -7,6 +7,7 @@ package org.opensilex.sparql;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import org.opensilex.sparql.service.SPARQLClassHierarchy;
 import org.opensilex.sparql.service.SPARQLService;
 import java.net.URI;
 import java.util.List;
@@ -93,6 +94,8 @@ public class SPARQLModule extends OpenSilexModule {
                 }
             }
             sparql.commitTransaction();
+            // Reload class hierarchy from committed ontologies
+            SPARQLClassHierarchy.invalidate();
         } catch (Exception ex) {
             sparql.rollbackTransaction();
             throw ex;
@@ -0,0 +1,19 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.sparql.exceptions;
+
+/**
+ * Unchecked exception thrown while a stream of SPARQL results is consumed, wrapping the error which occured on a result.
+ *
+ * @author vincent
+ */
+public class SPARQLStreamException extends RuntimeException {
+
+    public SPARQLStreamException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -20,6 +20,7 @@ import java.util.*;
 import org.apache.jena.arq.querybuilder.AskBuilder;
 import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
+import org.apache.jena.arq.querybuilder.WhereBuilder;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.rdf.model.Property;
@@ -27,6 +28,7 @@ import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.expr.E_StrLowerCase;
 import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.expr.ExprVar;
+import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 import org.opensilex.sparql.deserializer.SPARQLDeserializer;
 import org.opensilex.sparql.deserializer.SPARQLDeserializers;
@@ -55,6 +57,7 @@ public class SPARQLClassObjectMapper<T extends SPARQLResourceModel> {
     private Constructor<T> constructor;
     protected SPARQLClassQueryBuilder classQueryBuilder;
     protected SPARQLClassAnalyzer classAnalizer;
+    private Boolean classHierarchyField;
 
     protected SPARQLClassObjectMapper(Class<T> objectClass, URI baseGraphURI, SPARQLClassObjectMapperIndex mapperIndex) {
         LOGGER.debug("Initialize SPARQL ressource class object mapper for: " + objectClass.getName());
@@ -209,6 +212,19 @@ public class SPARQLClassObjectMapper<T extends SPARQLResourceModel> {
         return instance;
     }
 
+    /**
+     * Load the given relation fields of all instances with one query by field instead of one query by instance.
+     *
+     * @param instances list of instances created by this mapper
+     * @param fieldNames names of the object, label or list fields to load
+     * @param lang language used to load related objects
+     * @param service SPARQL service used to execute batch queries
+     * @throws Exception
+     */
+    public void prefetchRelations(List<T> instances, Collection<String> fieldNames, String lang, SPARQLService service) throws Exception {
+        new SPARQLProxyBatchLoader<T>(mapperIndex, classAnalizer, service, lang).load(instances, fieldNames);
+    }
+
     public T createInstance(URI uri) throws Exception {
         T instance = constructor.newInstance();
 
@@ -310,6 +326,10 @@ public class SPARQLClassObjectMapper<T extends SPARQLResourceModel> {
         classQueryBuilder.addDeleteBuilder(graph, instance, delete);
     }
 
+    public boolean addUpdateBuilder(Node graph, T oldInstance, T newInstance, UpdateBuilder update) throws Exception {
+        return classQueryBuilder.addUpdateBuilder(graph, oldInstance, newInstance, update);
+    }
+
     public URI getURI(Object instance) {
         return classAnalizer.getURI(instance);
     }
@@ -373,6 +393,10 @@ public class SPARQLClassObjectMapper<T extends SPARQLResourceModel> {
         }
     }
 
+    public Field getFieldFromName(String fieldName) {
+        return classAnalizer.getFieldFromName(fieldName);
+    }
+
     public Field getFieldFromUniqueProperty(Property property) {
         return classAnalizer.getFieldFromUniqueProperty(property);
     }
@@ -566,6 +590,129 @@ public class SPARQLClassObjectMapper<T extends SPARQLResourceModel> {
         return statementCount > 0;
     }
 
+    /**
+     * <pre>
+     * Add to a batch delete builder the triples removed for each instance by {@link #getDeleteBuilder(Node, SPARQLResourceModel)}
+     * and by {@link #getDeleteRelationsBuilder(Node, URI)}: rdf:type and mapped fields triples, inverse fields triples
+     * and related resources relations. Other triples of the instances are kept, like with a single instance delete.
+     *
+     * Each pattern is added as an UNION branch bound to the instances URIs variable, which must be defined by a VALUES clause.
+     * </pre>
+     *
+     * @param graph instances graph
+     * @param uriVar instances URIs variable
+     * @param delete batch delete builder
+     * @return number of UNION branches added
+     * @throws Exception
+     */
+    public int addDeleteInstancesFieldsBuilder(Node graph, Var uriVar, UpdateBuilder delete) throws Exception {
+        int statementCount = 0;
+
+        Set<Field> fields = new LinkedHashSet<>();
+        fields.addAll(classAnalizer.getDataPropertyFields());
+        fields.addAll(classAnalizer.getObjectPropertyFields());
+        fields.addAll(classAnalizer.getLabelPropertyFields());
+        fields.addAll(classAnalizer.getDataListPropertyFields());
+        fields.addAll(classAnalizer.getObjectListPropertyFields());
+
+        // Type and fields triples, stored in instances graph with the instance as subject
+        Set<Property> properties = new LinkedHashSet<>();
+        properties.add(RDF.type);
+        for (Field field : fields) {
+            if (!classAnalizer.isReverseRelation(field)) {
+                properties.add(classAnalizer.getFieldProperty(field));
+            }
+        }
+        for (Property property : properties) {
+            statementCount++;
+            Var objectVar = makeVar("_val" + statementCount);
+            WhereBuilder fieldWhere = new WhereBuilder().addWhere(uriVar, property, objectVar);
+            if (graph == null) {
+                delete.addDelete(uriVar, property, objectVar);
+                delete.addUnion(fieldWhere);
+            } else {
+                delete.addDelete(graph, uriVar, property, objectVar);
+                delete.addUnion(new WhereBuilder().addGraph(graph, fieldWhere));
+            }
+        }
+
+        // Inverse fields triples, stored with the instance as object
+        for (Field field : fields) {
+            if (classAnalizer.isReverseRelation(field)) {
+                Node fieldGraph = graph;
+                if (classAnalizer.isObjectPropertyField(field)) {
+                    fieldGraph = mapperIndex.getForResource(classAnalizer.getFieldRDFType(field)).getDefaultGraph();
+                } else if (classAnalizer.isObjectListField(field)) {
+                    fieldGraph = mapperIndex.getForResource(classAnalizer.getFieldListRDFType(field)).getDefaultGraph();
+                }
+
+                statementCount++;
+                Var subjectVar = makeVar("_inv" + statementCount);
+                Property property = classAnalizer.getFieldProperty(field);
+                if (fieldGraph == null) {
+                    delete.addDelete(subjectVar, property, uriVar);
+                } else {
+                    delete.addDelete(fieldGraph, subjectVar, property, uriVar);
+                }
+                delete.addUnion(new WhereBuilder().addWhere(subjectVar, property, uriVar));
+            }
+        }
+
+        // Related resources relations, same patterns as addDeleteRelationsBuilder
+        Set<Class<? extends SPARQLResourceModel>> relatedResources = classAnalizer.getRelatedResources();
+        if (relatedResources != null) {
+            for (Class<? extends SPARQLResourceModel> relatedModelClass : relatedResources) {
+                SPARQLClassObjectMapper<SPARQLResourceModel> relatedModelMapper = mapperIndex.getForClass(relatedModelClass);
+                Set<Field> modelRelationFields = relatedModelMapper.classAnalizer.getFieldsRelatedTo(objectClass);
+                for (Field relationField : modelRelationFields) {
+                    Property property = relatedModelMapper.classAnalizer.getFieldProperty(relationField);
+                    statementCount++;
+                    Var subjectVar = makeVar("_relSubj" + statementCount);
+                    Var propertyVar = makeVar("_relProp" + statementCount);
+                    Var objectVar = makeVar("_relObj" + statementCount);
+                    if (graph == null) {
+                        delete.addDelete(subjectVar, propertyVar, objectVar);
+                    } else {
+                        delete.addDelete(graph, subjectVar, propertyVar, objectVar);
+                    }
+
+                    WhereBuilder relationWhere = new WhereBuilder().addWhere(subjectVar, propertyVar, objectVar);
+                    if (relatedModelMapper.classAnalizer.isReverseRelation(relationField)) {
+                        relationWhere.addWhere(subjectVar, property, uriVar);
+                    } else {
+                        relationWhere.addWhere(uriVar, property, objectVar);
+                    }
+                    delete.addUnion(relationWhere);
+                }
+            }
+        }
+
+        return statementCount;
+    }
+
+    /**
+     * @return true if instances of this class have rdfs:subClassOf triples, so class hierarchy changes when they are written
+     */
+    public boolean hasClassHierarchyField() {
+        if (classHierarchyField == null) {
+            boolean hasField = false;
+            Set<Field> fields = new HashSet<>();
+            fields.addAll(classAnalizer.getDataPropertyFields());
+            fields.addAll(classAnalizer.getObjectPropertyFields());
+            fields.addAll(classAnalizer.getDataListPropertyFields());
+            fields.addAll(classAnalizer.getObjectListPropertyFields());
+            for (Field field : fields) {
+                if (RDFS.subClassOf.equals(classAnalizer.getFieldProperty(field))) {
+                    hasField = true;
+                    break;
+                }
+            }
+            classHierarchyField = hasField;
+        }
+
+        return classHierarchyField;
+    }
+
     public void updateInstanceFromOldValues(T oldInstance, T newInstance) throws Exception {
         if (newInstance.getType() == null) {
             newInstance.setType(oldInstance.getType());
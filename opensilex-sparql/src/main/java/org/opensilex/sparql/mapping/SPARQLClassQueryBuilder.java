@@ -15,7 +15,9 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.sparql.core.TriplePath;
 import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
 import org.apache.jena.sparql.lang.sparql_11.ParseException;
+import org.apache.jena.sparql.syntax.ElementData;
 import org.apache.jena.sparql.syntax.ElementNamedGraph;
 import org.apache.jena.vocabulary.RDF;
 import org.opensilex.sparql.deserializer.SPARQLDeserializers;
@@ -28,9 +30,12 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import org.apache.jena.arq.querybuilder.ExprFactory;
 import org.apache.jena.datatypes.xsd.XSDDatatype;
@@ -46,6 +51,7 @@ import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.RDFS;
 import org.opensilex.OpenSilex;
 import org.opensilex.sparql.model.SPARQLLabel;
+import org.opensilex.sparql.service.SPARQLClassHierarchy;
 import org.opensilex.sparql.service.SPARQLQueryHelper;
 import static org.opensilex.sparql.service.SPARQLQueryHelper.makeVar;
 import org.opensilex.sparql.utils.SHACL;
@@ -66,7 +72,61 @@ class SPARQLClassQueryBuilder {
         this.mapperIndex = mapperIndex;
     }
 
+    /**
+     * Base select query templates by graph and lang, never modified once built
+     */
+    private final Map<String, SelectBuilder> selectTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Base ask query templates by graph and lang, never modified once built
+     */
+    private final Map<String, AskBuilder> askTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Base count query templates by graph, count field name and lang, never modified once built
+     */
+    private final Map<String, SelectBuilder> countTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of types for which the rdfs:subClassOf* path is replaced by a VALUES clause
+     */
+    private final static int MAX_TYPES_VALUES = 500;
+
+    /**
+     * Class hierarchy version used by cached templates
+     */
+    private volatile long templatesHierarchyVersion = -1;
+
+    private String getTemplateKey(Node graph, String... parts) {
+        long hierarchyVersion = SPARQLClassHierarchy.getVersion();
+        if (hierarchyVersion != templatesHierarchyVersion) {
+            selectTemplates.clear();
+            askTemplates.clear();
+            countTemplates.clear();
+            templatesHierarchyVersion = hierarchyVersion;
+        }
+
+        // Templates built before hierarchy loading use subClassOf* path and are kept apart
+        StringBuilder key = new StringBuilder(SPARQLClassHierarchy.getLoadedInstance() == null ? "path|" : "values|");
+        key.append(graph == null ? "" : graph.toString());
+        for (String part : parts) {
+            key.append('|').append(part);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return a copy of the base select query for the given graph and lang, built once and then cloned on each call.
+     *
+     * @param graph query graph
+     * @param lang query lang
+     * @return a select builder which can be freely modified
+     */
     public SelectBuilder getSelectBuilder(Node graph, String lang) {
+        return selectTemplates.computeIfAbsent(getTemplateKey(graph, lang), (key) -> buildSelectBuilder(graph, lang)).clone();
+    }
+
+    private SelectBuilder buildSelectBuilder(Node graph, String lang) {
         SelectBuilder selectBuilder = new SelectBuilder();
         selectBuilder.setDistinct(true);
 
@@ -86,10 +146,19 @@ class SPARQLClassQueryBuilder {
         return selectBuilder;
     }
 
+    /**
+     * Return a copy of the base ask query for the given graph and lang, built once and then cloned on each call.
+     *
+     * @param graph query graph
+     * @param lang query lang
+     * @return an ask builder which can be freely modified
+     */
     public AskBuilder getAskBuilder(Node graph, String lang) {
-        AskBuilder askBuilder = new AskBuilder();
-        initializeQueryBuilder(askBuilder, graph, lang, analyzer.allowBlankNode());
-        return askBuilder;
+        return askTemplates.computeIfAbsent(getTemplateKey(graph, lang), (key) -> {
+            AskBuilder askBuilder = new AskBuilder();
+            initializeQueryBuilder(askBuilder, graph, lang, analyzer.allowBlankNode());
+            return askBuilder;
+        }).clone();
     }
 
     public void initializeQueryBuilder(AbstractQueryBuilder<?> builder, Node graph, String lang, boolean allowBlankNode) {
@@ -154,7 +223,19 @@ class SPARQLClassQueryBuilder {
 
     }
 
+    /**
+     * Return a copy of the base count query for the given graph, count field and lang, built once and then cloned on each call.
+     *
+     * @param graph query graph
+     * @param countFieldName count result variable name
+     * @param lang query lang
+     * @return a select builder which can be freely modified
+     */
     public SelectBuilder getCountBuilder(Node graph, String countFieldName, String lang) {
+        return countTemplates.computeIfAbsent(getTemplateKey(graph, countFieldName, lang), (key) -> buildCountBuilder(graph, countFieldName, lang)).clone();
+    }
+
+    private SelectBuilder buildCountBuilder(Node graph, String countFieldName, String lang) {
         String uriFieldName = analyzer.getURIFieldName();
 
         SelectBuilder countBuilder = new SelectBuilder();
@@ -192,7 +273,22 @@ class SPARQLClassQueryBuilder {
         WhereHandler whereHandler = builder.getWhereHandler();
         // WhereHandler used for adding all WHERE clause
         rootWhereHandler.addWhere(builder.makeTriplePath(makeVar(uriFieldName), RDF.type, typeFieldVar));
-        whereHandler.addWhere(builder.makeTriplePath(typeFieldVar, Ontology.subClassAny, analyzer.getRDFType()));
+        SPARQLClassHierarchy hierarchy = SPARQLClassHierarchy.getLoadedInstance();
+        Set<String> types = null;
+        if (hierarchy != null) {
+            types = hierarchy.getDescendants(analyzer.getRDFType().getURI());
+        }
+        if (types != null && types.size() <= MAX_TYPES_VALUES) {
+            // Use precomputed concrete types instead of rdfs:subClassOf* path
+            ElementData typesData = new ElementData();
+            typesData.add(typeFieldVar);
+            for (String type : types) {
+                typesData.add(BindingFactory.binding(typeFieldVar, NodeFactory.createURI(type)));
+            }
+            whereHandler.getClause().addElement(typesData);
+        } else {
+            whereHandler.addWhere(builder.makeTriplePath(typeFieldVar, Ontology.subClassAny, analyzer.getRDFType()));
+        }
 
         String typeLabelFieldName = analyzer.getTypeLabelFieldName();
         Var typeLabelFieldVar = makeVar(typeLabelFieldName);
@@ -272,6 +368,74 @@ class SPARQLClassQueryBuilder {
         });
     }
 
+    /**
+     * <pre>
+     * Add to the given builder the minimal set of quads to delete and to insert
+     * in order to replace oldInstance triples by newInstance ones.
+     *
+     * Quads existing for both instances are neither deleted nor inserted.
+     * Relations of the new instance are always inserted as they are not loaded with old instance.
+     * </pre>
+     *
+     * @param graph instances graph
+     * @param oldInstance instance as currently stored
+     * @param newInstance instance to store
+     * @param update builder in which DELETE and INSERT quads are added
+     * @return true if at least one quad has been added to the builder
+     * @throws Exception
+     */
+    public <T extends SPARQLResourceModel> boolean addUpdateBuilder(Node graph, T oldInstance, T newInstance, UpdateBuilder update) throws Exception {
+        Set<Quad> oldQuads = new LinkedHashSet<>();
+        executeOnInstanceTriples(graph, oldInstance, (Quad quad, Field field) -> {
+            oldQuads.add(quad);
+        });
+
+        Set<Quad> newQuads = new LinkedHashSet<>();
+        executeOnInstanceTriples(graph, newInstance, (Quad quad, Field field) -> {
+            newQuads.add(quad);
+        });
+
+        int statementCount = 0;
+        for (Quad quad : oldQuads) {
+            if (!newQuads.contains(quad)) {
+                if (graph == null) {
+                    update.addDelete(quad.asTriple());
+                } else {
+                    update.addDelete(quad);
+                }
+                statementCount++;
+            }
+        }
+
+        for (Quad quad : newQuads) {
+            if (!oldQuads.contains(quad)) {
+                if (graph == null) {
+                    update.addInsert(quad.asTriple());
+                } else {
+                    update.addInsert(quad);
+                }
+                statementCount++;
+            }
+        }
+
+        URI uri = newInstance.getUri();
+        for (SPARQLModelRelation relation : newInstance.getRelations()) {
+            Class<?> valueType = relation.getType();
+            Node valueNode = SPARQLDeserializers.getForClass(valueType).getNodeFromString(relation.getValue());
+
+            Triple triple = new Triple(SPARQLDeserializers.nodeURI(uri), relation.getProperty().asNode(), valueNode);
+
+            Node relationGraph = graph;
+            if (relation.getGraph() != null) {
+                relationGraph = SPARQLDeserializers.nodeURI(relation.getGraph());
+            }
+            update.addInsert(relationGraph, triple);
+            statementCount++;
+        }
+
+        return statementCount > 0;
+    }
+
     /**
      * Add the WHERE clause into handler, depending if the given field is optional or not, according {@link #analyzer}
      *
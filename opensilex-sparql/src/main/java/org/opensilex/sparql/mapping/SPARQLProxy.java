@@ -5,9 +5,13 @@
  */
 package org.opensilex.sparql.mapping;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.implementation.InvocationHandlerAdapter;
 import net.bytebuddy.matcher.ElementMatchers;
 import org.apache.jena.graph.*;
@@ -39,18 +43,44 @@ abstract class SPARQLProxy<T> implements InvocationHandler {
     protected final SPARQLClassObjectMapperIndex mapperIndex;
     protected T instance;
 
-    public T getInstance() {
-        Class<? extends T> proxy = new ByteBuddy()
-                .subclass(type)
-                .implement(SPARQLProxyMarker.class)
-                .method(ElementMatchers.any())
-                .intercept(InvocationHandlerAdapter.of(this))
-                .make()
-                .load(OpenSilex.getClassLoader())
-                .getLoaded();
+    /**
+     * Name of the generated field holding the invocation handler of each proxy instance.
+     */
+    private final static String HANDLER_FIELD = "sparqlProxyHandler";
+
+    /**
+     * Generated proxy classes by proxified type, each class is generated once and shared by all proxies of this type.
+     */
+    private final static Map<Class<?>, Field> proxyHandlerFields = new ConcurrentHashMap<>();
+
+    private static Field getProxyHandlerField(Class<?> type) {
+        return proxyHandlerFields.computeIfAbsent(type, (Class<?> proxifiedType) -> {
+            LOGGER.debug("Generate SPARQL proxy class for: " + proxifiedType.getName());
+            Class<?> proxyClass = new ByteBuddy()
+                    .subclass(proxifiedType)
+                    .implement(SPARQLProxyMarker.class)
+                    .defineField(HANDLER_FIELD, InvocationHandler.class, Visibility.PUBLIC)
+                    .method(ElementMatchers.any())
+                    .intercept(InvocationHandlerAdapter.toField(HANDLER_FIELD))
+                    .make()
+                    .load(OpenSilex.getClassLoader())
+                    .getLoaded();
+
+            try {
+                return proxyClass.getField(HANDLER_FIELD);
+            } catch (NoSuchFieldException ex) {
+                throw new IllegalStateException("Generated SPARQL proxy class has no handler field (should never happend)", ex);
+            }
+        });
+    }
 
+    @SuppressWarnings("unchecked")
+    public T getInstance() {
         try {
-            return proxy.getConstructor().newInstance();
+            Field handlerField = getProxyHandlerField(type);
+            T proxy = (T) handlerField.getDeclaringClass().getConstructor().newInstance();
+            handlerField.set(proxy, this);
+            return proxy;
         } catch (Exception ex) {
             LOGGER.error("Error while creating SPARQL proxy class (should never happend)", ex);
         }
@@ -58,6 +88,24 @@ abstract class SPARQLProxy<T> implements InvocationHandler {
         return null;
     }
 
+    /**
+     * Return the proxy handler bound to the given proxy instance.
+     *
+     * @param proxy proxy instance
+     * @return proxy handler or null if the given object is not a proxy
+     */
+    static SPARQLProxy<?> getProxyHandler(Object proxy) {
+        if (proxy instanceof SPARQLProxyMarker) {
+            try {
+                return (SPARQLProxy<?>) proxy.getClass().getField(HANDLER_FIELD).get(proxy);
+            } catch (Exception ex) {
+                LOGGER.error("Error while reading SPARQL proxy handler (should never happend)", ex);
+            }
+        }
+
+        return null;
+    }
+
     private boolean loaded = false;
 
     protected T loadIfNeeded() throws Exception {
@@ -69,6 +117,20 @@ abstract class SPARQLProxy<T> implements InvocationHandler {
         return instance;
     }
 
+    protected boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Set proxified instance when it has been loaded by another way than {@link #loadData()}, for example by a batch query.
+     *
+     * @param instance loaded instance
+     */
+    protected void setLoadedInstance(T instance) {
+        this.instance = instance;
+        this.loaded = true;
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         loadIfNeeded();
@@ -0,0 +1,282 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.sparql.mapping;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.arq.querybuilder.SelectBuilder;
+import org.apache.jena.arq.querybuilder.WhereBuilder;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.sparql.core.Var;
+import org.opensilex.sparql.deserializer.SPARQLDeserializer;
+import org.opensilex.sparql.deserializer.SPARQLDeserializers;
+import org.opensilex.sparql.exceptions.SPARQLUnknownFieldException;
+import org.opensilex.sparql.model.SPARQLLabel;
+import org.opensilex.sparql.model.SPARQLResourceModel;
+import org.opensilex.sparql.service.SPARQLQueryHelper;
+import static org.opensilex.sparql.service.SPARQLQueryHelper.makeVar;
+import org.opensilex.sparql.service.SPARQLResult;
+import org.opensilex.sparql.service.SPARQLService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolve pending lazy relations of a list of instances with one query by relation field instead of one query by instance.
+ *
+ * Labels and lists are loaded with one query by field and by proxy graph, relations are only searched in the graph of their proxy.
+ *
+ * @author vincent
+ */
+class SPARQLProxyBatchLoader<T extends SPARQLResourceModel> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SPARQLProxyBatchLoader.class);
+
+    private final static String SUBJECT_VAR = "_batchSubject";
+
+    private final static String VALUE_VAR = "_batchValue";
+
+    private final static String LANG_VAR = "_batchLang";
+
+    private final SPARQLClassObjectMapperIndex mapperIndex;
+
+    private final SPARQLClassAnalyzer classAnalizer;
+
+    private final SPARQLService service;
+
+    private final String lang;
+
+    SPARQLProxyBatchLoader(SPARQLClassObjectMapperIndex mapperIndex, SPARQLClassAnalyzer classAnalizer, SPARQLService service, String lang) {
+        this.mapperIndex = mapperIndex;
+        this.classAnalizer = classAnalizer;
+        this.service = service;
+        this.lang = lang;
+    }
+
+    public void load(List<T> instances, Collection<String> fieldNames) throws Exception {
+        if (instances.isEmpty() || fieldNames == null) {
+            return;
+        }
+
+        for (String fieldName : fieldNames) {
+            Field field = classAnalizer.getFieldFromName(fieldName);
+            if (field == null) {
+                throw new SPARQLUnknownFieldException(classAnalizer.getObjectClass(), fieldName, null);
+            }
+
+            List<SPARQLProxy<?>> proxies = getPendingProxies(instances, field);
+            if (proxies.isEmpty()) {
+                continue;
+            }
+
+            LOGGER.debug("Batch load " + proxies.size() + " relations for field: " + fieldName);
+            if (classAnalizer.isObjectPropertyField(field)) {
+                loadResources(proxies);
+            } else if (classAnalizer.isLabelField(field)) {
+                for (Map.Entry<Node, List<SPARQLProxy<?>>> graphProxies : getProxiesByGraph(proxies).entrySet()) {
+                    loadLabels(field, graphProxies.getKey(), graphProxies.getValue());
+                }
+            } else if (classAnalizer.isDataListField(field)) {
+                for (Map.Entry<Node, List<SPARQLProxy<?>>> graphProxies : getProxiesByGraph(proxies).entrySet()) {
+                    loadDataLists(field, graphProxies.getKey(), graphProxies.getValue());
+                }
+            } else if (classAnalizer.isObjectListField(field)) {
+                for (Map.Entry<Node, List<SPARQLProxy<?>>> graphProxies : getProxiesByGraph(proxies).entrySet()) {
+                    loadObjectLists(field, graphProxies.getKey(), graphProxies.getValue());
+                }
+            } else {
+                LOGGER.warn("Field is not a lazy relation and can't be batch loaded: " + fieldName);
+            }
+        }
+    }
+
+    /**
+     * Group proxies by the graph they have been created with, null graph included.
+     */
+    private Map<Node, List<SPARQLProxy<?>>> getProxiesByGraph(List<SPARQLProxy<?>> proxies) {
+        Map<Node, List<SPARQLProxy<?>>> proxiesByGraph = new LinkedHashMap<>();
+        for (SPARQLProxy<?> proxy : proxies) {
+            proxiesByGraph.computeIfAbsent(proxy.graph, (graph) -> new ArrayList<>()).add(proxy);
+        }
+        return proxiesByGraph;
+    }
+
+    private List<SPARQLProxy<?>> getPendingProxies(List<T> instances, Field field) {
+        List<SPARQLProxy<?>> proxies = new ArrayList<>(instances.size());
+        for (T instance : instances) {
+            SPARQLProxy<?> proxy = SPARQLProxy.getProxyHandler(classAnalizer.getFieldValue(field, instance));
+            if (proxy != null && !proxy.isLoaded()) {
+                proxies.add(proxy);
+            }
+        }
+        return proxies;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadResources(List<SPARQLProxy<?>> proxies) throws Exception {
+        Map<URI, List<SPARQLProxyResource<SPARQLResourceModel>>> proxiesByURI = new HashMap<>();
+        Class<SPARQLResourceModel> type = null;
+        for (SPARQLProxy<?> proxy : proxies) {
+            SPARQLProxyResource<SPARQLResourceModel> resourceProxy = (SPARQLProxyResource<SPARQLResourceModel>) proxy;
+            type = resourceProxy.type;
+            proxiesByURI.computeIfAbsent(SPARQLDeserializers.formatURI(resourceProxy.uri), (uri) -> new ArrayList<>()).add(resourceProxy);
+        }
+
+        for (SPARQLResourceModel resource : service.loadListByURIs(type, proxiesByURI.keySet(), lang)) {
+            List<SPARQLProxyResource<SPARQLResourceModel>> resourceProxies = proxiesByURI.remove(SPARQLDeserializers.formatURI(resource.getUri()));
+            if (resourceProxies != null) {
+                resourceProxies.forEach((proxy) -> proxy.setLoadedInstance(resource));
+            }
+        }
+
+        // Remaining proxies target unknown resources, mark them as loaded like a single load would do
+        proxiesByURI.values().forEach((resourceProxies) -> {
+            resourceProxies.forEach((proxy) -> proxy.setLoadedInstance(null));
+        });
+    }
+
+    private void loadLabels(Field field, Node graph, List<SPARQLProxy<?>> proxies) throws Exception {
+        Map<URI, List<SPARQLProxyLabel>> proxiesByURI = new HashMap<>();
+        for (SPARQLProxy<?> proxy : proxies) {
+            SPARQLProxyLabel labelProxy = (SPARQLProxyLabel) proxy;
+            proxiesByURI.computeIfAbsent(SPARQLDeserializers.formatURI(labelProxy.resourceURI), (uri) -> new ArrayList<>()).add(labelProxy);
+        }
+
+        Property property = classAnalizer.getLabelPropertyByField(field);
+        boolean isReverse = classAnalizer.isReverseRelation(field);
+
+        Var valueVar = makeVar(VALUE_VAR);
+        Var langVar = makeVar(LANG_VAR);
+        SelectBuilder select = getBatchSelect(proxiesByURI.keySet(), property, isReverse, graph);
+        select.addVar(valueVar);
+        select.addVar(SPARQLQueryHelper.getExprFactory().lang(valueVar), langVar);
+
+        Map<URI, Map<String, String>> translationsByURI = new HashMap<>();
+        SPARQLDeserializer<URI> uriDeserializer = SPARQLDeserializers.getForClass(URI.class);
+        for (SPARQLResult result : service.executeSelectQuery(select)) {
+            URI uri = SPARQLDeserializers.formatURI(uriDeserializer.fromString(result.getStringValue(SUBJECT_VAR)));
+            translationsByURI.computeIfAbsent(uri, (key) -> new HashMap<>()).put(result.getStringValue(LANG_VAR), result.getStringValue(VALUE_VAR));
+        }
+
+        for (Map.Entry<URI, List<SPARQLProxyLabel>> entry : proxiesByURI.entrySet()) {
+            Map<String, String> translations = translationsByURI.getOrDefault(entry.getKey(), new HashMap<>());
+            for (SPARQLProxyLabel proxy : entry.getValue()) {
+                SPARQLLabel label = proxy.buildLabel(new HashMap<>(translations));
+                proxy.setLoadedInstance(label);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void loadDataLists(Field field, Node graph, List<SPARQLProxy<?>> proxies) throws Exception {
+        Map<URI, List<SPARQLProxyListData<?>>> proxiesByURI = new HashMap<>();
+        Class<?> genericType = null;
+        for (SPARQLProxy<?> proxy : proxies) {
+            SPARQLProxyListData<?> listProxy = (SPARQLProxyListData<?>) proxy;
+            genericType = listProxy.genericType;
+            proxiesByURI.computeIfAbsent(SPARQLDeserializers.formatURI(listProxy.uri), (uri) -> new ArrayList<>()).add(listProxy);
+        }
+
+        Property property = classAnalizer.getDataListPropertyByField(field);
+        boolean isReverse = classAnalizer.isReverseRelation(field);
+
+        SelectBuilder select = getBatchSelect(proxiesByURI.keySet(), property, isReverse, graph);
+        select.addVar(makeVar(VALUE_VAR));
+
+        Map<URI, List> valuesByURI = new HashMap<>();
+        SPARQLDeserializer<URI> uriDeserializer = SPARQLDeserializers.getForClass(URI.class);
+        SPARQLDeserializer<?> deserializer = SPARQLDeserializers.getForClass(genericType);
+        for (SPARQLResult result : service.executeSelectQuery(select)) {
+            URI uri = SPARQLDeserializers.formatURI(uriDeserializer.fromString(result.getStringValue(SUBJECT_VAR)));
+            String strValue = result.getStringValue(VALUE_VAR);
+            try {
+                valuesByURI.computeIfAbsent(uri, (key) -> new ArrayList<>()).add(deserializer.fromString(strValue));
+            } catch (Exception ex) {
+                LOGGER.warn("Error while parsing SPARQL result, result will be ignored: " + strValue, ex);
+            }
+        }
+
+        for (Map.Entry<URI, List<SPARQLProxyListData<?>>> entry : proxiesByURI.entrySet()) {
+            List values = valuesByURI.getOrDefault(entry.getKey(), new ArrayList<>());
+            for (SPARQLProxyListData<?> proxy : entry.getValue()) {
+                proxy.setLoadedInstance(new ArrayList<>(values));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void loadObjectLists(Field field, Node graph, List<SPARQLProxy<?>> proxies) throws Exception {
+        Map<URI, List<SPARQLProxyListObject<?>>> proxiesByURI = new HashMap<>();
+        Class<? extends SPARQLResourceModel> genericType = null;
+        for (SPARQLProxy<?> proxy : proxies) {
+            SPARQLProxyListObject<?> listProxy = (SPARQLProxyListObject<?>) proxy;
+            genericType = listProxy.genericType;
+            proxiesByURI.computeIfAbsent(SPARQLDeserializers.formatURI(listProxy.uri), (uri) -> new ArrayList<>()).add(listProxy);
+        }
+
+        Property property = classAnalizer.getObjectListPropertyByField(field);
+        boolean isReverse = classAnalizer.isReverseRelation(field);
+
+        SPARQLClassObjectMapper<SPARQLResourceModel> listMapper = mapperIndex.getForClass(genericType);
+        Var subjectVar = makeVar(SUBJECT_VAR);
+        SelectBuilder select = listMapper.getSelectBuilder(lang);
+        select.addVar(subjectVar);
+        SPARQLQueryHelper.addWhereValues(select, SUBJECT_VAR, proxiesByURI.keySet());
+        if (isReverse) {
+            addRelationWhere(select, graph, listMapper.getURIFieldVar(), property, subjectVar);
+        } else {
+            addRelationWhere(select, graph, subjectVar, property, listMapper.getURIFieldVar());
+        }
+
+        Map<URI, List> valuesByURI = new HashMap<>();
+        SPARQLDeserializer<URI> uriDeserializer = SPARQLDeserializers.getForClass(URI.class);
+        for (SPARQLResult result : service.executeSelectQuery(select)) {
+            URI uri = SPARQLDeserializers.formatURI(uriDeserializer.fromString(result.getStringValue(SUBJECT_VAR)));
+            SPARQLResourceModel value = listMapper.createInstance(listMapper.getDefaultGraph(), result, lang, service);
+            valuesByURI.computeIfAbsent(uri, (key) -> new ArrayList<>()).add(value);
+        }
+
+        for (Map.Entry<URI, List<SPARQLProxyListObject<?>>> entry : proxiesByURI.entrySet()) {
+            List values = valuesByURI.getOrDefault(entry.getKey(), new ArrayList<>());
+            for (SPARQLProxyListObject<?> proxy : entry.getValue()) {
+                proxy.setLoadedInstance(new ArrayList<>(values));
+            }
+        }
+    }
+
+    private SelectBuilder getBatchSelect(Collection<URI> uris, Property property, boolean isReverse, Node graph) throws Exception {
+        Var subjectVar = makeVar(SUBJECT_VAR);
+        Var valueVar = makeVar(VALUE_VAR);
+
+        SelectBuilder select = new SelectBuilder();
+        select.addVar(subjectVar);
+        SPARQLQueryHelper.addWhereValues(select, SUBJECT_VAR, uris);
+        if (isReverse) {
+            addRelationWhere(select, graph, valueVar, property, subjectVar);
+        } else {
+            addRelationWhere(select, graph, subjectVar, property, valueVar);
+        }
+
+        return select;
+    }
+
+    /**
+     * Add relation triple to the query, in the given graph if any.
+     */
+    private static void addRelationWhere(SelectBuilder select, Node graph, Object subject, Property property, Object object) {
+        if (graph == null) {
+            select.addWhere(subject, property, object);
+        } else {
+            select.addGraph(graph, new WhereBuilder().addWhere(subject, property, object));
+        }
+    }
+}
@@ -27,14 +27,17 @@ class SPARQLProxyLabel extends SPARQLProxy<SPARQLLabel> {
         this.reverseRelation = reverseRelation;
     }
 
-    private final URI resourceURI;
-    private final Property labelProperty;
-    private final boolean reverseRelation;
-    private final String defaultValue;
+    protected final URI resourceURI;
+    protected final Property labelProperty;
+    protected final boolean reverseRelation;
+    protected final String defaultValue;
 
     @Override
     protected SPARQLLabel loadData() throws Exception {
-        Map<String, String> translations = service.getTranslations(graph, resourceURI, labelProperty, reverseRelation);
+        return buildLabel(service.getTranslations(graph, resourceURI, labelProperty, reverseRelation));
+    }
+
+    protected SPARQLLabel buildLabel(Map<String, String> translations) {
         translations.remove(lang);
         SPARQLLabel label = new SPARQLLabel(defaultValue, lang);
         label.setTranslations(translations);
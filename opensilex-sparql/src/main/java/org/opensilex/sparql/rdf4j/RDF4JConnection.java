@@ -11,13 +11,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.jena.arq.querybuilder.AskBuilder;
 import org.apache.jena.arq.querybuilder.ConstructBuilder;
 import org.apache.jena.arq.querybuilder.DescribeBuilder;
 import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
+import org.apache.jena.update.UpdateRequest;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.Resource;
@@ -154,10 +159,35 @@ public class RDF4JConnection extends BaseService implements SPARQLConnection {
         }
     }
 
+    @Override
+    public Stream<SPARQLResult> executeSelectQueryAsStream(SelectBuilder select) throws SPARQLException {
+        try {
+            TupleQuery selectQuery = rdf4JConnection.prepareTupleQuery(QueryLanguage.SPARQL, select.buildString());
+            if (getTimeout() > 0) {
+                selectQuery.setMaxExecutionTime(getTimeout());
+            }
+            TupleQueryResult results = selectQuery.evaluate();
+
+            return bindingSetsToSPARQLResultStream(results);
+        } catch (RepositoryException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ShaclSailValidationException) {
+                throw convertRDF4JSHACLException((ShaclSailValidationException) cause);
+            } else {
+                throw new SPARQLException(ex.getMessage());
+            }
+        }
+    }
+
     @Override
     public void executeUpdateQuery(UpdateBuilder update) throws SPARQLException {
+        executeUpdateRequest(update.buildRequest());
+    }
+
+    @Override
+    public void executeUpdateRequest(UpdateRequest update) throws SPARQLException {
         try {
-            Update updateQuery = rdf4JConnection.prepareUpdate(QueryLanguage.SPARQL, update.buildRequest().toString());
+            Update updateQuery = rdf4JConnection.prepareUpdate(QueryLanguage.SPARQL, update.toString());
             if (getTimeout() > 0) {
                 updateQuery.setMaxExecutionTime(getTimeout());
             }
@@ -328,19 +358,30 @@ public class RDF4JConnection extends BaseService implements SPARQLConnection {
     private List<SPARQLResult> bindingSetsToSPARQLResultList(QueryResult<BindingSet> queryResults, Consumer<SPARQLResult> resultHandler) {
         List<SPARQLResult> resultList = new ArrayList<>();
 
-        while (queryResults.hasNext()) {
-            RDF4JResult result = new RDF4JResult(queryResults.next());
-            if (resultHandler != null) {
-                resultHandler.accept(result);
+        try {
+            while (queryResults.hasNext()) {
+                RDF4JResult result = new RDF4JResult(queryResults.next());
+                if (resultHandler != null) {
+                    resultHandler.accept(result);
+                } else {
+                    resultList.add(result);
+                }
             }
-
-            resultList.add(result);
+        } finally {
+            queryResults.close();
         }
 
-        queryResults.close();
         return resultList;
     }
 
+    private Stream<SPARQLResult> bindingSetsToSPARQLResultStream(QueryResult<BindingSet> queryResults) {
+        Spliterator<BindingSet> spliterator = Spliterators.spliteratorUnknownSize(queryResults.iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false)
+                .map(bindingSet -> (SPARQLResult) new RDF4JResult(bindingSet))
+                .onClose(queryResults::close);
+    }
+
     private SPARQLValidationException convertRDF4JSHACLException(ShaclSailValidationException validationEx) {
         SPARQLValidationException exception = new SPARQLValidationException();
         Model model = validationEx.validationReportAsModel();
@@ -0,0 +1,230 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.sparql.service;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.jena.arq.querybuilder.ExprFactory;
+import org.apache.jena.arq.querybuilder.SelectBuilder;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.update.Update;
+import org.apache.jena.update.UpdateRequest;
+import org.apache.jena.vocabulary.RDFS;
+import org.opensilex.sparql.deserializer.SPARQLDeserializers;
+import org.opensilex.sparql.exceptions.SPARQLException;
+import static org.opensilex.sparql.service.SPARQLQueryHelper.makeVar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * In memory index of the rdfs:subClassOf hierarchy of all ontologies in the triple store.
+ *
+ * The index is loaded lazily from the triple store on first use after startup or after an ontology change,
+ * it's invalidated when an ontology is loaded, a graph is cleared or rdfs:subClassOf triples are written through {@link SPARQLService}.
+ * All URIs are stored in their expanded form.
+ * </pre>
+ *
+ * @author vincent
+ */
+public final class SPARQLClassHierarchy {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SPARQLClassHierarchy.class);
+
+    private static volatile SPARQLClassHierarchy instance;
+
+    /**
+     * Incremented on each invalidation, allow cached queries depending on hierarchy to be rebuilt
+     */
+    private final static AtomicLong version = new AtomicLong();
+
+    private final Map<String, Set<String>> parents;
+
+    private final Map<String, Set<String>> children;
+
+    private final Map<String, Set<String>> descendantsCache = new HashMap<>();
+
+    private final Map<String, Set<String>> ancestorsCache = new HashMap<>();
+
+    private SPARQLClassHierarchy(Map<String, Set<String>> parents, Map<String, Set<String>> children) {
+        this.parents = parents;
+        this.children = children;
+    }
+
+    /**
+     * Return the class hierarchy, loading it with the given service if needed.
+     *
+     * @param sparql service used to load hierarchy
+     * @return the class hierarchy
+     * @throws SPARQLException if hierarchy can't be loaded
+     */
+    public static SPARQLClassHierarchy getInstance(SPARQLService sparql) throws SPARQLException {
+        SPARQLClassHierarchy hierarchy = instance;
+        if (hierarchy == null) {
+            synchronized (SPARQLClassHierarchy.class) {
+                hierarchy = instance;
+                if (hierarchy == null) {
+                    long loadVersion = version.get();
+                    hierarchy = load(sparql);
+                    if (loadVersion == version.get()) {
+                        instance = hierarchy;
+                    }
+                }
+            }
+        }
+
+        return hierarchy;
+    }
+
+    /**
+     * Return the loaded class hierarchy without loading it.
+     *
+     * @return the class hierarchy or null if it's not loaded
+     */
+    public static SPARQLClassHierarchy getLoadedInstance() {
+        return instance;
+    }
+
+    /**
+     * Invalidate the class hierarchy, it will be reloaded on next use.
+     */
+    public static void invalidate() {
+        version.incrementAndGet();
+        instance = null;
+    }
+
+    /**
+     * Check if an update may write rdfs:subClassOf triples.
+     *
+     * @param request SPARQL update
+     * @return true if any inserted or deleted triple has rdfs:subClassOf or a variable as predicate,
+     * or if an operation doesn't define its triples (e.g. CLEAR, LOAD)
+     */
+    public static boolean mayChange(UpdateRequest request) {
+        for (Update operation : request.getOperations()) {
+            List<Quad> quads = SPARQLQueryHelper.getUpdateQuads(operation);
+            if (quads == null) {
+                return true;
+            }
+
+            for (Quad quad : quads) {
+                Node predicate = quad.getPredicate();
+                if (!predicate.isURI() || isHierarchyProperty(predicate.getURI())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param propertyURI property URI
+     * @return true if property values define the class hierarchy (rdfs:subClassOf)
+     */
+    public static boolean isHierarchyProperty(String propertyURI) {
+        return RDFS.subClassOf.getURI().equals(SPARQLDeserializers.getExpandedURI(propertyURI));
+    }
+
+    /**
+     * @return hierarchy version, changed on each invalidation
+     */
+    public static long getVersion() {
+        return version.get();
+    }
+
+    private static SPARQLClassHierarchy load(SPARQLService sparql) throws SPARQLException {
+        long start = System.currentTimeMillis();
+
+        Var classVar = makeVar("class");
+        Var parentVar = makeVar("parent");
+        ExprFactory exprFactory = SPARQLQueryHelper.getExprFactory();
+        SelectBuilder select = new SelectBuilder()
+                .setDistinct(true)
+                .addVar(classVar)
+                .addVar(parentVar)
+                .addWhere(classVar, RDFS.subClassOf, parentVar)
+                .addFilter(exprFactory.and(exprFactory.isIRI(classVar), exprFactory.isIRI(parentVar)));
+
+        Map<String, Set<String>> parents = new HashMap<>();
+        Map<String, Set<String>> children = new HashMap<>();
+        for (SPARQLResult result : sparql.executeSelectQuery(select)) {
+            String classURI = SPARQLDeserializers.getExpandedURI(result.getStringValue(classVar.getVarName()));
+            String parentURI = SPARQLDeserializers.getExpandedURI(result.getStringValue(parentVar.getVarName()));
+            parents.computeIfAbsent(classURI, (key) -> new HashSet<>()).add(parentURI);
+            children.computeIfAbsent(parentURI, (key) -> new HashSet<>()).add(classURI);
+        }
+
+        LOGGER.debug("SPARQL class hierarchy loaded: " + parents.size() + " classes in " + (System.currentTimeMillis() - start) + " ms");
+
+        return new SPARQLClassHierarchy(parents, children);
+    }
+
+    /**
+     * Equivalent of "subClassURI rdfs:subClassOf* classURI".
+     *
+     * @param subClassURI class to check
+     * @param classURI parent class
+     * @return true if subClassURI is classURI or one of its descendants
+     */
+    public boolean isSubClassOf(String subClassURI, String classURI) {
+        return getAncestors(subClassURI).contains(SPARQLDeserializers.getExpandedURI(classURI));
+    }
+
+    /**
+     * Return the given class and all its descendants, equivalent of "?class rdfs:subClassOf* classURI".
+     *
+     * @param classURI parent class
+     * @return unmodifiable set of expanded URIs
+     */
+    public Set<String> getDescendants(String classURI) {
+        return getClosure(SPARQLDeserializers.getExpandedURI(classURI), children, descendantsCache);
+    }
+
+    /**
+     * Return the given class and all its ancestors, equivalent of "classURI rdfs:subClassOf* ?class".
+     *
+     * @param classURI sub class
+     * @return unmodifiable set of expanded URIs
+     */
+    public Set<String> getAncestors(String classURI) {
+        return getClosure(SPARQLDeserializers.getExpandedURI(classURI), parents, ancestorsCache);
+    }
+
+    private Set<String> getClosure(String classURI, Map<String, Set<String>> edges, Map<String, Set<String>> cache) {
+        synchronized (cache) {
+            Set<String> closure = cache.get(classURI);
+            if (closure != null) {
+                return closure;
+            }
+        }
+
+        Set<String> closure = new HashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>();
+        toVisit.add(classURI);
+        while (!toVisit.isEmpty()) {
+            String current = toVisit.poll();
+            if (closure.add(current)) {
+                toVisit.addAll(edges.getOrDefault(current, Collections.emptySet()));
+            }
+        }
+        closure = Collections.unmodifiableSet(closure);
+
+        synchronized (cache) {
+            cache.put(classURI, closure);
+        }
+        return closure;
+    }
+}
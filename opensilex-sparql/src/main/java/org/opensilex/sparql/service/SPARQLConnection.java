@@ -10,6 +10,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.apache.jena.arq.querybuilder.AskBuilder;
 import org.apache.jena.arq.querybuilder.ConstructBuilder;
 import org.apache.jena.arq.querybuilder.DescribeBuilder;
@@ -22,6 +23,7 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.update.UpdateRequest;
 import org.opensilex.service.Service;
 import org.opensilex.sparql.exceptions.SPARQLException;
 import org.opensilex.sparql.mapping.SPARQLClassObjectMapperIndex;
@@ -38,16 +40,38 @@ public interface SPARQLConnection extends Service {
 
     public List<SPARQLStatement> executeConstructQuery(ConstructBuilder construct) throws SPARQLException;
 
+    /**
+     * Execute a select query, if a result handler is given results are only passed to it and are not kept in the returned list.
+     *
+     * @param select select query
+     * @param resultHandler optional result handler
+     * @return results list, empty if a result handler is given
+     * @throws SPARQLException
+     */
     public List<SPARQLResult> executeSelectQuery(SelectBuilder select, Consumer<SPARQLResult> resultHandler) throws SPARQLException;
 
     public default List<SPARQLResult> executeSelectQuery(SelectBuilder select) throws SPARQLException {
         return executeSelectQuery(select, null);
     }
 
+    /**
+     * Execute a select query and return results as a stream read on demand from the underlying query result.
+     * The returned stream must be closed (e.g. with try-with-resources) to release the query result.
+     *
+     * @param select select query
+     * @return results stream
+     * @throws SPARQLException
+     */
+    public default Stream<SPARQLResult> executeSelectQueryAsStream(SelectBuilder select) throws SPARQLException {
+        return executeSelectQuery(select).stream();
+    }
+
     public void executeUpdateQuery(UpdateBuilder update) throws SPARQLException;
 
     public void executeDeleteQuery(UpdateBuilder update) throws SPARQLException;
 
+    public void executeUpdateRequest(UpdateRequest update) throws SPARQLException;
+
     public List<SPARQLStatement> getGraphStatement(URI graph) throws SPARQLException;
 
     public void clearGraph(URI graph) throws SPARQLException;
@@ -12,12 +12,19 @@ import org.apache.jena.arq.querybuilder.SelectBuilder;
 import org.apache.jena.arq.querybuilder.clauses.WhereClause;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.expr.E_LogicalAnd;
 import org.apache.jena.sparql.expr.E_LogicalOr;
 import org.apache.jena.sparql.expr.E_Regex;
 import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.expr.ExprVar;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.modify.request.UpdateData;
+import org.apache.jena.sparql.modify.request.UpdateDeleteWhere;
+import org.apache.jena.sparql.modify.request.UpdateModify;
+import org.apache.jena.update.Update;
 import org.apache.jena.sparql.expr.E_GreaterThanOrEqual;
 import org.apache.jena.sparql.expr.E_LessThanOrEqual;
 import org.opensilex.sparql.deserializer.DateDeserializer;
@@ -66,6 +73,45 @@ public class SPARQLQueryHelper {
         return regexFilter(name, regexPattern, regexFlag);
     }
 
+    /**
+     * <pre>
+     * Add a case insensitive REGEX filter on a literal property value.
+     *
+     * If the pattern is a plain text and the property is indexed, the subject variable is first restricted
+     * with a VALUES clause to the subjects found in the text index, so the filter is only evaluated on them.
+     * </pre>
+     *
+     * @param sparql service used to search the text index
+     * @param select query to update
+     * @param subjectVarName subject variable name
+     * @param property literal property
+     * @param varName property value variable name
+     * @param regexPattern text or regular expression to search
+     *
+     * @see SPARQLTextIndex
+     */
+    public static void addTextFilter(SPARQLService sparql, SelectBuilder select, String subjectVarName, Property property, String varName, String regexPattern) {
+        if (StringUtils.isEmpty(regexPattern)) {
+            return;
+        }
+
+        Set<String> subjects = sparql.searchText(property.getURI(), regexPattern);
+        if (subjects != null) {
+            if (subjects.isEmpty()) {
+                select.addFilter(NodeValue.FALSE);
+            } else {
+                Object[] nodes = new Node[subjects.size()];
+                int i = 0;
+                for (String subject : subjects) {
+                    nodes[i++] = NodeFactory.createURI(subject);
+                }
+                select.addWhereValueVar(subjectVarName, nodes);
+            }
+        }
+
+        select.addFilter(regexFilter(varName, regexPattern));
+    }
+
     public static Expr or(Expr... expressions) {
         Expr parentExpr = null;
 
@@ -344,6 +390,27 @@ public class SPARQLQueryHelper {
         return exprFactory.or(withEndDateExpr, withoutEndDateExpr);
     }
 
+    /**
+     * Return the quads inserted or deleted by an update operation.
+     *
+     * @param operation update operation
+     * @return inserted and deleted quads, null if operation doesn't define them (e.g. CLEAR, LOAD)
+     */
+    public static List<Quad> getUpdateQuads(Update operation) {
+        List<Quad> quads = new ArrayList<>();
+        if (operation instanceof UpdateData) {
+            quads.addAll(((UpdateData) operation).getQuads());
+        } else if (operation instanceof UpdateDeleteWhere) {
+            quads.addAll(((UpdateDeleteWhere) operation).getQuads());
+        } else if (operation instanceof UpdateModify) {
+            quads.addAll(((UpdateModify) operation).getDeleteQuads());
+            quads.addAll(((UpdateModify) operation).getInsertQuads());
+        } else {
+            return null;
+        }
+        return quads;
+    }
+
     public static Var makeVar(Object o) {
         return Converters.makeVar(o);
     }
@@ -14,12 +14,20 @@ import org.apache.jena.arq.querybuilder.UpdateBuilder;
 import org.apache.jena.arq.querybuilder.WhereBuilder;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.shared.PrefixMapping;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.path.P_Inverse;
+import org.apache.jena.sparql.path.P_Link;
+import org.apache.jena.sparql.path.P_OneOrMore1;
+import org.apache.jena.sparql.path.Path;
+import org.apache.jena.update.UpdateRequest;
 import org.apache.jena.vocabulary.DCTerms;
 import org.apache.jena.vocabulary.RDF;
 import org.eclipse.rdf4j.model.vocabulary.FOAF;
@@ -47,12 +55,17 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.apache.jena.arq.querybuilder.ExprFactory;
 import org.apache.jena.arq.querybuilder.handlers.WhereHandler;
 import org.apache.jena.sparql.syntax.ElementNamedGraph;
@@ -102,6 +115,42 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         connection.setOpenSilex(getOpenSilex());
         connection.setMapperIndex(getMapperIndex());
         connection.setup();
+
+        try {
+            SPARQLClassHierarchy.getInstance(this);
+        } catch (SPARQLException ex) {
+            LOGGER.warn("Error while loading class hierarchy, rdfs:subClassOf* paths will be used", ex);
+        }
+    }
+
+    /**
+     * Return in memory class hierarchy of all ontologies, loading it if needed.
+     *
+     * @return class hierarchy
+     * @throws SPARQLException if hierarchy can't be loaded
+     */
+    public SPARQLClassHierarchy getClassHierarchy() throws SPARQLException {
+        return SPARQLClassHierarchy.getInstance(this);
+    }
+
+    /**
+     * Search subjects having a value of the given property containing the given text, ignoring case, with the in memory text index.
+     *
+     * @param propertyURI property URI, must be rdfs:label or a property registered with {@link SPARQLTextIndex#addIndexedProperty(String)}
+     * @param text text to search
+     * @return set of expanded subject URIs, or null if index can't be used and a REGEX filter must be used instead
+     */
+    public Set<String> searchText(String propertyURI, String text) {
+        if (!SPARQLTextIndex.isIndexedProperty(propertyURI) || !SPARQLTextIndex.isPlainText(text)) {
+            return null;
+        }
+
+        try {
+            return SPARQLTextIndex.getInstance(this).search(propertyURI, text);
+        } catch (SPARQLException ex) {
+            LOGGER.warn("Error while loading text index, REGEX filter will be used", ex);
+            return null;
+        }
     }
 
     @Override
@@ -216,22 +265,148 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         return connection.executeSelectQuery(select, resultHandler);
     }
 
+    @Override
+    public Stream<SPARQLResult> executeSelectQueryAsStream(SelectBuilder select) throws SPARQLException {
+        addPrefixes(select);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("SPARQL SELECT STREAM\n" + select.buildString());
+        }
+        return connection.executeSelectQueryAsStream(select);
+    }
+
     @Override
     public void executeUpdateQuery(UpdateBuilder update) throws SPARQLException {
+        updateRequestExecuted(executeUpdate(update));
+    }
+
+    private UpdateRequest executeUpdate(UpdateBuilder update) throws SPARQLException {
         addPrefixes(update);
+        UpdateRequest request = update.buildRequest();
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("SPARQL UPDATE\n" + update.build().toString());
+            LOGGER.debug("SPARQL UPDATE\n" + request.toString());
         }
-        connection.executeUpdateQuery(update);
+        connection.executeUpdateRequest(request);
+        return request;
     }
 
     @Override
     public void executeDeleteQuery(UpdateBuilder delete) throws SPARQLException {
+        updateRequestExecuted(executeDelete(delete));
+    }
+
+    private UpdateRequest executeDelete(UpdateBuilder delete) throws SPARQLException {
         addPrefixes(delete);
+        UpdateRequest request = delete.buildRequest();
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("SPARQL DELETE\n" + delete.buildRequest().toString());
+            LOGGER.debug("SPARQL DELETE\n" + request.toString());
+        }
+        connection.executeUpdateRequest(request);
+        return request;
+    }
+
+    @Override
+    public void executeUpdateRequest(UpdateRequest request) throws SPARQLException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("SPARQL UPDATE\n" + request.toString());
+        }
+        connection.executeUpdateRequest(request);
+        updateRequestExecuted(request);
+    }
+
+    /**
+     * Register text index and class hierarchy modifications of an executed update which written triples are unknown.
+     *
+     * @param request executed update
+     */
+    private void updateRequestExecuted(UpdateRequest request) {
+        Set<URI> subjects = SPARQLTextIndex.getModifiedSubjects(request);
+        if (subjects == null || !subjects.isEmpty()) {
+            textIndexChanged(subjects);
+        }
+        if (SPARQLClassHierarchy.mayChange(request)) {
+            classHierarchyChanged();
+        }
+    }
+
+    /**
+     * Resources modified in current transaction, reindexed in text index on commit
+     */
+    private final Set<URI> textIndexChangedURIs = new HashSet<>();
+
+    /**
+     * True if unknown resources have been modified in current transaction, the whole text index is invalidated on commit
+     */
+    private boolean textIndexChanged = false;
+
+    /**
+     * <pre>
+     * Register a triple store modification for the text index.
+     *
+     * Modifications are applied to the index immediately outside of a transaction,
+     * or when the transaction ends otherwise.
+     * </pre>
+     *
+     * @param uris modified resources URIs, null if any resource may have been modified
+     */
+    public void textIndexChanged(Collection<URI> uris) {
+        if (uris == null) {
+            textIndexChanged = true;
+        } else {
+            textIndexChangedURIs.addAll(uris);
+        }
+
+        if (transactionLevel == 0) {
+            applyTextIndexChanges();
+        }
+    }
+
+    private void applyTextIndexChanges() {
+        if (textIndexChanged) {
+            SPARQLTextIndex.invalidate();
+        } else if (!textIndexChangedURIs.isEmpty()) {
+            SPARQLTextIndex.invalidateResources(textIndexChangedURIs);
+        }
+        textIndexChanged = false;
+        textIndexChangedURIs.clear();
+    }
+
+    /**
+     * True if rdfs:subClassOf triples have been modified in current transaction, class hierarchy is invalidated again on commit
+     */
+    private boolean classHierarchyChanged = false;
+
+    /**
+     * <pre>
+     * Register a modification of rdfs:subClassOf triples.
+     *
+     * Class hierarchy is invalidated immediately and, inside a transaction,
+     * again when the transaction ends to drop any hierarchy loaded in between.
+     * </pre>
+     */
+    public void classHierarchyChanged() {
+        SPARQLClassHierarchy.invalidate();
+        if (transactionLevel > 0) {
+            classHierarchyChanged = true;
+        }
+    }
+
+    private void classHierarchyChangedByClass(Class<?> objectClass) throws Exception {
+        if (getMapperIndex().getForClass(objectClass).hasClassHierarchyField()) {
+            classHierarchyChanged();
+        }
+    }
+
+    private void classHierarchyChangedByProperty(Property property) {
+        if (SPARQLClassHierarchy.isHierarchyProperty(property.getURI())) {
+            classHierarchyChanged();
+        }
+    }
+
+    private void applyClassHierarchyChanges() {
+        if (classHierarchyChanged) {
+            SPARQLClassHierarchy.invalidate();
+            classHierarchyChanged = false;
         }
-        connection.executeDeleteQuery(delete);
     }
 
     private int transactionLevel = 0;
@@ -251,6 +426,8 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         if (transactionLevel == 0) {
             LOGGER.debug("SPARQL TRANSACTION COMMIT");
             connection.commitTransaction();
+            applyTextIndexChanges();
+            applyClassHierarchyChanges();
         }
     }
 
@@ -259,7 +436,13 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         if (transactionLevel != 0) {
             LOGGER.error("SPARQL TRANSACTION ROLLBACK: ", ex);
             transactionLevel = 0;
-            connection.rollbackTransaction(ex);
+            try {
+                connection.rollbackTransaction(ex);
+            } finally {
+                // Index may have been loaded with uncommitted values
+                applyTextIndexChanges();
+                applyClassHierarchyChanges();
+            }
         }
     }
 
@@ -271,11 +454,15 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
     public void clearGraph(URI graph) throws SPARQLException {
         LOGGER.debug("SPARQL CLEAR GRAPH: " + graph);
         connection.clearGraph(graph);
+        SPARQLClassHierarchy.invalidate();
+        SPARQLTextIndex.invalidate();
     }
 
     public void clearGraph(String graph) throws SPARQLException, URISyntaxException {
         LOGGER.debug("SPARQL CLEAR GRAPH: " + graph);
         connection.clearGraph(new URI(graph));
+        SPARQLClassHierarchy.invalidate();
+        SPARQLTextIndex.invalidate();
     }
 
     @Override
@@ -290,11 +477,25 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
     public void clear() throws SPARQLException {
         LOGGER.debug("SPARQL CLEAR REPOSITORY");
         connection.clear();
+        SPARQLClassHierarchy.invalidate();
+        SPARQLTextIndex.invalidate();
     }
 
+    @Override
     public void loadOntology(URI graph, InputStream ontology, Lang format) throws SPARQLException {
         LOGGER.debug("SPARQL LOAD " + format.getName() + " FILE INTO GRAPH: " + graph.toString());
-        connection.loadOntology(graph, ontology, format);
+        Node graphNode = SPARQLDeserializers.nodeURI(graph);
+        Model model = ModelFactory.createDefaultModel();
+        model.read(ontology, null, format.getName());
+
+        UpdateBuilder insertQuery = new UpdateBuilder();
+        StmtIterator iterator = model.listStatements();
+        while (iterator.hasNext()) {
+            insertQuery.addInsert(graphNode, iterator.nextStatement().asTriple());
+        }
+
+        // Executed through the service so only loaded subjects are reindexed
+        executeUpdateQuery(insertQuery);
     }
 
     public <T extends SPARQLResourceModel> T getByURI(Class<T> objectClass, URI uri, String lang) throws Exception {
@@ -490,6 +691,7 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
             lang = getDefaultLang();
         }
         List<T> list = search(graph, objectClass, lang, filterHandler);
+        loadTreeAncestors(graph, objectClass, lang, list);
 
         SPARQLTreeListModel<T> tree = new SPARQLTreeListModel<T>(list, SPARQLDeserializers.formatURI(root), excludeRoot);
 
@@ -500,6 +702,77 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         return tree;
     }
 
+    /**
+     * <pre>
+     * Load all ancestors of the given tree nodes with one query for their URIs and one for their content,
+     * then replace parents lazy proxies by loaded instances so the tree can be built without further queries.
+     * </pre>
+     *
+     * @param graph nodes graph
+     * @param objectClass nodes class
+     * @param lang nodes lang
+     * @param nodes tree nodes to load ancestors for
+     * @throws Exception
+     */
+    private <T extends SPARQLTreeModel<T>> void loadTreeAncestors(Node graph, Class<T> objectClass, String lang, List<T> nodes) throws Exception {
+        if (nodes.isEmpty()) {
+            return;
+        }
+
+        SPARQLClassObjectMapper<T> mapper = getMapperIndex().getForClass(objectClass);
+        Field parentField = mapper.getFieldFromName(SPARQLTreeModel.PARENT_FIELD);
+        Path parentPath = new P_Link(mapper.getFieldProperty(parentField).asNode());
+        if (mapper.isReverseRelation(parentField)) {
+            parentPath = new P_Inverse(parentPath);
+        }
+
+        Map<URI, T> nodesByURI = new HashMap<>();
+        for (T node : nodes) {
+            nodesByURI.put(SPARQLDeserializers.formatURI(node.getUri()), node);
+        }
+        List<URI> nodeURIs = new ArrayList<>(nodesByURI.keySet());
+
+        Var startVar = makeVar("_start");
+        Var ancestorVar = makeVar("_ancestor");
+        Set<URI> ancestorURIs = new HashSet<>();
+        for (int i = 0; i < nodeURIs.size(); i += CREATE_CHUNK_SIZE) {
+            List<URI> chunk = nodeURIs.subList(i, Math.min(nodeURIs.size(), i + CREATE_CHUNK_SIZE));
+            SelectBuilder select = new SelectBuilder()
+                    .setDistinct(true)
+                    .addVar(ancestorVar);
+            if (graph == null) {
+                select.addWhere(startVar, new P_OneOrMore1(parentPath), ancestorVar);
+            } else {
+                select.addGraph(graph, new WhereBuilder().addWhere(startVar, new P_OneOrMore1(parentPath), ancestorVar));
+            }
+            // Parent path may reach blank nodes (e.g. owl:Restriction superclasses) which are not tree nodes
+            select.addFilter(SPARQLQueryHelper.getExprFactory().isIRI(ancestorVar));
+            SPARQLQueryHelper.addWhereValues(select, startVar.getVarName(), chunk);
+
+            for (SPARQLResult result : executeSelectQuery(select)) {
+                URI ancestorURI = SPARQLDeserializers.formatURI(new URI(result.getStringValue(ancestorVar.getVarName())));
+                if (!nodesByURI.containsKey(ancestorURI)) {
+                    ancestorURIs.add(ancestorURI);
+                }
+            }
+        }
+
+        for (T ancestor : loadListByURIs(graph, objectClass, ancestorURIs, lang)) {
+            nodesByURI.put(SPARQLDeserializers.formatURI(ancestor.getUri()), ancestor);
+        }
+
+        for (T node : nodesByURI.values()) {
+            T parent = node.getParent();
+            if (parent != null) {
+                // Proxy URI is read without loading it
+                T loadedParent = nodesByURI.get(SPARQLDeserializers.formatURI(parent.getUri()));
+                if (loadedParent != null) {
+                    node.setParent(loadedParent);
+                }
+            }
+        }
+    }
+
     public <T extends SPARQLResourceModel> List<T> search(Class<T> objectClass, String lang) throws Exception {
         return search(getDefaultGraph(objectClass), objectClass, lang);
     }
@@ -533,6 +806,24 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
     }
 
     public <T extends SPARQLResourceModel> List<T> search(Node graph, Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList, Integer page, Integer pageSize) throws Exception {
+        return search(graph, objectClass, lang, filterHandler, orderByList, page, pageSize, null);
+    }
+
+    /**
+     * Search instances and load the given relation fields of the whole result list with one query by field.
+     *
+     * @param graph graph to search in
+     * @param objectClass class of instances to search
+     * @param lang language of results
+     * @param filterHandler filter to apply on select query
+     * @param orderByList result order
+     * @param page page number
+     * @param pageSize page size
+     * @param prefetchFields names of the relation fields to load eagerly, lazy loading is kept for other fields
+     * @return list of instances
+     * @throws Exception
+     */
+    public <T extends SPARQLResourceModel> List<T> search(Node graph, Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList, Integer page, Integer pageSize, Collection<String> prefetchFields) throws Exception {
         SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
         String language;
         if (lang == null) {
@@ -571,9 +862,72 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
             resultList.add(mapper.createInstance(graph, result, language, this));
         }, Exception.class));
 
+        if (prefetchFields != null && !prefetchFields.isEmpty()) {
+            mapper.prefetchRelations(resultList, prefetchFields, language, this);
+        }
+
         return resultList;
     }
 
+    public <T extends SPARQLResourceModel> Stream<T> searchStream(Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler) throws Exception {
+        return searchStream(getDefaultGraph(objectClass), objectClass, lang, filterHandler, null);
+    }
+
+    /**
+     * Search instances and map them one by one while the returned stream is consumed, so results are never fully loaded in memory.
+     * The returned stream must be closed (e.g. with try-with-resources) to release the underlying query result.
+     * An error while mapping a result is thrown as a {@link SPARQLStreamException} during stream consumption.
+     *
+     * @param graph graph to search in
+     * @param objectClass class of instances to search
+     * @param lang language of results
+     * @param filterHandler filter to apply on select query
+     * @param orderByList result order
+     * @return instances stream
+     * @throws Exception
+     */
+    public <T extends SPARQLResourceModel> Stream<T> searchStream(Node graph, Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList) throws Exception {
+        SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
+        String language;
+        if (lang == null) {
+            language = getDefaultLang();
+        } else {
+            language = lang;
+        }
+
+        SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(objectClass);
+        SelectBuilder select = mapper.getSelectBuilder(graph, language);
+
+        if (filterHandler != null) {
+            filterHandler.accept(select);
+        }
+
+        if (orderByList != null) {
+            orderByList.forEach((OrderBy orderBy) -> {
+                Expr fieldOrderExpr = mapper.getFieldOrderExpr(orderBy.getFieldName());
+                if (fieldOrderExpr != null) {
+                    select.addOrderBy(fieldOrderExpr, orderBy.getOrder());
+                }
+            });
+        }
+
+        return executeSelectQueryAsStream(select).map((SPARQLResult result) -> {
+            try {
+                return mapper.createInstance(graph, result, language, this);
+            } catch (Exception ex) {
+                throw new SPARQLStreamException(ex);
+            }
+        });
+    }
+
+    public <T extends SPARQLResourceModel> void prefetchRelations(Class<T> objectClass, List<T> instances, String lang, Collection<String> fieldNames) throws Exception {
+        if (lang == null) {
+            lang = getDefaultLang();
+        }
+        SPARQLClassObjectMapper<T> mapper = getMapperIndex().getForClass(objectClass);
+        mapper.prefetchRelations(instances, fieldNames, lang, this);
+    }
+
     public <T extends SPARQLResourceModel> int count(Class<T> objectClass) throws Exception {
         return count(getDefaultGraph(objectClass), objectClass);
     }
@@ -620,6 +974,14 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
     }
 
     public <T extends SPARQLResourceModel> ListWithPagination<T> searchWithPagination(Node graph, Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList, Integer page, Integer pageSize) throws Exception {
+        return searchWithPagination(graph, objectClass, lang, filterHandler, orderByList, page, pageSize, null);
+    }
+
+    public <T extends SPARQLResourceModel> ListWithPagination<T> searchWithPagination(Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList, Integer page, Integer pageSize, Collection<String> prefetchFields) throws Exception {
+        return searchWithPagination(getDefaultGraph(objectClass), objectClass, lang, filterHandler, orderByList, page, pageSize, prefetchFields);
+    }
+
+    public <T extends SPARQLResourceModel> ListWithPagination<T> searchWithPagination(Node graph, Class<T> objectClass, String lang, ThrowingConsumer<SelectBuilder, Exception> filterHandler, List<OrderBy> orderByList, Integer page, Integer pageSize, Collection<String> prefetchFields) throws Exception {
         if (lang == null) {
             lang = getDefaultLang();
         }
@@ -627,9 +989,9 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
 
         List<T> list;
         if (pageSize == null || pageSize == 0) {
-            list = search(graph, objectClass, lang, filterHandler, orderByList);
+            list = search(graph, objectClass, lang, filterHandler, orderByList, null, null, prefetchFields);
         } else if (total > 0 && (page * pageSize) < total) {
-            list = search(graph, objectClass, lang, filterHandler, orderByList, page, pageSize);
+            list = search(graph, objectClass, lang, filterHandler, orderByList, page, pageSize, prefetchFields);
         } else {
             list = new ArrayList<>();
         }
@@ -656,7 +1018,9 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
             SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
             prepareInstanceCreation(instance, mapper, checkUriExist);
             UpdateBuilder create = mapper.getCreateBuilder(graph, instance);
-            executeUpdateQuery(create);
+            executeUpdate(create);
+            textIndexChanged(Collections.singletonList(instance.getUri()));
+            classHierarchyChangedByClass(instance.getClass());
             commitTransaction();
         } catch (Exception ex) {
             rollbackTransaction(ex);
@@ -685,22 +1049,178 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         create(getDefaultGraph(genericType), instances);
     }
 
+    /**
+     * Maximum number of instances inserted by a single INSERT DATA request and checked by a single URI existence query in bulk creation
+     */
+    public final static int CREATE_CHUNK_SIZE = 1000;
+
     public <T extends SPARQLResourceModel> void create(Node graph, List<T> instances) throws Exception {
         SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
 
         if (instances.size() > 0) {
-            UpdateBuilder create = new UpdateBuilder();
-            validate(instances);
-            for (T instance : instances) {
-                SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
-                prepareInstanceCreation(instance, mapper, true);
-                mapper.addCreateBuilder(graph, instance, create);
+            try {
+                startTransaction();
+                validate(instances);
+
+                Map<Class<? extends SPARQLResourceModel>, List<SPARQLResourceModel>> dependentResourcesByClass = new HashMap<>();
+                for (T instance : instances) {
+                    SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
+                    if (instance.getType() == null) {
+                        instance.setType(new URI(mapper.getRDFType().getURI()));
+                    }
+                    for (SPARQLResourceModel subInstance : mapper.getAllDependentResourcesToCreate(instance)) {
+                        dependentResourcesByClass.computeIfAbsent(subInstance.getClass(), (c) -> new ArrayList<>()).add(subInstance);
+                    }
+                }
+
+                for (Map.Entry<Class<? extends SPARQLResourceModel>, List<SPARQLResourceModel>> dependentResources : dependentResourcesByClass.entrySet()) {
+                    create(getDefaultGraph(dependentResources.getKey()), dependentResources.getValue());
+                }
+
+                generateUniqueUrisIfNullOrValidateCurrent(instances);
+
+                int chunkCount = (instances.size() + CREATE_CHUNK_SIZE - 1) / CREATE_CHUNK_SIZE;
+                for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                    long start = System.nanoTime();
+                    List<T> chunk = instances.subList(chunkIndex * CREATE_CHUNK_SIZE, Math.min(instances.size(), (chunkIndex + 1) * CREATE_CHUNK_SIZE));
+
+                    UpdateBuilder create = new UpdateBuilder();
+                    List<URI> chunkURIs = new ArrayList<>(chunk.size());
+                    boolean chunkHierarchyChanged = false;
+                    for (T instance : chunk) {
+                        SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
+                        mapper.addCreateBuilder(graph, instance, create);
+                        chunkURIs.add(instance.getUri());
+                        chunkHierarchyChanged |= mapper.hasClassHierarchyField();
+                    }
+                    executeUpdate(create);
+                    textIndexChanged(chunkURIs);
+                    if (chunkHierarchyChanged) {
+                        classHierarchyChanged();
+                    }
+
+                    LOGGER.debug("SPARQL BULK CREATE chunk " + (chunkIndex + 1) + "/" + chunkCount + ": "
+                            + chunk.size() + " instances in " + ((System.nanoTime() - start) / 1000000) + " ms");
+                }
+
+                commitTransaction();
+            } catch (Exception ex) {
+                rollbackTransaction(ex);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * Bulk version of {@link #generateUniqueUriIfNullOrValidateCurrent(SPARQLClassObjectMapper, SPARQLResourceModel, boolean)}.
+     *
+     * Candidate URIs are checked by chunks with a single query, new URIs are generated only for
+     * candidates colliding with an existing URI or with another instance of the list.
+     * </pre>
+     *
+     * @param instances instances to check and to set URI to
+     * @throws SPARQLAlreadyExistingUriException if an instance already has an URI which exists
+     */
+    private <T extends SPARQLResourceModel> void generateUniqueUrisIfNullOrValidateCurrent(List<T> instances) throws Exception {
+        SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
+
+        Set<String> batchUris = new HashSet<>();
+        List<URI> givenUris = new ArrayList<>();
+        // Instances with a generated URI and their current retry count
+        List<T> generatedInstances = new ArrayList<>();
+        List<Integer> generatedRetries = new ArrayList<>();
+
+        for (T instance : instances) {
+            SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
+            URI uri = mapper.getURI(instance);
+            if (uri == null) {
+                generatedInstances.add(instance);
+                generatedRetries.add(generateBatchUniqueUri(mapper, instance, 0, batchUris));
+            } else {
+                if (!batchUris.add(SPARQLDeserializers.getExpandedURI(uri.toString()))) {
+                    throw new SPARQLAlreadyExistingUriException(uri);
+                }
+                givenUris.add(uri);
             }
+        }
+
+        Set<String> existingUris = getExistingUris(givenUris);
+        if (!existingUris.isEmpty()) {
+            for (URI uri : givenUris) {
+                if (existingUris.contains(SPARQLDeserializers.getExpandedURI(uri.toString()))) {
+                    throw new SPARQLAlreadyExistingUriException(uri);
+                }
+            }
+        }
 
-            executeUpdateQuery(create);
+        while (!generatedInstances.isEmpty()) {
+            List<URI> candidateUris = new ArrayList<>(generatedInstances.size());
+            for (T instance : generatedInstances) {
+                candidateUris.add(mapperIndex.getForClass(instance.getClass()).getURI(instance));
+            }
+            existingUris = getExistingUris(candidateUris);
+
+            List<T> collidingInstances = new ArrayList<>();
+            List<Integer> collidingRetries = new ArrayList<>();
+            for (int i = 0; i < generatedInstances.size(); i++) {
+                T instance = generatedInstances.get(i);
+                if (existingUris.contains(SPARQLDeserializers.getExpandedURI(candidateUris.get(i).toString()))) {
+                    SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(instance.getClass());
+                    collidingInstances.add(instance);
+                    collidingRetries.add(generateBatchUniqueUri(mapper, instance, generatedRetries.get(i) + 1, batchUris));
+                }
+            }
+            generatedInstances = collidingInstances;
+            generatedRetries = collidingRetries;
         }
     }
 
+    private <T extends SPARQLResourceModel> int generateBatchUniqueUri(SPARQLClassObjectMapper<T> mapper, T instance, int retry, Set<String> batchUris) throws Exception {
+        URIGenerator<T> uriGenerator = mapper.getUriGenerator(instance);
+        String graphPrefix = getDefaultGraph(instance.getClass()).toString();
+
+        URI uri = uriGenerator.generateURI(graphPrefix, instance, retry);
+        while (!batchUris.add(SPARQLDeserializers.getExpandedURI(uri.toString()))) {
+            uri = uriGenerator.generateURI(graphPrefix, instance, ++retry);
+        }
+        mapper.setUri(instance, uri);
+
+        return retry;
+    }
+
+    /**
+     * Return URIs of the given list which are used as subject or object of any triple, checked by chunks of {@link #CREATE_CHUNK_SIZE} URIs.
+     *
+     * @param uris URIs to check
+     * @return set of existing URIs in expanded form
+     * @throws Exception
+     */
+    public Set<String> getExistingUris(List<URI> uris) throws Exception {
+        Set<String> existingUris = new HashSet<>();
+
+        for (int i = 0; i < uris.size(); i += CREATE_CHUNK_SIZE) {
+            List<URI> chunk = uris.subList(i, Math.min(uris.size(), i + CREATE_CHUNK_SIZE));
+
+            Var uriVar = makeVar("uri");
+            Var s = makeVar("s");
+            Var p = makeVar("p");
+            Var o = makeVar("o");
+            SelectBuilder select = new SelectBuilder()
+                    .setDistinct(true)
+                    .addVar(uriVar)
+                    .addWhere(uriVar, p, o)
+                    .addUnion(new WhereBuilder().addWhere(s, p, uriVar));
+            SPARQLQueryHelper.addWhereValues(select, uriVar.getVarName(), chunk);
+
+            for (SPARQLResult result : executeSelectQuery(select)) {
+                existingUris.add(SPARQLDeserializers.getExpandedURI(result.getStringValue(uriVar.getVarName())));
+            }
+        }
+
+        return existingUris;
+    }
+
     private <T extends SPARQLResourceModel> void generateUniqueUriIfNullOrValidateCurrent(SPARQLClassObjectMapper<T> mapper, T instance, boolean checkUriExist) throws Exception {
         URIGenerator<T> uriGenerator = mapper.getUriGenerator(instance);
         URI uri = mapper.getURI(instance);
@@ -724,82 +1244,108 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
     }
 
     public <T extends SPARQLResourceModel> void update(Node graph, T instance) throws Exception {
+        try {
+            startTransaction();
+
+            UpdateBuilder update = new UpdateBuilder();
+            if (addUpdateBuilder(graph, instance, update)) {
+                executeUpdate(update);
+                textIndexChanged(Collections.singletonList(instance.getUri()));
+                classHierarchyChangedByClass(instance.getClass());
+            }
+
+            commitTransaction();
+        } catch (Exception ex) {
+            rollbackTransaction(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * <pre>
+     * Add to the given builder the minimal DELETE/INSERT quads to update instance.
+     *
+     * Instance is validated once merged with its stored values. Auto-update fields values are deleted
+     * or updated and new dependent resources are created immediately, then only the instance triples which differ from the stored ones are added to the builder.
+     * </pre>
+     *
+     * @param graph instance graph
+     * @param instance instance to update
+     * @param update builder in which quads to delete and to insert are added
+     * @return true if the builder must be executed
+     * @throws Exception
+     */
+    private <T extends SPARQLResourceModel> boolean addUpdateBuilder(Node graph, T instance, UpdateBuilder update) throws Exception {
         SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
 
         @SuppressWarnings("unchecked")
         Class<T> objectClass = (Class<T>) instance.getClass();
         SPARQLClassObjectMapper<T> mapper = mapperIndex.getForClass(objectClass);
 
-        try {
-            startTransaction();
+        URI uri = mapper.getURI(instance);
+        T oldInstance = loadByURI(graph, objectClass, uri, getDefaultLang());
+        if (oldInstance == null) {
+            throw new SPARQLInvalidURIException(instance.getUri());
+        }
+        mapper.updateInstanceFromOldValues(oldInstance, instance);
+        validate(instance);
 
-            URI uri = mapper.getURI(instance);
-            T oldInstance = loadByURI(graph, objectClass, uri, getDefaultLang());
-            if (oldInstance == null) {
-                throw new SPARQLInvalidURIException(instance.getUri());
-            }
-            mapper.updateInstanceFromOldValues(oldInstance, instance);
-
-            Map<URI, Class<? extends SPARQLResourceModel>> autoUpdateFieldsToDelete = new HashMap<>();
-            List<SPARQLResourceModel> autoUpdateFieldsToUpdate = new ArrayList<>();
-
-            List<Field> autoUpdateFields = mapper.getAutoUpdateFields();
-            for (Field f : autoUpdateFields) {
-                SPARQLResourceModel newFieldValue = (SPARQLResourceModel) f.get(instance);
-                SPARQLResourceModel oldFieldValue = (SPARQLResourceModel) f.get(oldInstance);
-                if (newFieldValue == null || newFieldValue.getUri() == null) {
-                    if (oldFieldValue != null) {
-                        autoUpdateFieldsToDelete.put(oldFieldValue.getUri(), oldFieldValue.getClass());
-                    }
-                } else if (oldFieldValue != null) {
-                    if (!oldFieldValue.getUri().equals(newFieldValue.getUri())) {
-                        autoUpdateFieldsToDelete.put(oldFieldValue.getUri(), oldFieldValue.getClass());
-                    } else {
-                        autoUpdateFieldsToUpdate.add(newFieldValue);
-                    }
+        Map<URI, Class<? extends SPARQLResourceModel>> autoUpdateFieldsToDelete = new HashMap<>();
+        List<SPARQLResourceModel> autoUpdateFieldsToUpdate = new ArrayList<>();
+
+        List<Field> autoUpdateFields = mapper.getAutoUpdateFields();
+        for (Field f : autoUpdateFields) {
+            SPARQLResourceModel newFieldValue = (SPARQLResourceModel) f.get(instance);
+            SPARQLResourceModel oldFieldValue = (SPARQLResourceModel) f.get(oldInstance);
+            if (newFieldValue == null || newFieldValue.getUri() == null) {
+                if (oldFieldValue != null) {
+                    autoUpdateFieldsToDelete.put(oldFieldValue.getUri(), oldFieldValue.getClass());
+                }
+            } else if (oldFieldValue != null) {
+                if (!oldFieldValue.getUri().equals(newFieldValue.getUri())) {
+                    autoUpdateFieldsToDelete.put(oldFieldValue.getUri(), oldFieldValue.getClass());
+                } else {
+                    autoUpdateFieldsToUpdate.add(newFieldValue);
                 }
             }
+        }
 
-            List<Field> autoUpdateListFields = mapper.getAutoUpdateListFields();
-            for (Field f : autoUpdateListFields) {
-                List<? extends SPARQLResourceModel> newFieldValue = (List<? extends SPARQLResourceModel>) f.get(instance);
-                List<? extends SPARQLResourceModel> oldFieldValue = (List<? extends SPARQLResourceModel>) f.get(oldInstance);
+        List<Field> autoUpdateListFields = mapper.getAutoUpdateListFields();
+        for (Field f : autoUpdateListFields) {
+            List<? extends SPARQLResourceModel> newFieldValue = (List<? extends SPARQLResourceModel>) f.get(instance);
+            List<? extends SPARQLResourceModel> oldFieldValue = (List<? extends SPARQLResourceModel>) f.get(oldInstance);
 
-                if (newFieldValue == null) {
+            if (newFieldValue == null) {
+                for (SPARQLResourceModel ofValue : oldFieldValue) {
+                    autoUpdateFieldsToDelete.put(ofValue.getUri(), ofValue.getClass());
+                }
+            } else {
+                Map<URI, Class<? extends SPARQLResourceModel>> oldURIs = new HashMap<>();
+                if (oldFieldValue != null) {
                     for (SPARQLResourceModel ofValue : oldFieldValue) {
-                        autoUpdateFieldsToDelete.put(ofValue.getUri(), ofValue.getClass());
-                    }
-                } else {
-                    Map<URI, Class<? extends SPARQLResourceModel>> oldURIs = new HashMap<>();
-                    if (oldFieldValue != null) {
-                        for (SPARQLResourceModel ofValue : oldFieldValue) {
-                            oldURIs.put(ofValue.getUri(), ofValue.getClass());
-                        }
+                        oldURIs.put(ofValue.getUri(), ofValue.getClass());
                     }
-                    for (SPARQLResourceModel nfValue : newFieldValue) {
-                        if (nfValue != null && nfValue.getUri() != null) {
-                            if (oldURIs.containsKey(nfValue.getUri())) {
-                                autoUpdateFieldsToUpdate.add(nfValue);
-                                oldURIs.remove(nfValue.getUri());
-                            }
+                }
+                for (SPARQLResourceModel nfValue : newFieldValue) {
+                    if (nfValue != null && nfValue.getUri() != null) {
+                        if (oldURIs.containsKey(nfValue.getUri())) {
+                            autoUpdateFieldsToUpdate.add(nfValue);
+                            oldURIs.remove(nfValue.getUri());
                         }
                     }
-                    autoUpdateFieldsToDelete.putAll(oldURIs);
                 }
+                autoUpdateFieldsToDelete.putAll(oldURIs);
             }
+        }
 
-            deleteURIClassMap(autoUpdateFieldsToDelete);
-            update(autoUpdateFieldsToUpdate);
-
-            UpdateBuilder delete = mapper.getDeleteBuilder(graph, oldInstance);
-            executeDeleteQuery(delete);
-            create(graph, instance, false);
+        deleteURIClassMap(autoUpdateFieldsToDelete);
+        update(autoUpdateFieldsToUpdate);
 
-            commitTransaction();
-        } catch (Exception ex) {
-            rollbackTransaction(ex);
-            throw ex;
+        for (SPARQLResourceModel subInstance : mapper.getAllDependentResourcesToCreate(instance)) {
+            create(subInstance);
         }
+
+        return mapper.addUpdateBuilder(graph, oldInstance, instance, update);
     }
 
     public <T extends SPARQLResourceModel> void update(List<T> instances) throws Exception {
@@ -811,16 +1357,27 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
             startTransaction();
 
             if (instances.size() > 0) {
-
-                validate(instances);
-
+                UpdateBuilder update = new UpdateBuilder();
+                boolean hasChanges = false;
+                boolean hierarchyChanged = false;
+                List<URI> updatedURIs = new ArrayList<>(instances.size());
                 for (T instance : instances) {
                     Node instanceGraph = graph;
                     if (graph == null) {
                         instanceGraph = getDefaultGraph(instance.getClass());
                     }
 
-                    update(instanceGraph, instance);
+                    hasChanges |= addUpdateBuilder(instanceGraph, instance, update);
+                    updatedURIs.add(instance.getUri());
+                    hierarchyChanged |= getMapperIndex().getForClass(instance.getClass()).hasClassHierarchyField();
+                }
+
+                if (hasChanges) {
+                    executeUpdate(update);
+                    textIndexChanged(updatedURIs);
+                    if (hierarchyChanged) {
+                        classHierarchyChanged();
+                    }
                 }
             }
             commitTransaction();
@@ -877,18 +1434,21 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
                 Property reverseProp = reverseMapper.getFieldProperty(entry.getValue());
                 deleteAllReverseReferencesBuilder.addDelete(reverseMapper.getDefaultGraph(), var, reverseProp, uriNode);
                 deleteAllReverseReferencesBuilder.addWhere(var, reverseProp, uriNode);
+                classHierarchyChangedByProperty(reverseProp);
             }
             if (statementCount > 0) {
-                executeDeleteQuery(deleteAllReverseReferencesBuilder);
+                executeDelete(deleteAllReverseReferencesBuilder);
             }
 
             UpdateBuilder delete = mapper.getDeleteBuilder(graph, instance);
-            executeDeleteQuery(delete);
+            executeDelete(delete);
 
             UpdateBuilder deleteRelations = mapper.getDeleteRelationsBuilder(graph, uri);
             if (deleteRelations != null) {
-                executeDeleteQuery(deleteRelations);
+                executeDelete(deleteRelations);
             }
+            textIndexChanged(Collections.singletonList(uri));
+            classHierarchyChangedByClass(objectClass);
 
             for (Map.Entry<Class<? extends SPARQLResourceModel>, List<URI>> relationToDelete : relationsToDelete.entrySet()) {
                 delete(relationToDelete.getKey(), relationToDelete.getValue());
@@ -904,13 +1464,47 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         delete(getDefaultGraph(objectClass), objectClass, uris);
     }
 
+    /**
+     * <pre>
+     * Delete a list of instances and their cascade deleted relations.
+     *
+     * The whole cascade closure is resolved first with one query by cascade field and chunk of URIs,
+     * then instances triples and references to them are removed with one DELETE request
+     * by class, graph and chunk of URIs, within one transaction.
+     * </pre>
+     *
+     * @param graph graph of the instances to delete, cascade deleted instances are deleted from their class default graph
+     * @param objectClass class of the instances to delete
+     * @param uris URIs of the instances to delete
+     * @throws Exception
+     */
     public <T extends SPARQLResourceModel> void delete(Node graph, Class<T> objectClass, List<URI> uris) throws Exception {
         if (uris.size() > 0) {
             try {
                 startTransaction();
+
+                Set<String> existingUris = getExistingUris(uris);
                 for (URI uri : uris) {
-                    delete(graph, objectClass, uri);
+                    if (!existingUris.contains(SPARQLDeserializers.getExpandedURI(uri.toString()))) {
+                        throw new SPARQLInvalidURIException(uri);
+                    }
                 }
+
+                Map<Class<? extends SPARQLResourceModel>, Set<URI>> urisToDeleteByClass = getCascadeDeleteClosure(objectClass, uris);
+
+                for (Map.Entry<Class<? extends SPARQLResourceModel>, Set<URI>> urisToDelete : urisToDeleteByClass.entrySet()) {
+                    Class<? extends SPARQLResourceModel> deleteClass = urisToDelete.getKey();
+                    Node deleteGraph = deleteClass.equals(objectClass) ? graph : getDefaultGraph(deleteClass);
+                    List<URI> deleteUris = new ArrayList<>(urisToDelete.getValue());
+
+                    for (int i = 0; i < deleteUris.size(); i += CREATE_CHUNK_SIZE) {
+                        List<URI> chunk = deleteUris.subList(i, Math.min(deleteUris.size(), i + CREATE_CHUNK_SIZE));
+                        executeDelete(getDeleteInstancesBuilder(deleteGraph, deleteClass, chunk));
+                        textIndexChanged(chunk);
+                    }
+                    classHierarchyChangedByClass(deleteClass);
+                }
+
                 commitTransaction();
             } catch (Exception ex) {
                 rollbackTransaction(ex);
@@ -919,6 +1513,127 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         }
     }
 
+    /**
+     * Return URIs of the given instances and of all instances which must be deleted with them by class.
+     *
+     * @param objectClass class of the instances to delete
+     * @param uris URIs of the instances to delete
+     * @return URIs to delete by class
+     * @throws Exception
+     */
+    private Map<Class<? extends SPARQLResourceModel>, Set<URI>> getCascadeDeleteClosure(Class<? extends SPARQLResourceModel> objectClass, Collection<URI> uris) throws Exception {
+        SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
+        Map<Class<? extends SPARQLResourceModel>, Set<URI>> urisToDeleteByClass = new LinkedHashMap<>();
+        urisToDeleteByClass.put(objectClass, new LinkedHashSet<>(uris));
+
+        Map<Class<? extends SPARQLResourceModel>, Set<URI>> urisToExpand = new LinkedHashMap<>(urisToDeleteByClass);
+        while (!urisToExpand.isEmpty()) {
+            Map<Class<? extends SPARQLResourceModel>, Set<URI>> newUrisByClass = new LinkedHashMap<>();
+
+            for (Map.Entry<Class<? extends SPARQLResourceModel>, Set<URI>> classUris : urisToExpand.entrySet()) {
+                Class<? extends SPARQLResourceModel> expandClass = classUris.getKey();
+                List<URI> expandUris = new ArrayList<>(classUris.getValue());
+                SPARQLClassObjectMapper<SPARQLResourceModel> mapper = mapperIndex.getForClass(expandClass);
+
+                for (Map.Entry<Field, Class<? extends SPARQLResourceModel>> cascadeDeleteClassField : mapper.getCascadeDeleteClassesField().entrySet()) {
+                    Class<? extends SPARQLResourceModel> relationClass = cascadeDeleteClassField.getValue();
+                    Set<URI> alreadyDeleted = urisToDeleteByClass.computeIfAbsent(relationClass, (c) -> new LinkedHashSet<>());
+
+                    for (int i = 0; i < expandUris.size(); i += CREATE_CHUNK_SIZE) {
+                        List<URI> chunk = expandUris.subList(i, Math.min(expandUris.size(), i + CREATE_CHUNK_SIZE));
+                        for (URI relationURI : getRelationsURIs(expandClass, relationClass, cascadeDeleteClassField.getKey(), chunk)) {
+                            if (alreadyDeleted.add(relationURI)) {
+                                newUrisByClass.computeIfAbsent(relationClass, (c) -> new LinkedHashSet<>()).add(relationURI);
+                            }
+                        }
+                    }
+                }
+            }
+
+            urisToExpand = newUrisByClass;
+        }
+
+        urisToDeleteByClass.values().removeIf(Set::isEmpty);
+
+        return urisToDeleteByClass;
+    }
+
+    /**
+     * <pre>
+     * Return a single DELETE request removing for all given URIs the same triples as a single instance delete:
+     * - rdf:type and objectClass fields triples in graph having one of them as subject
+     * - every triple of objectClass inverse fields, having one of them as object
+     * - every relation of related resources removed by single instance delete
+     * - every reference to them from fields of other classes mapped as relation to objectClass
+     * </pre>
+     *
+     * @param graph instances graph
+     * @param objectClass instances class
+     * @param uris instances URIs
+     * @return the delete request builder
+     * @throws Exception
+     */
+    private UpdateBuilder getDeleteInstancesBuilder(Node graph, Class<? extends SPARQLResourceModel> objectClass, Collection<URI> uris) throws Exception {
+        SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
+        UpdateBuilder delete = new UpdateBuilder();
+        Var uriVar = makeVar("_uri");
+
+        int statementCount = 0;
+        Iterator<Map.Entry<Class<? extends SPARQLResourceModel>, Field>> i = mapperIndex.getReverseReferenceIterator(objectClass);
+        while (i.hasNext()) {
+            Map.Entry<Class<? extends SPARQLResourceModel>, Field> entry = i.next();
+            statementCount++;
+            Var var = makeVar("_x" + statementCount);
+            SPARQLClassObjectMapper<SPARQLResourceModel> reverseMapper = mapperIndex.getForClass(entry.getKey());
+            Property reverseProp = reverseMapper.getFieldProperty(entry.getValue());
+            delete.addDelete(reverseMapper.getDefaultGraph(), var, reverseProp, uriVar);
+            delete.addUnion(new WhereBuilder().addWhere(var, reverseProp, uriVar));
+            classHierarchyChangedByProperty(reverseProp);
+        }
+
+        SPARQLClassObjectMapper<SPARQLResourceModel> mapper = mapperIndex.getForClass(objectClass);
+        mapper.addDeleteInstancesFieldsBuilder(graph, uriVar, delete);
+
+        SPARQLQueryHelper.addWhereValues(delete, uriVar.getVarName(), uris);
+
+        return delete;
+    }
+
+    /**
+     * Batch version of {@link #getRelationsURI(Class, Class, Field, URI)} for a list of object URIs.
+     *
+     * @param objectClass class of the objects
+     * @param relationClass class of the related instances
+     * @param objectField object field of the relation
+     * @param objectURIs objects URIs
+     * @return URIs of the instances related to any of the objects
+     * @throws Exception
+     */
+    public <T extends SPARQLResourceModel, U extends SPARQLResourceModel> List<URI> getRelationsURIs(Class<T> objectClass, Class<U> relationClass, Field objectField, Collection<URI> objectURIs) throws Exception {
+        SPARQLClassObjectMapperIndex mapperIndex = getMapperIndex();
+        SPARQLClassObjectMapper<T> objectMapper = mapperIndex.getForClass(objectClass);
+        SPARQLClassObjectMapper<T> relationMapper = mapperIndex.getForClass(relationClass);
+        Var objectVar = makeVar("_object");
+        Node relationGraph = getDefaultGraph(relationClass);
+        Node graph = getDefaultGraph(objectClass);
+
+        return this.searchURIs(relationGraph, relationClass, null, (select) -> {
+            WhereHandler whereHandler = new WhereHandler();
+            if (objectMapper.isReverseRelation(objectField)) {
+                whereHandler.addWhere(select.makeTriplePath(relationMapper.getURIFieldVar(), objectMapper.getFieldProperty(objectField), objectVar));
+
+                ElementNamedGraph elementNamedGraph = new ElementNamedGraph(relationGraph, whereHandler.getElement());
+                select.getWhereHandler().getClause().addElement(elementNamedGraph);
+            } else {
+                whereHandler.addWhere(select.makeTriplePath(objectVar, objectMapper.getFieldProperty(objectField), relationMapper.getURIFieldVar()));
+
+                ElementNamedGraph elementNamedGraph = new ElementNamedGraph(graph, whereHandler.getElement());
+                select.getWhereHandler().getClause().addElement(elementNamedGraph);
+            }
+            SPARQLQueryHelper.addWhereValues(select, objectVar.getVarName(), objectURIs);
+        });
+    }
+
     private void deleteURIClassMap(Map<URI, Class<? extends SPARQLResourceModel>> deleteList) throws Exception {
         if (deleteList.size() > 0) {
             try {
@@ -1061,7 +1776,9 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
 
             insertQuery.addInsert(graph, SPARQLDeserializers.nodeURI(subject), property, nodeValue);
 
-            executeUpdateQuery(insertQuery);
+            executeUpdate(insertQuery);
+            textIndexChanged(Collections.singletonList(subject));
+            classHierarchyChangedByProperty(property);
         }
 
     }
@@ -1097,7 +1814,9 @@ public class SPARQLService extends BaseService implements SPARQLConnection, Serv
         updateBuilder.addInsert(graph, insertTriplesIt);
         updateBuilder.addOptional(subjectNode, property, objectVariable);
 
-        executeUpdateQuery(updateBuilder);
+        executeUpdate(updateBuilder);
+        textIndexChanged(Collections.singletonList(subject));
+        classHierarchyChangedByProperty(property);
     }
 
     /**
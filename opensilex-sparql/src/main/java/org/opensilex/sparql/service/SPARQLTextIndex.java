@@ -0,0 +1,398 @@
+//******************************************************************************
+// OpenSILEX - Licence AGPL V3.0 - https://www.gnu.org/licenses/agpl-3.0.en.html
+// Copyright © INRA 2019
+// Contact: vincent.migot@inra.fr, anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package org.opensilex.sparql.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.jena.arq.querybuilder.ExprFactory;
+import org.apache.jena.arq.querybuilder.SelectBuilder;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.update.Update;
+import org.apache.jena.update.UpdateRequest;
+import org.apache.jena.vocabulary.RDFS;
+import org.opensilex.sparql.deserializer.SPARQLDeserializers;
+import org.opensilex.sparql.exceptions.SPARQLException;
+import static org.opensilex.sparql.service.SPARQLQueryHelper.makeVar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * In memory full-text index of the literal values of rdfs:label and of registered properties.
+ *
+ * It's used to resolve the subjects matching a case insensitive "contains" text search before
+ * the SPARQL query, instead of a REGEX filter evaluated on every value of the triple store.
+ * Values are indexed by lower case trigrams: a search reads the subjects of the least frequent
+ * trigram of the searched text and checks their values.
+ *
+ * The index is loaded lazily from the triple store on first use. Resources written through
+ * {@link SPARQLService} are reindexed on next search once their transaction is committed,
+ * writes which modified subjects can't be determined invalidate the whole index.
+ * All URIs are stored in their expanded form.
+ * </pre>
+ *
+ * @author vincent
+ */
+public final class SPARQLTextIndex {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SPARQLTextIndex.class);
+
+    /**
+     * Maximum number of subjects returned by a search, above this limit the search is not restrictive enough to be worth it
+     */
+    public final static int MAX_SEARCH_RESULTS = 10000;
+
+    private final static int GRAM_SIZE = 3;
+
+    private final static int REFRESH_CHUNK_SIZE = 1000;
+
+    /**
+     * Characters with a special meaning in a regular expression, text containing them is not searched in the index
+     */
+    private final static String REGEX_SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static volatile SPARQLTextIndex instance;
+
+    /**
+     * Incremented on each invalidation, prevent an index loaded before an invalidation to be used
+     */
+    private final static AtomicLong version = new AtomicLong();
+
+    private final static Set<String> indexedProperties = ConcurrentHashMap.newKeySet();
+
+    private final static Set<String> dirtyResources = ConcurrentHashMap.newKeySet();
+
+    static {
+        indexedProperties.add(RDFS.label.getURI());
+    }
+
+    /**
+     * Property URI -> subject URI -> lower case values
+     */
+    private final Map<String, Map<String, Set<String>>> values = new HashMap<>();
+
+    /**
+     * Property URI -> trigram -> subject URIs
+     */
+    private final Map<String, Map<String, Set<String>>> grams = new HashMap<>();
+
+    private SPARQLTextIndex() {
+    }
+
+    /**
+     * Return the text index, loading it or reindexing modified resources with the given service if needed.
+     *
+     * @param sparql service used to load index
+     * @return the text index
+     * @throws SPARQLException if index can't be loaded
+     */
+    public static SPARQLTextIndex getInstance(SPARQLService sparql) throws SPARQLException {
+        SPARQLTextIndex index = instance;
+        if (index == null) {
+            synchronized (SPARQLTextIndex.class) {
+                index = instance;
+                if (index == null) {
+                    long loadVersion = version.get();
+                    index = load(sparql);
+                    if (loadVersion == version.get()) {
+                        instance = index;
+                    }
+                }
+            }
+        }
+
+        if (!dirtyResources.isEmpty()) {
+            index.refresh(sparql);
+        }
+
+        return index;
+    }
+
+    /**
+     * Invalidate the whole text index, it will be reloaded on next use.
+     */
+    public static void invalidate() {
+        version.incrementAndGet();
+        instance = null;
+    }
+
+    /**
+     * Mark resources as modified, their values will be reindexed on next use.
+     *
+     * @param uris modified resources URIs
+     */
+    public static void invalidateResources(Collection<URI> uris) {
+        for (URI uri : uris) {
+            if (uri != null) {
+                dirtyResources.add(SPARQLDeserializers.getExpandedURI(uri.toString()));
+            }
+        }
+    }
+
+    /**
+     * Add a literal property to index in addition to rdfs:label, the index is reloaded if property wasn't already indexed.
+     *
+     * @param propertyURI property URI
+     */
+    public static void addIndexedProperty(String propertyURI) {
+        if (indexedProperties.add(SPARQLDeserializers.getExpandedURI(propertyURI))) {
+            invalidate();
+        }
+    }
+
+    /**
+     * @param propertyURI property URI
+     * @return true if the property values are indexed
+     */
+    public static boolean isIndexedProperty(String propertyURI) {
+        return indexedProperties.contains(SPARQLDeserializers.getExpandedURI(propertyURI));
+    }
+
+    /**
+     * <pre>
+     * Return the subjects of the update triples which may modify indexed values.
+     * Triples with a predicate which is not indexed are ignored.
+     * </pre>
+     *
+     * @param request SPARQL update
+     * @return subjects URIs, null if they can't be determined (variable or blank subject, unsupported operation)
+     */
+    public static Set<URI> getModifiedSubjects(UpdateRequest request) {
+        Set<URI> subjects = new HashSet<>();
+        for (Update operation : request.getOperations()) {
+            List<Quad> quads = SPARQLQueryHelper.getUpdateQuads(operation);
+            if (quads == null) {
+                return null;
+            }
+
+            for (Quad quad : quads) {
+                Node predicate = quad.getPredicate();
+                if (predicate.isURI() && !isIndexedProperty(predicate.getURI())) {
+                    continue;
+                }
+
+                Node subject = quad.getSubject();
+                if (!subject.isURI()) {
+                    return null;
+                }
+                try {
+                    subjects.add(new URI(subject.getURI()));
+                } catch (URISyntaxException ex) {
+                    return null;
+                }
+            }
+        }
+
+        return subjects;
+    }
+
+    /**
+     * @param text text to search
+     * @return true if text is not empty and can be searched literally, false if it's a regular expression
+     */
+    public static boolean isPlainText(String text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            if (REGEX_SPECIAL_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static SPARQLTextIndex load(SPARQLService sparql) throws SPARQLException {
+        long start = System.currentTimeMillis();
+
+        SPARQLTextIndex index = new SPARQLTextIndex();
+        index.addQueryResults(sparql, getValuesQuery(null));
+
+        int subjectCount = 0;
+        for (Map<String, Set<String>> propertyValues : index.values.values()) {
+            subjectCount += propertyValues.size();
+        }
+        LOGGER.debug("SPARQL text index loaded: " + subjectCount + " indexed values in " + (System.currentTimeMillis() - start) + " ms");
+
+        return index;
+    }
+
+    private synchronized void refresh(SPARQLService sparql) throws SPARQLException {
+        List<String> uris = new ArrayList<>();
+        Iterator<String> i = dirtyResources.iterator();
+        while (i.hasNext()) {
+            uris.add(i.next());
+            i.remove();
+        }
+
+        try {
+            for (int chunkStart = 0; chunkStart < uris.size(); chunkStart += REFRESH_CHUNK_SIZE) {
+                List<String> chunk = uris.subList(chunkStart, Math.min(uris.size(), chunkStart + REFRESH_CHUNK_SIZE));
+                for (String uri : chunk) {
+                    removeSubject(uri);
+                }
+                addQueryResults(sparql, getValuesQuery(chunk));
+            }
+        } catch (SPARQLException ex) {
+            invalidate();
+            throw ex;
+        }
+
+        LOGGER.debug("SPARQL text index refreshed for " + uris.size() + " resources");
+    }
+
+    private static SelectBuilder getValuesQuery(Collection<String> subjects) throws SPARQLException {
+        Var subjectVar = makeVar("s");
+        Var propertyVar = makeVar("p");
+        Var valueVar = makeVar("o");
+        ExprFactory exprFactory = SPARQLQueryHelper.getExprFactory();
+
+        SelectBuilder select = new SelectBuilder()
+                .setDistinct(true)
+                .addVar(subjectVar)
+                .addVar(propertyVar)
+                .addVar(valueVar)
+                .addWhere(subjectVar, propertyVar, valueVar)
+                .addFilter(exprFactory.and(exprFactory.isIRI(subjectVar), exprFactory.isLiteral(valueVar)));
+
+        try {
+            List<URI> properties = new ArrayList<>();
+            for (String property : indexedProperties) {
+                properties.add(new URI(property));
+            }
+            SPARQLQueryHelper.addWhereValues(select, propertyVar.getVarName(), properties);
+
+            if (subjects != null) {
+                List<URI> subjectURIs = new ArrayList<>(subjects.size());
+                for (String subject : subjects) {
+                    subjectURIs.add(new URI(subject));
+                }
+                SPARQLQueryHelper.addWhereValues(select, subjectVar.getVarName(), subjectURIs);
+            }
+        } catch (Exception ex) {
+            throw new SPARQLException(ex);
+        }
+
+        return select;
+    }
+
+    private void addQueryResults(SPARQLService sparql, SelectBuilder select) throws SPARQLException {
+        for (SPARQLResult result : sparql.executeSelectQuery(select)) {
+            String subject = SPARQLDeserializers.getExpandedURI(result.getStringValue("s"));
+            String property = SPARQLDeserializers.getExpandedURI(result.getStringValue("p"));
+            String value = result.getStringValue("o");
+            if (value != null) {
+                addValue(property, subject, value.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private void addValue(String property, String subject, String value) {
+        values.computeIfAbsent(property, (key) -> new HashMap<>())
+                .computeIfAbsent(subject, (key) -> new HashSet<>())
+                .add(value);
+
+        Map<String, Set<String>> propertyGrams = grams.computeIfAbsent(property, (key) -> new HashMap<>());
+        for (String gram : getGrams(value)) {
+            propertyGrams.computeIfAbsent(gram, (key) -> new HashSet<>()).add(subject);
+        }
+    }
+
+    private void removeSubject(String subject) {
+        for (Map.Entry<String, Map<String, Set<String>>> propertyValues : values.entrySet()) {
+            Set<String> subjectValues = propertyValues.getValue().remove(subject);
+            if (subjectValues != null) {
+                Map<String, Set<String>> propertyGrams = grams.get(propertyValues.getKey());
+                for (String value : subjectValues) {
+                    for (String gram : getGrams(value)) {
+                        Set<String> subjects = propertyGrams.get(gram);
+                        if (subjects != null) {
+                            subjects.remove(subject);
+                            if (subjects.isEmpty()) {
+                                propertyGrams.remove(gram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> getGrams(String value) {
+        Set<String> valueGrams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            valueGrams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return valueGrams;
+    }
+
+    /**
+     * Equivalent of "?subject propertyURI ?value FILTER(REGEX(?value, text, "i"))" for a plain text.
+     *
+     * @param propertyURI indexed property
+     * @param text plain text to search
+     * @return set of expanded subject URIs, or null if property isn't indexed, text isn't plain text
+     * or there is more than {@link #MAX_SEARCH_RESULTS} results
+     */
+    public synchronized Set<String> search(String propertyURI, String text) {
+        String property = SPARQLDeserializers.getExpandedURI(propertyURI);
+        if (!indexedProperties.contains(property) || !isPlainText(text)) {
+            return null;
+        }
+
+        Map<String, Set<String>> propertyValues = values.getOrDefault(property, Collections.emptyMap());
+        String searchedText = text.toLowerCase(Locale.ROOT);
+
+        Collection<String> candidates;
+        if (searchedText.length() < GRAM_SIZE) {
+            candidates = propertyValues.keySet();
+        } else {
+            Map<String, Set<String>> propertyGrams = grams.getOrDefault(property, Collections.emptyMap());
+            Set<String> smallestCandidates = null;
+            for (String gram : getGrams(searchedText)) {
+                Set<String> subjects = propertyGrams.get(gram);
+                if (subjects == null) {
+                    return Collections.emptySet();
+                }
+                if (smallestCandidates == null || subjects.size() < smallestCandidates.size()) {
+                    smallestCandidates = subjects;
+                }
+            }
+            candidates = smallestCandidates;
+        }
+
+        Set<String> results = new HashSet<>();
+        for (String subject : candidates) {
+            for (String value : propertyValues.get(subject)) {
+                if (value.contains(searchedText)) {
+                    results.add(subject);
+                    break;
+                }
+            }
+            if (results.size() > MAX_SEARCH_RESULTS) {
+                return null;
+            }
+        }
+
+        return results;
+    }
+}
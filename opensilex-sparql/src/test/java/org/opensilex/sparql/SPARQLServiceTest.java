@@ -7,10 +7,16 @@ package org.opensilex.sparql;
 
 import org.apache.jena.arq.querybuilder.AskBuilder;
 import org.apache.jena.arq.querybuilder.SelectBuilder;
+import org.apache.jena.arq.querybuilder.UpdateBuilder;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.modify.request.UpdateModify;
 import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
 import org.eclipse.rdf4j.model.vocabulary.OWL;
 import org.junit.Test;
 import org.opensilex.OpenSilex;
@@ -24,15 +30,23 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import org.opensilex.sparql.deserializer.SPARQLDeserializers;
+import org.opensilex.sparql.exceptions.SPARQLAlreadyExistingUriException;
 import org.opensilex.sparql.exceptions.SPARQLException;
+import org.opensilex.sparql.mapping.SPARQLClassObjectMapper;
+import org.opensilex.sparql.mapping.SPARQLProxyMarker;
 import org.opensilex.sparql.model.C;
 import org.opensilex.sparql.model.SPARQLLabel;
+import org.opensilex.sparql.service.SPARQLClassHierarchy;
 import org.opensilex.sparql.service.SPARQLQueryHelper;
+import org.opensilex.sparql.service.SPARQLResult;
 import static org.opensilex.sparql.service.SPARQLQueryHelper.makeVar;
 import org.opensilex.sparql.service.SPARQLService;
+import org.opensilex.sparql.service.SPARQLTextIndex;
 import org.opensilex.unit.test.AbstractUnitTest;
 
 /**
@@ -115,6 +129,104 @@ public abstract class SPARQLServiceTest extends AbstractUnitTest {
 
     }
 
+    @Test
+    public void testProxyClassReuse() throws Exception {
+        URI aURI = new URI("http://test.opensilex.org/a/001");
+        A a1 = sparql.getByURI(A.class, aURI, null);
+        A a2 = sparql.getByURI(A.class, aURI, null);
+
+        assertTrue("Instance must be a SPARQL proxy", a1 instanceof SPARQLProxyMarker);
+        assertEquals("Proxy class must be generated once by type", a1.getClass(), a2.getClass());
+        assertEquals("Proxy class must be generated once by type", a1.getB().getClass(), a2.getB().getClass());
+        assertEquals("Each proxy must keep its own handler", aURI, a2.getUri());
+    }
+
+    @Test
+    public void testQueryTemplateCopies() throws Exception {
+        SPARQLClassObjectMapper<A> mapper = sparql.getMapperIndex().getForClass(A.class);
+        Node graph = sparql.getDefaultGraph(A.class);
+
+        SelectBuilder select = mapper.getSelectBuilder(graph, "en");
+        String baseQuery = select.buildString();
+        select.addFilter(SPARQLQueryHelper.eq(A.URI_FIELD, SPARQLDeserializers.nodeURI(new URI("http://test.opensilex.org/a/001"))));
+        select.setLimit(1);
+
+        SelectBuilder otherSelect = mapper.getSelectBuilder(graph, "en");
+        assertNotSame("Each call must return a new builder", select, otherSelect);
+        assertEquals("Template must not be modified by callers", baseQuery, otherSelect.buildString());
+    }
+
+    @Test
+    public void testClassHierarchy() throws Exception {
+        SPARQLClassHierarchy hierarchy = sparql.getClassHierarchy();
+
+        assertTrue("A class must be a sub class of itself", hierarchy.isSubClassOf(TEST_ONTOLOGY.A.getURI(), TEST_ONTOLOGY.A.getURI()));
+        assertFalse("A class must not be a sub class of B", hierarchy.isSubClassOf(TEST_ONTOLOGY.A.getURI(), TEST_ONTOLOGY.B.getURI()));
+        assertTrue("A descendants must contain A", hierarchy.getDescendants(TEST_ONTOLOGY.A.getURI()).contains(TEST_ONTOLOGY.A.getURI()));
+        assertFalse("A descendants must not contain B", hierarchy.getDescendants(TEST_ONTOLOGY.A.getURI()).contains(TEST_ONTOLOGY.B.getURI()));
+    }
+
+    @Test
+    public void testTextIndex() throws Exception {
+        SPARQLTextIndex.addIndexedProperty(TEST_ONTOLOGY.hasString.getURI());
+
+        A a = new A();
+        URI aURI = new URI("http://test.opensilex.org/a/textIndex");
+        a.setUri(aURI);
+        a.setBool(true);
+        a.setCharVar('T');
+        a.setString("Text Index Value");
+        sparql.create(a);
+
+        String expandedURI = SPARQLDeserializers.getExpandedURI(aURI.toString());
+        assertTrue("Created instance must be found", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "index val").contains(expandedURI));
+        assertTrue("Search must ignore case", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "TEXT").contains(expandedURI));
+        assertNull("Regular expressions must not be searched in index", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "^Text.*"));
+        assertNull("Not indexed property must not be searched in index", sparql.searchText(TEST_ONTOLOGY.hasStringList.getURI(), "Text"));
+
+        a.setString("Updated value");
+        sparql.update(a);
+        assertFalse("Old value must not be found after update", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "index val").contains(expandedURI));
+        assertTrue("New value must be found after update", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "updated").contains(expandedURI));
+
+        sparql.delete(A.class, aURI);
+        assertFalse("Deleted instance must not be found", sparql.searchText(TEST_ONTOLOGY.hasString.getURI(), "updated").contains(expandedURI));
+    }
+
+    @Test
+    public void testPrefetchRelations() throws Exception {
+        URI aURI = new URI("http://test.opensilex.org/a/001");
+        List<A> aList = sparql.search(sparql.getDefaultGraph(A.class), A.class, null, (SelectBuilder select) -> {
+            select.addFilter(SPARQLQueryHelper.eq(A.URI_FIELD, SPARQLDeserializers.nodeURI(aURI)));
+        }, null, null, null, Arrays.asList("b"));
+
+        assertEquals(1, aList.size());
+        B b = aList.get(0).getB();
+        assertEquals("B Instance URI must be the same", new URI("http://test.opensilex.org/b/001"), b.getUri());
+        assertEquals("Prefetched relation must be loaded", Integer.valueOf(-6), b.getInteger());
+
+        List<B> bList = sparql.search(B.class, null);
+        sparql.prefetchRelations(B.class, bList, null, Arrays.asList("stringList"));
+        for (B prefetchedB : bList) {
+            if (prefetchedB.getUri().equals(b.getUri())) {
+                assertEquals("Prefetched list must match inserted triple count", 4, prefetchedB.getStringList().size());
+            }
+        }
+    }
+
+    @Test
+    public void testSearchStream() throws Exception {
+        List<B> bList = sparql.search(B.class, null);
+
+        try (Stream<B> bStream = sparql.searchStream(B.class, null, null)) {
+            List<URI> streamedURIs = bStream.map(B::getUri).collect(Collectors.toList());
+            assertEquals("Streamed results must match search results", bList.size(), streamedURIs.size());
+            for (B b : bList) {
+                assertTrue("Streamed results must match search results", streamedURIs.contains(b.getUri()));
+            }
+        }
+    }
+
     @Test
     public void testInsertQuery() throws Exception {
         A a = new A();
@@ -152,6 +264,37 @@ public abstract class SPARQLServiceTest extends AbstractUnitTest {
         assertEquals("B.getStringList size should match inserted triple count", stringList.size(), selectedB.getStringList().size());
     }
 
+    @Test
+    public void testBulkInsertQuery() throws Exception {
+        List<A> aList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            A a = new A();
+            a.setBool(true);
+            a.setCharVar('B');
+            aList.add(a);
+        }
+
+        sparql.create(aList);
+
+        Set<URI> generatedURIs = new HashSet<>();
+        for (A a : aList) {
+            assertNotNull("URI must be generated", a.getUri());
+            assertTrue("Generated URIs must be unique", generatedURIs.add(a.getUri()));
+            assertTrue("Instance must exists", sparql.uriExists(A.class, a.getUri()));
+        }
+
+        A existingA = new A();
+        existingA.setUri(aList.get(0).getUri());
+        existingA.setBool(false);
+        existingA.setCharVar('E');
+        try {
+            sparql.create(Collections.singletonList(existingA));
+            fail("Bulk insert of an existing URI must fail");
+        } catch (SPARQLAlreadyExistingUriException ex) {
+            // Expected exception
+        }
+    }
+
     @Test
     public void testDeleteQuery() throws Exception {
         A a = new A();
@@ -169,6 +312,46 @@ public abstract class SPARQLServiceTest extends AbstractUnitTest {
         assertNull("Object must be null after deletion", sparql.getByURI(A.class, aURI, null));
     }
 
+    private Set<String> getRemainingTriples(URI uri) throws Exception {
+        Set<String> triples = new HashSet<>();
+        SelectBuilder select = new SelectBuilder()
+                .addVar("?p").addVar("?o")
+                .addWhere(SPARQLDeserializers.nodeURI(uri), "?p", "?o");
+        sparql.executeSelectQuery(select, (SPARQLResult result) -> {
+            triples.add(result.getStringValue("p") + " " + result.getStringValue("o"));
+        });
+        return triples;
+    }
+
+    @Test
+    public void testBatchDeleteLikeSingleDelete() throws Exception {
+        URI singleURI = new URI("http://test.opensilex.org/a/015");
+        URI batchURI = new URI("http://test.opensilex.org/a/016");
+        Node graph = sparql.getDefaultGraph(A.class);
+
+        for (URI aURI : Arrays.asList(singleURI, batchURI)) {
+            A a = new A();
+            a.setUri(aURI);
+            a.setBool(true);
+            a.setCharVar('D');
+            a.setInteger(7);
+            sparql.create(a);
+
+            // Triple not mapped by A, kept by delete
+            sparql.insertTriple(graph, aURI, RDFS.comment, "unmapped");
+        }
+
+        sparql.delete(A.class, singleURI);
+        sparql.delete(A.class, Collections.singletonList(batchURI));
+
+        assertNull("Object must be null after single deletion", sparql.getByURI(A.class, singleURI, null));
+        assertNull("Object must be null after batch deletion", sparql.getByURI(A.class, batchURI, null));
+
+        Set<String> singleRemaining = getRemainingTriples(singleURI);
+        assertEquals("Unmapped triple must be kept", 1, singleRemaining.size());
+        assertEquals("Batch and single delete must remove the same triples", singleRemaining, getRemainingTriples(batchURI));
+    }
+
     @Test
     public void testUpdateQuery() throws Exception {
         A a = new A();
@@ -199,6 +382,61 @@ public abstract class SPARQLServiceTest extends AbstractUnitTest {
         assertNull("A.getInteger Method should have been deleted", updatedA.getInteger());
     }
 
+    private Set<Property> getQuadsProperties(List<Quad> quads) {
+        return quads.stream()
+                .map(quad -> ResourceFactory.createProperty(quad.getPredicate().getURI()))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testUpdateDiff() throws Exception {
+        URI aURI = new URI("http://test.opensilex.org/a/017");
+        Node graph = sparql.getDefaultGraph(A.class);
+
+        A oldA = new A();
+        oldA.setUri(aURI);
+        oldA.setBool(true);
+        oldA.setCharVar('V');
+        oldA.setInteger(5);
+
+        A newA = new A();
+        newA.setUri(aURI);
+        newA.setBool(true);
+        newA.setCharVar('N');
+        newA.setString("added");
+
+        SPARQLClassObjectMapper<A> mapper = sparql.getMapperIndex().getForClass(A.class);
+        UpdateBuilder update = new UpdateBuilder();
+        assertTrue("Changed instance must produce an update", mapper.addUpdateBuilder(graph, oldA, newA, update));
+
+        UpdateModify modify = (UpdateModify) update.build();
+        assertEquals("Only changed and removed values must be deleted",
+                new HashSet<>(Arrays.asList(TEST_ONTOLOGY.hasChar, TEST_ONTOLOGY.hasInt)),
+                getQuadsProperties(modify.getDeleteQuads()));
+        assertEquals("Only changed and added values must be inserted",
+                new HashSet<>(Arrays.asList(TEST_ONTOLOGY.hasChar, TEST_ONTOLOGY.hasString)),
+                getQuadsProperties(modify.getInsertQuads()));
+
+        A sameA = new A();
+        sameA.setUri(aURI);
+        sameA.setBool(true);
+        sameA.setCharVar('V');
+        sameA.setInteger(5);
+        assertFalse("Unchanged instance must not produce an update", mapper.addUpdateBuilder(graph, oldA, sameA, new UpdateBuilder()));
+
+        sparql.create(oldA);
+        sparql.insertTriple(graph, aURI, RDFS.comment, "unmapped");
+        sparql.update(newA);
+
+        A updatedA = sparql.getByURI(A.class, aURI, null);
+        assertEquals("Unchanged value must be kept", Boolean.TRUE, updatedA.isBool());
+        assertEquals("Changed value must be replaced", Character.valueOf('N'), updatedA.getCharVar());
+        assertEquals("Added value must be inserted", "added", updatedA.getString());
+        assertNull("Removed value must be deleted", updatedA.getInteger());
+        assertTrue("Unmapped triple must be kept", sparql.executeAskQuery(new AskBuilder()
+                .addWhere(SPARQLDeserializers.nodeURI(aURI), RDFS.comment, "unmapped")));
+    }
+
     @Test
     public void testUriExistsWithClass() throws Exception {
         URI bURI = new URI("http://test.opensilex.org/b/001");